@@ -18,10 +18,14 @@
  */
 package org.apache.maven.plugins.javadoc;
 
+import javax.inject.Inject;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -31,6 +35,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
@@ -38,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -47,10 +53,17 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -66,14 +79,18 @@ import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.doxia.tools.SiteTool;
+import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.javadoc.options.BootclasspathArtifact;
 import org.apache.maven.plugins.javadoc.options.DocletArtifact;
@@ -109,6 +126,8 @@ import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
 import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
 import org.codehaus.plexus.components.io.fileselectors.IncludeExcludeFileSelector;
 import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
 import org.codehaus.plexus.languages.java.jpms.LocationManager;
@@ -119,6 +138,7 @@ import org.codehaus.plexus.languages.java.jpms.ResolvePathsRequest;
 import org.codehaus.plexus.languages.java.jpms.ResolvePathsResult;
 import org.codehaus.plexus.languages.java.version.JavaVersion;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.WriterFactory;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
@@ -129,7 +149,10 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.ArtifactTypeRegistry;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
@@ -209,6 +232,22 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     private static final String PACKAGE_LIST = "package-list";
     private static final String ELEMENT_LIST = "element-list";
 
+    /**
+     * The reasons to stop the Javadoc Tool early, see {@link #getAbortReason(JavadocOutputConsumer)}.
+     */
+    static final String FIRST_ERROR = "the first error";
+
+    static final String FIRST_WARNING = "the first warning";
+
+    static final String OTHER_MODULE_FAILURE = "the failure of another module";
+
+    /**
+     * The maximum number of threads resolving the dependencies of aggregated projects. Resolution mostly waits for
+     * repositories, so it uses more threads than CPUs.
+     */
+    private static final int RESOLVER_THREADS =
+            Math.min(2 * Runtime.getRuntime().availableProcessors(), 16);
+
     /**
      * For Javadoc options appears since Java 8.0.
      * See <a href="https://docs.oracle.com/javase/8/docs/technotes/guides/javadoc/index.html">
@@ -238,6 +277,14 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
 
     private ResourceResolver resourceResolver;
 
+    /**
+     * The results shared by all the executions of the session.
+     *
+     * @since 3.12.1
+     */
+    @Inject
+    private JavadocSessionCache sessionCache;
+
     private RepositorySystem repoSystem;
 
     @Parameter(defaultValue = "${repositorySystemSession}", readonly = true, required = true)
@@ -426,6 +473,26 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      */
     private JavaVersion javadocRuntimeVersion;
 
+    /**
+     * The classpath elements, resolved once per execution.
+     */
+    private Collection<File> pathElements;
+
+    /**
+     * The links, detected and followed once per execution.
+     */
+    private Set<String> resolvedLinks;
+
+    /**
+     * The offline links, detected once per execution.
+     */
+    private Set<OfflineLink> resolvedOfflineLinks;
+
+    /**
+     * Whether the resources are still to be copied to the output directory in this execution.
+     */
+    private boolean copyResources = true;
+
     /**
      * Specifies whether the Javadoc generation should be skipped.
      *
@@ -450,6 +517,15 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     @Parameter(property = "maven.javadoc.failOnWarnings", defaultValue = "false")
     protected boolean failOnWarnings;
 
+    /**
+     * Specifies whether the Javadoc Tool should be stopped at its first error when <code>failOnError</code> is set,
+     * since the build will fail anyway. This saves the rest of the run, but hides the errors it would have reported.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.failFast", defaultValue = "false")
+    protected boolean failFast;
+
     /**
      * Specifies to use the
      * <a href="https://docs.oracle.com/en/java/javase/17/docs/specs/man/javadoc.html#standard-doclet-options">
@@ -715,6 +791,11 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * The memory unit depends on the JVM used. The units supported could be: <code>k</code>, <code>kb</code>,
      * <code>m</code>, <code>mb</code>, <code>g</code>, <code>gb</code>, <code>t</code>, <code>tb</code>.
      * If no unit specified, the default unit is <code>m</code>.
+     * <br/>
+     * Since 3.12.1, <code>auto</code> sizes the heap from the number and size of the source files and the size of
+     * the classpath, and selects the parallel garbage collector unless one is set in {@link #additionalJOptions}.
+     * If the Javadoc tool then runs out of memory, it is run once more with twice the heap, and the larger heap is
+     * remembered in the build directory for the next builds.
      */
     @Parameter(property = "maxmemory")
     private String maxmemory;
@@ -1481,6 +1562,54 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.directory}/distro-javadoc-sources")
     private File sourceDependencyCacheDir;
 
+    /**
+     * Directory of the cache of unpacked dependency -sources jars shared by all the modules and builds, keyed by the
+     * checksum of the jars so a jar is unpacked only once. The cache is updated atomically, so concurrent builds can
+     * share it. Defaults to <code>.cache/maven-javadoc-plugin/sources</code> in the local repository.
+     *
+     * @see #includeDependencySources
+     * @see #sourceDependencySharedCacheSize
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.sourceDependencySharedCache")
+    private File sourceDependencySharedCache;
+
+    /**
+     * The maximum size in megabytes of the shared cache of unpacked dependency -sources jars, the least recently used
+     * jars being evicted beyond it. Set to <code>0</code> to unpack the jars to <code>sourceDependencyCacheDir</code>
+     * on every run instead.
+     *
+     * @see #sourceDependencySharedCache
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.sourceDependencySharedCacheSize", defaultValue = "1024")
+    private long sourceDependencySharedCacheSize;
+
+    /**
+     * Whether to put the dependency -sources jars on the source path of the Javadoc Tool as they are, rather than
+     * unpacking them. Their packages are listed from the central directory of the jars, and no source file is
+     * written to disk. Jars with a <code>module-info.java</code> are still unpacked, as are all the jars when
+     * <code>sourceFileIncludes</code>, <code>sourceFileExcludes</code> or <code>legacyMode</code> make the Javadoc
+     * Tool document files rather than packages.
+     *
+     * @see #includeDependencySources
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.sourceDependencyArchives", defaultValue = "false")
+    private boolean sourceDependencyArchives;
+
+    /**
+     * The number of hours during which the dependency -sources, -test-sources and javadoc-resources artifacts which
+     * were not found in the remote repositories are not looked for again. The misses are remembered in the local
+     * repository. Offline builds skip all the artifacts known to be missing, whatever the time elapsed, and
+     * <code>-U</code> looks for all of them again. Set to <code>0</code> to always look for them.
+     *
+     * @see #includeDependencySources
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.sourceDependencyMissingTtl", defaultValue = "24")
+    private long sourceDependencyMissingTtl;
+
     /**
      * Whether to include transitive dependencies in the list of dependency -sources jars to include in this javadoc
      * run.
@@ -1617,6 +1746,17 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * Location of the file used to store the state of the previous javadoc run.
      * This is used to skip the generation if nothing has changed.
      * </p>
+     * <p>
+     * Since 3.12.1, the state holds content digests of the classpath and of the source trees, and the digests of the
+     * individual files are kept in a binary <code>.snapshot</code> file next to it, so only new or touched files are
+     * read again.
+     * </p>
+     * <p>
+     * Since 3.12.1, a first stage of the check, with the plugin configuration, the Javadoc Tool, the source paths and
+     * the dependencies, is stored in a <code>.pre</code> file next to it. When none changed, the setup of the
+     * command line, like the resolution of dependency sources or the validation of links, is skipped as well. It
+     * doesn't apply to aggregated goals and with <code>includeDependencySources</code>.
+     * </p>
      *
      * @since 3.2.0
      */
@@ -1635,11 +1775,38 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     @Parameter(property = "maven.javadoc.skippedModules")
     private String skippedModules;
 
+    /**
+     * How the dependencies of the aggregated projects are resolved by the aggregator goals:
+     * <ul>
+     * <li><code>project</code>: the dependencies of each project are resolved separately, and the highest version of
+     * each artifact is kept.</li>
+     * <li><code>union</code>: the projects whose dependencies were already resolved in the build reuse them, and the
+     * direct and managed dependencies of the other ones are resolved together in a single request, so an artifact
+     * shared by the projects is collected once. Versions are then mediated like in a single project, the nearest
+     * declaration winning, and the highest version of a dependency declared by several projects.</li>
+     * </ul>
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.aggregateDependencyResolution", defaultValue = "project")
+    private String aggregateDependencyResolution;
+
     /**
      * List built once from the parameter {@link #skippedModules}
      */
     private List<Pattern> patternsToSkip;
 
+    /**
+     * Index of the source trees, built once per execution.
+     */
+    private SourceTreeIndex sourceTreeIndex;
+
+    /**
+     * Heap estimated for the Javadoc Tool when {@link #maxmemory} is <code>auto</code>, recorded along the heap
+     * learned from a run that ran out of memory.
+     */
+    private long estimatedHeap = -1;
+
     /**
      * Timestamp for reproducible output archive entries, either formatted as ISO 8601
      * <code>yyyy-MM-dd'T'HH:mm:ssXXX</code> or as an int representing seconds since the epoch (like
@@ -1671,6 +1838,111 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     @Parameter(property = "maven.javadoc.disableNoFonts", defaultValue = "false")
     private boolean disableNoFonts;
 
+    /**
+     * Run the Javadoc Tool inside the Maven JVM instead of forking a new process, which saves the JVM startup
+     * and warm-up on every execution.<br/>
+     * The plugin still forks the Javadoc Tool when a toolchain, a custom <code>javadocExecutable</code>, a custom
+     * doclet or JVM options (like <code>maxmemory</code>, proxy settings or <code>additionalJOptions</code>) are
+     * configured, or when the running JVM provides no documentation tool.<br/>
+     * An in-process run counts as a running Javadoc Tool for <code>maxConcurrentForks</code>, but not for
+     * <code>heapBudget</code> since it uses the heap of the Maven JVM. When the build will fail anyway, e.g. with
+     * <code>failFast</code>, it stops at its next output rather than at once.<br/>
+     * <b>Note</b>: relative paths in <code>additionalOptions</code> are then resolved against the Maven working
+     * directory instead of the Javadoc output directory.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.inProcess", defaultValue = "false")
+    private boolean inProcess;
+
+    /**
+     * Run the Javadoc Tool in long-lived worker JVMs shared by all modules of the build, instead of forking a new
+     * JVM for every execution. Later modules then use an already started and warmed-up Javadoc Tool.<br/>
+     * Workers are started per Javadoc executable (i.e. per JDK or toolchain) and per set of JVM options, and are
+     * stopped at the end of the build. They are used when {@link #inProcess} is not set or not possible, e.g. with
+     * a toolchain or a custom doclet.<br/>
+     * Worker runs are subject to <code>maxConcurrentForks</code> and <code>heapBudget</code> like forked processes,
+     * and a worker running when the build will fail anyway, e.g. with <code>failFast</code>, is stopped.<br/>
+     * <b>Note</b>: relative paths in <code>additionalOptions</code> are then resolved against the Maven working
+     * directory instead of the Javadoc output directory.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.workerPool", defaultValue = "false")
+    private boolean workerPool;
+
+    /**
+     * Number of Javadoc runs after which a worker JVM is replaced by a fresh one.
+     *
+     * @see #workerPool
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.workerMaxRuns", defaultValue = "50")
+    private int workerMaxRuns;
+
+    /**
+     * Percentage of its maximum heap that a worker JVM may still retain after a Javadoc run. Above it, the worker
+     * is replaced by a fresh one, which protects the build from doclets or taglets leaking memory.
+     *
+     * @see #workerPool
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.workerMaxHeapUsage", defaultValue = "75")
+    private int workerMaxHeapUsage;
+
+    /**
+     * Maximum number of Javadoc Tool runs at the same time in the whole build, e.g. in a parallel build with
+     * <code>mvn -T</code>, whether they are forked, on a worker or in-process. Waiting modules are started largest first. <code>0</code> means no limit.<br/>
+     * The limits of the first Javadoc execution of the build apply to the whole build, a later execution configured
+     * otherwise logs a warning.
+     *
+     * @see #heapBudget
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.maxConcurrentForks", defaultValue = "0")
+    private int maxConcurrentForks;
+
+    /**
+     * Maximum sum of the heaps of the Javadoc Tool processes running at the same time in the whole build, e.g.
+     * <code>8g</code>, using the same syntax as {@link #maxmemory}. The heap of a process is its {@link #maxmemory},
+     * or the JVM default of a quarter of the physical memory. A process needing more than the whole budget runs
+     * alone, and smaller ones that fit start before a larger one that doesn't, a few times at most. No limit by
+     * default.<br/>
+     * The limits of the first Javadoc execution of the build apply to the whole build, a later execution configured
+     * otherwise logs a warning.
+     *
+     * @see #maxConcurrentForks
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.heapBudget")
+    private String heapBudget;
+
+    /**
+     * Speed up the startup of forked Javadoc Tool processes with a dynamic class data sharing (AppCDS) archive of the
+     * JDK classes used by the Javadoc Tool. The first fork creates the archive in
+     * <code>.cache/maven-javadoc-plugin/cds</code> of the local repository, later forks use it. The archive is
+     * created again when the JDK is updated.<br/>
+     * Requires a Javadoc Tool from Java 13 or later, ignored otherwise and by in-process and worker executions.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.classDataSharing", defaultValue = "false")
+    private boolean classDataSharing;
+
+    /**
+     * Document again only the packages changed since the previous run, and the packages importing them, instead of
+     * all packages. The other packages keep their pages, which are linked with <code>-linkoffline</code>, and the
+     * search index is patched. Pages listing all packages, like the index, the trees and the deprecated list, are
+     * kept from the previous run, so they may be outdated until the next complete run.<br/>
+     * A complete run still happens when the options, the classpath or the set of packages changed, and when the
+     * sources are given as files instead of packages or are in modules. Requires {@link #staleDataPath} and a Javadoc
+     * Tool from Java 12 or later, ignored otherwise.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.incremental", defaultValue = "false")
+    private boolean incremental;
+
     // ----------------------------------------------------------------------
     // protected methods
     // ----------------------------------------------------------------------
@@ -1916,6 +2188,22 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         }
         setFJavadocVersion(new File(jExecutable));
 
+        // ----------------------------------------------------------------------
+        // First stage of the stale check, before any expensive setup
+        // ----------------------------------------------------------------------
+
+        ContentSnapshot snapshot = null;
+        List<String> preStaleData = null;
+        if (staleDataPath != null) {
+            snapshot = StaleHelper.readSnapshot(staleDataPath.toPath());
+            preStaleData = getPreStaleData(jExecutable, collectedSourcePaths, snapshot);
+            if (isPreUpToDate(preStaleData)) {
+                getLog().debug("Skipping javadoc generation, everything is up to date.");
+                StaleHelper.updateSnapshot(staleDataPath.toPath(), snapshot);
+                return;
+            }
+        }
+
         Collection<String> packageNames;
         if (javadocRuntimeVersion.isAtLeast("9")) {
             packageNames = getPackageNamesRespectingJavaModules(sourcePaths);
@@ -1940,7 +2228,10 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         // Copy all resources
         // ----------------------------------------------------------------------
 
-        copyAllResources(javadocOutputDirectory);
+        if (copyResources) {
+            copyAllResources(javadocOutputDirectory);
+            copyResources = false;
+        }
 
         // ----------------------------------------------------------------------
         // Create command line for Javadoc
@@ -1955,7 +2246,11 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         // Wrap Javadoc JVM args
         // ----------------------------------------------------------------------
 
-        addMemoryArg(cmd, "-Xmx", this.maxmemory);
+        if (isAutoMaxMemory()) {
+            addAutoMemoryArgs(cmd, files, javadocOutputDirectory);
+        } else {
+            addMemoryArg(cmd, "-Xmx", this.maxmemory);
+        }
         addMemoryArg(cmd, "-Xms", this.minmemory);
         addProxyArg(cmd);
 
@@ -2024,8 +2319,10 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             getLog().warn("sourceFileIncludes and sourceFileExcludes have no effect when subpackages are specified!");
             includesExcludesActive = false;
         }
+        Collection<String> documentedPackages = null;
         if (!packageNames.isEmpty() && !includesExcludesActive && !legacyMode) {
             addCommandLinePackages(cmd, javadocOutputDirectory, packageNames);
+            documentedPackages = packageNames;
 
             // ----------------------------------------------------------------------
             // Write argfile file and include it in the command line
@@ -2057,7 +2354,13 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         // Execute command line
         // ----------------------------------------------------------------------
 
-        executeJavadocCommandLine(cmd, javadocOutputDirectory);
+        executeJavadocCommandLine(
+                cmd,
+                javadocOutputDirectory,
+                files.values().stream().mapToInt(Collection::size).sum(),
+                collectedSourcePaths,
+                documentedPackages,
+                snapshot);
 
         // delete generated javadoc files only if no error and no debug mode
         // [MJAVADOC-336] Use File.delete() instead of File.deleteOnExit() to
@@ -2081,6 +2384,153 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 scriptFile.delete();
             }
         }
+
+        if (preStaleData != null) {
+            StaleHelper.writePreStaleData(staleDataPath.toPath(), preStaleData);
+        }
+    }
+
+    /**
+     * Compute the data of the first stage of the stale check: the plugin configuration, the Javadoc Tool, the source
+     * paths, the Javadoc resources and the dependencies. They don't need the expensive setup of the command line, like the resolution of
+     * dependency sources or the validation of links.
+     *
+     * @param jExecutable the Javadoc executable, not null
+     * @param sourcePaths the source paths, not null
+     * @param snapshot the snapshot computing the digests, not null
+     * @return the data, or <code>null</code> if the first stage can not tell, e.g. for aggregated or dependency sources,
+     *         snapshot doclets or a stylesheet looked up in the plugin dependencies
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    private List<String> getPreStaleData(String jExecutable, Collection<Path> sourcePaths, ContentSnapshot snapshot)
+            throws MavenReportException {
+        if (isAggregator() || includeDependencySources || mojoExecution == null || hasSnapshotPathArtifact()) {
+            return null;
+        }
+        Xpp3Dom configuration = mojoExecution.getConfiguration();
+        if (configuration == null) {
+            return null;
+        }
+
+        List<String> data = new ArrayList<>();
+        data.add("plugin = " + mojoExecution.getGroupId() + ':' + mojoExecution.getArtifactId() + ':'
+                + mojoExecution.getVersion() + ':' + mojoExecution.getGoal());
+        data.add("project = " + project.getId());
+        data.add("javadoc = " + jExecutable + ' ' + javadocRuntimeVersion);
+        try {
+            ExpressionEvaluator evaluator = new PluginParameterExpressionEvaluator(session, mojoExecution);
+            MojoDescriptor descriptor = mojoExecution.getMojoDescriptor();
+            for (Xpp3Dom child : configuration.getChildren()) {
+                org.apache.maven.plugin.descriptor.Parameter parameter =
+                        descriptor != null ? descriptor.getParameterMap().get(child.getName()) : null;
+                // read-only parameters are Maven objects, like the session, without a stable string form
+                if (parameter == null || parameter.isEditable()) {
+                    addConfiguration(data, child.getName(), child, evaluator);
+                }
+            }
+        } catch (ExpressionEvaluationException | RuntimeException e) {
+            getLog().debug("Unable to evaluate the configuration for the stale check: " + e.getMessage());
+            return null;
+        }
+
+        try {
+            // digested from the listings of the source tree index, which getFiles() reuses, not walking them again
+            SourceTreeIndex index = getSourceTreeIndex(sourcePaths);
+            for (Path sourcePath : sourcePaths) {
+                String digest = Files.isDirectory(sourcePath)
+                        ? snapshot.digest(sourcePath, index.getAllFiles(sourcePath))
+                        : snapshot.digest(sourcePath);
+                data.add("source " + sourcePath + " = " + digest);
+            }
+            // copied to the output or passed to the Javadoc Tool, outside the source paths
+            if (getJavadocDirectory() != null) {
+                data.add("javadocDirectory = "
+                        + snapshot.digest(getJavadocDirectory().toPath()));
+            }
+            if (overview != null) {
+                data.add("overview = " + snapshot.digest(overview.toPath()));
+            }
+            for (String resource : new String[] {stylesheetfile, helpfile}) {
+                if (resource != null && !resource.isEmpty()) {
+                    File file = new File(resource);
+                    if (!file.isFile()) {
+                        // looked up in the resources or the plugin dependencies when the Javadoc Tool runs
+                        getLog().debug("Unable to check " + resource + " before the Javadoc Tool runs");
+                        return null;
+                    }
+                    data.add("resource " + resource + " = " + snapshot.digest(file.toPath()));
+                }
+            }
+            if (project.getBuild() != null && project.getBuild().getOutputDirectory() != null) {
+                Path classes = Paths.get(project.getBuild().getOutputDirectory());
+                data.add("classes " + classes + " = " + snapshot.apiDigest(classes));
+            }
+            List<Artifact> artifacts = new ArrayList<>(project.getArtifacts());
+            artifacts.sort(Comparator.comparing(Artifact::getId));
+            for (Artifact artifact : artifacts) {
+                String digest = artifact.getFile() != null
+                        ? snapshot.apiDigest(artifact.getFile().toPath())
+                        : null;
+                data.add("artifact " + artifact.getId() + " = " + digest);
+            }
+        } catch (IOException e) {
+            throw new MavenReportException("Unable to compute stale data", e);
+        }
+        return data;
+    }
+
+    /**
+     * @return <code>true</code> if a doclet, taglet or resources artifact is a snapshot, which may change without a
+     *         change of the configuration
+     */
+    boolean hasSnapshotPathArtifact() {
+        List<JavadocPathArtifact> artifacts = new ArrayList<>();
+        artifacts.add(docletArtifact);
+        artifacts.add(tagletArtifact);
+        if (docletArtifacts != null) {
+            artifacts.addAll(Arrays.asList(docletArtifacts));
+        }
+        if (tagletArtifacts != null) {
+            artifacts.addAll(Arrays.asList(tagletArtifacts));
+        }
+        if (resourcesArtifacts != null) {
+            artifacts.addAll(Arrays.asList(resourcesArtifacts));
+        }
+        if (taglets != null) {
+            for (Taglet taglet : taglets) {
+                artifacts.add(taglet.getTagletArtifact());
+            }
+        }
+        return artifacts.stream()
+                .anyMatch(artifact -> artifact != null
+                        && artifact.getVersion() != null
+                        && ArtifactUtils.isSnapshot(artifact.getVersion()));
+    }
+
+    private static void addConfiguration(List<String> data, String path, Xpp3Dom dom, ExpressionEvaluator evaluator)
+            throws ExpressionEvaluationException {
+        if (dom.getChildCount() == 0) {
+            String value = dom.getValue() != null ? dom.getValue() : dom.getAttribute("default-value");
+            data.add("configuration " + path + " = " + (value != null ? evaluator.evaluate(value) : null));
+        } else {
+            for (Xpp3Dom child : dom.getChildren()) {
+                addConfiguration(data, path + '/' + child.getName(), child, evaluator);
+            }
+        }
+    }
+
+    /**
+     * @param preStaleData the data of the first stage of the stale check, may be null
+     * @return <code>true</code> if the data didn't change since a run leaving the javadoc in place
+     */
+    private boolean isPreUpToDate(List<String> preStaleData) {
+        if (preStaleData == null
+                || !staleDataPath.isFile()
+                || !new File(getPluginReportOutputDirectory(), "index.html").isFile()) {
+            return false;
+        }
+        return preStaleData.equals(StaleHelper.readPreStaleData(staleDataPath.toPath()));
     }
 
     /**
@@ -2093,24 +2543,11 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     protected Map<Path, Collection<String>> getFiles(Collection<Path> sourcePaths) throws MavenReportException {
         Map<Path, Collection<String>> mappedFiles = new LinkedHashMap<>(sourcePaths.size());
         if (subpackages == null || subpackages.isEmpty()) {
-            Collection<String> excludedPackages = getExcludedPackages();
-
-            // if legacy mode is active, treat it like pre-Java 9 (exclude module-info),
-            // otherwise don't auto-exclude anything. Do this regardless of the release
-            // or source values specified
-            boolean autoExclude = legacyMode;
-            if (!autoExclude) {
-                if (release != null) {
-                    autoExclude = JavaVersion.parse(release).isBefore("9");
-                } else if (source != null) {
-                    autoExclude = JavaVersion.parse(source).isBefore("9");
-                }
-            }
+            SourceTreeIndex index = getSourceTreeIndex(sourcePaths);
+            boolean autoExclude = isAutoExcludeModuleInfo();
 
             for (Path sourcePath : sourcePaths) {
-                File sourceDirectory = sourcePath.toFile();
-                ArrayList<String> files = new ArrayList<>(JavadocUtil.getFilesFromSource(
-                        sourceDirectory, sourceFileIncludes, sourceFileExcludes, excludedPackages));
+                ArrayList<String> files = new ArrayList<>(index.getFiles(sourcePath));
 
                 // in the aggregate goal (and theoretically in others too), there can be
                 // more than one module-info.java. Filter out all of them.
@@ -2124,6 +2561,67 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         return mappedFiles;
     }
 
+    /**
+     * @return the index of the source trees of this execution, walking each source path once
+     * @throws MavenReportException if the excluded packages can not be computed
+     * @since 3.12.1
+     */
+    private SourceTreeIndex getSourceTreeIndex() throws MavenReportException {
+        if (sourceTreeIndex == null) {
+            SourceInventory inventory =
+                    project.getBuild() != null && project.getBuild().getDirectory() != null
+                            ? SourceInventory.load(new File(project.getBuild().getDirectory()))
+                            : SourceInventory.empty();
+            sourceTreeIndex =
+                    new SourceTreeIndex(sourceFileIncludes, sourceFileExcludes, getExcludedPackages(), inventory);
+        }
+        return sourceTreeIndex;
+    }
+
+    /**
+     * @param sourcePaths the source paths to walk, concurrently, if not walked yet
+     * @return the index of the source trees of this execution
+     * @throws MavenReportException if the excluded packages can not be computed
+     * @since 3.12.1
+     */
+    private SourceTreeIndex getSourceTreeIndex(Collection<Path> sourcePaths) throws MavenReportException {
+        SourceTreeIndex index = getSourceTreeIndex();
+        long start = System.nanoTime();
+        int listed = index.getListedDirectories();
+        int walked = index.walk(sourcePaths);
+        if (walked > 0) {
+            if (getLog().isDebugEnabled()) {
+                getLog().debug("Walked " + walked + " source paths in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, listing "
+                        + (index.getListedDirectories() - listed) + " modified directories");
+            }
+            try {
+                index.storeInventory();
+            } catch (IOException e) {
+                getLog().debug("Unable to write the source inventory: " + e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * If legacy mode is active, treat it like pre-Java 9 (exclude module-info), otherwise don't auto-exclude
+     * anything. Do this regardless of the release or source values specified.
+     *
+     * @return <code>true</code> if the <code>module-info.java</code> files are excluded
+     */
+    private boolean isAutoExcludeModuleInfo() {
+        boolean autoExclude = legacyMode;
+        if (!autoExclude) {
+            if (release != null) {
+                autoExclude = JavaVersion.parse(release).isBefore("9");
+            } else if (source != null) {
+                autoExclude = JavaVersion.parse(source).isBefore("9");
+            }
+        }
+        return autoExclude;
+    }
+
     /**
      * Method to get the source paths per reactorProject. If no source path is specified in the parameter, the compile
      * source roots of the project will be used.
@@ -2305,6 +2803,8 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         }
 
         final SourceResolverConfig config = getDependencySourceResolverConfig();
+        // the excluded packages are not even unpacked
+        config.withExcludedPackages(getExcludedPackages());
 
         try {
             return resourceResolver.resolveDependencySourcePaths(config);
@@ -2356,10 +2856,21 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             }
         }
 
-        return configureDependencySourceResolution(
-                        new SourceResolverConfig(project, getProjectBuildingRequest(project), sourceDependencyCacheDir)
-                                .withReactorProjects(this.reactorProjects))
+        SourceResolverConfig config = configureDependencySourceResolution(new SourceResolverConfig(
+                                project, getProjectBuildingRequest(project), sourceDependencyCacheDir)
+                        .withReactorProjects(this.reactorProjects)
+                        .withSharedCache(sourceDependencySharedCache, sourceDependencySharedCacheSize * 1024 * 1024)
+                        .withMissingArtifactsTimeToLive(TimeUnit.HOURS.toMillis(sourceDependencyMissingTtl)))
                 .withFilter(new AndFilter(andFilters));
+
+        // the Javadoc Tool finds packages in jars, but it can't be given files in jars
+        if (sourceDependencyArchives
+                && !legacyMode
+                && (sourceFileIncludes == null || sourceFileIncludes.isEmpty())
+                && (sourceFileExcludes == null || sourceFileExcludes.isEmpty())) {
+            config.withArchives();
+        }
+        return config;
     }
 
     private ProjectBuildingRequest getProjectBuildingRequest(MavenProject currentProject) {
@@ -2401,8 +2912,13 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
 
         if ((sourcepath != null && !sourcepath.isEmpty()) && (subpackages != null && !subpackages.isEmpty())) {
             Collection<String> excludedPackages = getExcludedPackages();
+            SourceTreeIndex index = getSourceTreeIndex(sourcePaths);
 
-            excludedNames = JavadocUtil.getExcludedPackages(sourcePaths, excludedPackages);
+            excludedNames = new ArrayList<>();
+            for (Path sourcePath : sourcePaths) {
+                excludedNames.addAll(
+                        JavadocUtil.filterExcludedPackages(index.getJavaDirectories(sourcePath), excludedPackages));
+            }
         }
 
         String excludeArg = "";
@@ -2502,6 +3018,18 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * @throws MavenReportException if any.
      */
     private Collection<File> getPathElements() throws MavenReportException {
+        if (pathElements == null) {
+            pathElements = Collections.unmodifiableCollection(resolvePathElements());
+        }
+        return pathElements;
+    }
+
+    /**
+     * @return all classpath elements
+     * @throws MavenReportException if any.
+     * @see #getPathElements()
+     */
+    private Collection<File> resolvePathElements() throws MavenReportException {
         Set<File> classpathElements = new LinkedHashSet<>();
         Map<String, Artifact> compileArtifactMap = new LinkedHashMap<>();
 
@@ -2522,6 +3050,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             DependencyFilter dependencyFilter = new AndDependencyFilter(
                     new PatternExclusionsDependencyFilter(reactorArtifacts), getDependencyScopeFilter());
 
+            List<MavenProject> subProjects = new ArrayList<>();
             for (MavenProject subProject : aggregatorProjects) {
                 if (subProject != project) {
                     File projectArtifactFile = getClassesFile(subProject);
@@ -2530,44 +3059,23 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                     } else {
                         classpathElements.addAll(getProjectBuildOutputDirs(subProject));
                     }
+                    subProjects.add(subProject);
+                }
+            }
 
-                    try {
-                        StringBuilder sb = new StringBuilder();
-
-                        sb.append("Compiled artifacts for ");
-                        sb.append(subProject.getGroupId()).append(":");
-                        sb.append(subProject.getArtifactId()).append(":");
-                        sb.append(subProject.getVersion()).append('\n');
-
-                        List<Dependency> managedDependencies = null;
-                        if (subProject.getDependencyManagement() != null) {
-                            managedDependencies =
-                                    subProject.getDependencyManagement().getDependencies();
-                        }
-
-                        CollectRequest collRequest = new CollectRequest(
-                                toResolverDependencies(subProject.getDependencies()),
-                                toResolverDependencies(managedDependencies),
-                                subProject.getRemoteProjectRepositories());
-                        DependencyRequest depRequest = new DependencyRequest(collRequest, dependencyFilter);
-                        for (ArtifactResult artifactResult : repoSystem
-                                .resolveDependencies(repoSession, depRequest)
-                                .getArtifactResults()) {
-                            List<Artifact> artifacts =
-                                    Collections.singletonList(RepositoryUtils.toArtifact(artifactResult.getArtifact()));
-                            populateCompileArtifactMap(compileArtifactMap, artifacts);
-
-                            sb.append(artifactResult.getArtifact().getFile()).append('\n');
-                        }
-
-                        if (getLog().isDebugEnabled()) {
-                            getLog().debug(sb.toString());
-                        }
+            List<List<Artifact>> resolved;
+            if ("union".equals(aggregateDependencyResolution)) {
+                resolved = resolveUnionDependencies(subProjects, dependencyFilter);
+            } else if ("project".equals(aggregateDependencyResolution)) {
+                resolved = resolveSubProjectDependencies(subProjects, dependencyFilter);
+            } else {
+                throw new MavenReportException("Unsupported aggregateDependencyResolution '"
+                        + aggregateDependencyResolution + "', use 'project' or 'union'");
+            }
 
-                    } catch (DependencyResolutionException e) {
-                        throw new MavenReportException(e.getMessage(), e);
-                    }
-                }
+            // merge in the order of the projects
+            for (List<Artifact> artifacts : resolved) {
+                populateCompileArtifactMap(compileArtifactMap, artifacts);
             }
         }
 
@@ -2586,52 +3094,312 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         return classpathElements;
     }
 
-    protected ScopeDependencyFilter getDependencyScopeFilter() {
-        return new ScopeDependencyFilter(
-                Arrays.asList(Artifact.SCOPE_COMPILE, Artifact.SCOPE_PROVIDED, Artifact.SCOPE_SYSTEM), null);
-    }
-
     /**
-     * @param dependency {@link Dependency}
-     * @return {@link Artifact}
-     * @throws MavenReportException when artifact could not be resolved
-     */
-    public Artifact resolveDependency(Dependency dependency) throws MavenReportException {
-        ArtifactTypeRegistry registry = RepositoryUtils.newArtifactTypeRegistry(artifactHandlerManager);
-        ArtifactRequest req = new ArtifactRequest(
-                RepositoryUtils.toDependency(dependency, registry).getArtifact(),
-                project.getRemoteProjectRepositories(),
-                null);
-        try {
-            ArtifactResult resolutionResult = repoSystem.resolveArtifact(repoSession, req);
-            return RepositoryUtils.toArtifact(resolutionResult.getArtifact());
-        } catch (ArtifactResolutionException e) {
-            throw new MavenReportException("artifact resolver problem - " + e.getMessage(), e);
+     * Resolve the dependencies of the aggregated projects concurrently, on at most {@link #RESOLVER_THREADS} threads.
+     *
+     * @param subProjects the aggregated projects, not null
+     * @param dependencyFilter the filter of the dependencies, not null
+     * @return the resolved dependencies of each project, in the order of the projects
+     * @throws MavenReportException if the dependencies of a project can not be resolved
+     * @since 3.12.1
+     */
+    List<List<Artifact>> resolveSubProjectDependencies(
+            List<MavenProject> subProjects, DependencyFilter dependencyFilter) throws MavenReportException {
+        if (subProjects.isEmpty()) {
+            return Collections.emptyList();
         }
-    }
-
-    protected final Toolchain getToolchain() {
-        Toolchain tc = null;
-
-        if (jdkToolchain != null) {
-            List<Toolchain> tcs = toolchainManager.getToolchains(session, "jdk", jdkToolchain);
-            if (tcs != null && !tcs.isEmpty()) {
-                tc = tcs.get(0);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(Math.min(subProjects.size(), RESOLVER_THREADS), runnable -> {
+                    Thread thread = new Thread(runnable, "javadoc-resolver-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<Future<List<Artifact>>> futures = new ArrayList<>(subProjects.size());
+            for (MavenProject subProject : subProjects) {
+                futures.add(executor.submit(() -> resolveSubProjectDependencies(subProject, dependencyFilter)));
             }
-        }
 
-        if (tc == null) {
-            tc = toolchainManager.getToolchainFromBuildContext("jdk", session);
+            List<List<Artifact>> artifacts = new ArrayList<>(futures.size());
+            for (Future<List<Artifact>> future : futures) {
+                try {
+                    artifacts.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new MavenReportException(cause.getMessage(), (Exception) cause);
+                }
+            }
+            return artifacts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException("Interrupted while resolving the dependencies", e);
+        } finally {
+            executor.shutdownNow();
         }
-
-        return tc;
     }
 
     /**
-     * Method to put the artifacts in the hashmap.
+     * Resolve the dependencies of the aggregated projects with a single request over the union of their direct and
+     * managed dependencies, see {@link #aggregateDependencyResolution}. The projects whose dependencies were already
+     * resolved in the build reuse them.
      *
-     * @param compileArtifactMap the hashmap that will contain the artifacts
-     * @param artifactList       the list of artifacts that will be put in the map
+     * @param subProjects the aggregated projects, not null
+     * @param dependencyFilter the filter of the dependencies, not null
+     * @return the reused dependencies of each project in their order, then the resolved dependencies of the others
+     * @throws MavenReportException if the dependencies can not be resolved
+     * @since 3.12.1
+     */
+    private List<List<Artifact>> resolveUnionDependencies(
+            List<MavenProject> subProjects, DependencyFilter dependencyFilter) throws MavenReportException {
+        List<List<Artifact>> artifacts = new ArrayList<>();
+        Map<String, Dependency> dependencies = new LinkedHashMap<>();
+        Map<String, Dependency> managedDependencies = new LinkedHashMap<>();
+        Set<RemoteRepository> repositories = new LinkedHashSet<>();
+        ArtifactTypeRegistry registry = RepositoryUtils.newArtifactTypeRegistry(artifactHandlerManager);
+        int unresolved = 0;
+        for (MavenProject subProject : subProjects) {
+            List<Artifact> reused = getResolvedArtifacts(subProject, dependencyFilter, registry);
+            if (reused != null) {
+                artifacts.add(reused);
+                continue;
+            }
+            unresolved++;
+            for (Dependency dependency : subProject.getDependencies()) {
+                dependencies.merge(dependency.getManagementKey(), dependency, AbstractJavadocMojo::mergeDependency);
+            }
+            if (subProject.getDependencyManagement() != null) {
+                for (Dependency dependency :
+                        subProject.getDependencyManagement().getDependencies()) {
+                    managedDependencies.merge(
+                            dependency.getManagementKey(), dependency, AbstractJavadocMojo::mergeDependency);
+                }
+            }
+            repositories.addAll(subProject.getRemoteProjectRepositories());
+        }
+        getLog().debug("Reused the resolved dependencies of " + (subProjects.size() - unresolved)
+                + " aggregated projects, resolving the " + dependencies.size() + " dependencies of " + unresolved
+                + " others together");
+        if (dependencies.isEmpty()) {
+            return artifacts;
+        }
+
+        long start = System.nanoTime();
+        CollectRequest collRequest = new CollectRequest(
+                toResolverDependencies(new ArrayList<>(dependencies.values())),
+                toResolverDependencies(new ArrayList<>(managedDependencies.values())),
+                new ArrayList<>(repositories));
+        List<Artifact> union = new ArrayList<>();
+        try {
+            for (ArtifactResult artifactResult : repoSystem
+                    .resolveDependencies(repoSession, new DependencyRequest(collRequest, dependencyFilter))
+                    .getArtifactResults()) {
+                union.add(RepositoryUtils.toArtifact(artifactResult.getArtifact()));
+            }
+        } catch (DependencyResolutionException e) {
+            throw new MavenReportException(e.getMessage(), e);
+        }
+        getLog().debug("Resolved " + union.size() + " artifacts of the aggregated projects in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        artifacts.add(union);
+        return artifacts;
+    }
+
+    /**
+     * @param subProject an aggregated project, not null
+     * @param dependencyFilter the filter of the dependencies, not null
+     * @param registry the artifact types, not null
+     * @return the dependencies of the project already resolved in the build and accepted by the filter, or
+     *         <code>null</code> if they were not resolved, or not in all the scopes accepted by the filter, or if one
+     *         of the accepted dependencies has no file
+     */
+    static List<Artifact> getResolvedArtifacts(
+            MavenProject subProject, DependencyFilter dependencyFilter, ArtifactTypeRegistry registry) {
+        Set<Artifact> resolved = subProject.getArtifacts();
+        if (resolved == null
+                || (resolved.isEmpty() && !subProject.getDependencies().isEmpty())) {
+            return null;
+        }
+
+        Set<String> resolvedKeys = new HashSet<>();
+        List<Artifact> artifacts = new ArrayList<>();
+        for (Artifact artifact : resolved) {
+            resolvedKeys.add(ArtifactUtils.versionlessKey(artifact));
+            DependencyNode node = new DefaultDependencyNode(new org.eclipse.aether.graph.Dependency(
+                    RepositoryUtils.toArtifact(artifact),
+                    artifact.getScope() != null ? artifact.getScope() : Artifact.SCOPE_COMPILE));
+            if (dependencyFilter.accept(node, Collections.emptyList())) {
+                // e.g. a reactor project not packaged yet, only an issue if it is not filtered out
+                if (artifact.getFile() == null) {
+                    return null;
+                }
+                artifacts.add(artifact);
+            }
+        }
+
+        // the direct dependencies the filter accepts must have been resolved
+        for (Dependency dependency : subProject.getDependencies()) {
+            org.eclipse.aether.graph.Dependency direct = RepositoryUtils.toDependency(dependency, registry);
+            if (direct.getScope().isEmpty()) {
+                // declared without scope, like the dependencies in the compile scope usually are
+                direct = direct.setScope(Artifact.SCOPE_COMPILE);
+            }
+            DependencyNode node = new DefaultDependencyNode(direct);
+            if (!dependency.isOptional()
+                    && dependencyFilter.accept(node, Collections.emptyList())
+                    && !resolvedKeys.contains(
+                            ArtifactUtils.versionlessKey(dependency.getGroupId(), dependency.getArtifactId()))) {
+                return null;
+            }
+        }
+        return artifacts;
+    }
+
+    /**
+     * Merge two declarations of the same dependency by different projects into the one that brings the most
+     * artifacts: the highest version, the widest scope, not optional, and only the exclusions of both.
+     */
+    static Dependency mergeDependency(Dependency first, Dependency second) {
+        Dependency merged = first.clone();
+        if (new DefaultArtifactVersion(String.valueOf(second.getVersion()))
+                        .compareTo(new DefaultArtifactVersion(String.valueOf(first.getVersion())))
+                > 0) {
+            merged.setVersion(second.getVersion());
+        }
+        if (scopeRank(second.getScope()) < scopeRank(first.getScope())) {
+            merged.setScope(second.getScope());
+            if (Artifact.SCOPE_SYSTEM.equals(second.getScope())) {
+                merged.setSystemPath(second.getSystemPath());
+            }
+        }
+        merged.setOptional(first.isOptional() && second.isOptional());
+        List<Exclusion> exclusions = new ArrayList<>();
+        for (Exclusion exclusion : first.getExclusions()) {
+            for (Exclusion other : second.getExclusions()) {
+                if (Objects.equals(exclusion.getGroupId(), other.getGroupId())
+                        && Objects.equals(exclusion.getArtifactId(), other.getArtifactId())) {
+                    exclusions.add(exclusion);
+                    break;
+                }
+            }
+        }
+        merged.setExclusions(exclusions);
+        return merged;
+    }
+
+    /**
+     * @return the rank of a scope, the lowest for the scope bringing the most artifacts to the classpath
+     */
+    static int scopeRank(String scope) {
+        if (scope == null || Artifact.SCOPE_COMPILE.equals(scope)) {
+            return 0;
+        } else if (Artifact.SCOPE_PROVIDED.equals(scope)) {
+            return 1;
+        } else if (Artifact.SCOPE_SYSTEM.equals(scope)) {
+            return 2;
+        } else if (Artifact.SCOPE_RUNTIME.equals(scope)) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * @param subProject an aggregated project, not null
+     * @param dependencyFilter the filter of the dependencies, not null
+     * @return the resolved dependencies of the project
+     * @throws DependencyResolutionException if the dependencies can not be resolved
+     */
+    List<Artifact> resolveSubProjectDependencies(MavenProject subProject, DependencyFilter dependencyFilter)
+            throws DependencyResolutionException {
+        long start = System.nanoTime();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Compiled artifacts for ");
+        sb.append(subProject.getGroupId()).append(":");
+        sb.append(subProject.getArtifactId()).append(":");
+        sb.append(subProject.getVersion());
+
+        List<Dependency> managedDependencies = null;
+        if (subProject.getDependencyManagement() != null) {
+            managedDependencies = subProject.getDependencyManagement().getDependencies();
+        }
+
+        CollectRequest collRequest = new CollectRequest(
+                toResolverDependencies(subProject.getDependencies()),
+                toResolverDependencies(managedDependencies),
+                subProject.getRemoteProjectRepositories());
+        DependencyRequest depRequest = new DependencyRequest(collRequest, dependencyFilter);
+        List<Artifact> artifacts = new ArrayList<>();
+        StringBuilder files = new StringBuilder();
+        for (ArtifactResult artifactResult :
+                repoSystem.resolveDependencies(repoSession, depRequest).getArtifactResults()) {
+            artifacts.add(RepositoryUtils.toArtifact(artifactResult.getArtifact()));
+
+            files.append(artifactResult.getArtifact().getFile()).append('\n');
+        }
+
+        if (getLog().isDebugEnabled()) {
+            sb.append(" resolved in ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .append(" ms\n")
+                    .append(files);
+            getLog().debug(sb.toString());
+        }
+        return artifacts;
+    }
+
+    protected ScopeDependencyFilter getDependencyScopeFilter() {
+        return new ScopeDependencyFilter(
+                Arrays.asList(Artifact.SCOPE_COMPILE, Artifact.SCOPE_PROVIDED, Artifact.SCOPE_SYSTEM), null);
+    }
+
+    /**
+     * @param dependency {@link Dependency}
+     * @return {@link Artifact}
+     * @throws MavenReportException when artifact could not be resolved
+     */
+    public Artifact resolveDependency(Dependency dependency) throws MavenReportException {
+        ArtifactTypeRegistry registry = RepositoryUtils.newArtifactTypeRegistry(artifactHandlerManager);
+        ArtifactRequest req = new ArtifactRequest(
+                RepositoryUtils.toDependency(dependency, registry).getArtifact(),
+                project.getRemoteProjectRepositories(),
+                null);
+        try {
+            ArtifactResult resolutionResult = repoSystem.resolveArtifact(repoSession, req);
+            return RepositoryUtils.toArtifact(resolutionResult.getArtifact());
+        } catch (ArtifactResolutionException e) {
+            throw new MavenReportException("artifact resolver problem - " + e.getMessage(), e);
+        }
+    }
+
+    protected final Toolchain getToolchain() {
+        Toolchain tc = null;
+
+        if (jdkToolchain != null) {
+            List<Toolchain> tcs = toolchainManager.getToolchains(session, "jdk", jdkToolchain);
+            if (tcs != null && !tcs.isEmpty()) {
+                tc = tcs.get(0);
+            }
+        }
+
+        if (tc == null) {
+            tc = toolchainManager.getToolchainFromBuildContext("jdk", session);
+        }
+
+        return tc;
+    }
+
+    /**
+     * Method to put the artifacts in the hashmap.
+     *
+     * @param compileArtifactMap the hashmap that will contain the artifacts
+     * @param artifactList       the list of artifacts that will be put in the map
      * @throws MavenReportException if any
      */
     private void populateCompileArtifactMap(Map<String, Artifact> compileArtifactMap, Collection<Artifact> artifactList)
@@ -3253,6 +4021,26 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             return Collections.emptyList();
         }
 
+        StringBuilder key = new StringBuilder()
+                .append(javadocArtifact.getGroupId())
+                .append(':')
+                .append(javadocArtifact.getArtifactId())
+                .append(':')
+                .append(javadocArtifact.getClassifier())
+                .append(':')
+                .append(javadocArtifact.getVersion());
+        for (RemoteRepository repository : project.getRemoteProjectRepositories()) {
+            key.append(' ').append(repository.getId()).append('=').append(repository.getUrl());
+        }
+        return getCached("artifact path", key.toString(), () -> resolveArtifactsAbsolutePath(javadocArtifact));
+    }
+
+    /**
+     * @param javadocArtifact not null
+     * @return the absolute paths of the artifact and of its transitive dependencies, not to be modified
+     * @throws MavenReportException if any
+     */
+    private List<String> resolveArtifactsAbsolutePath(JavadocPathArtifact javadocArtifact) throws MavenReportException {
         List<String> path = new ArrayList<>();
 
         try {
@@ -3272,7 +4060,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 path.add(a.getArtifact().getFile().getAbsolutePath());
             }
 
-            return path;
+            return Collections.unmodifiableList(path);
         } catch (ArtifactResolutionException e) {
             throw new MavenReportException("Unable to resolve artifact:" + javadocArtifact, e);
         } catch (DependencyResolutionException e) {
@@ -3399,6 +4187,26 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             }
         }
 
+        JavadocToolCache cache = getJavadocToolCache();
+        String key = tc + "|" + javadocExecutable;
+        String executable = cache != null ? cache.getExecutable(key) : null;
+        if (executable == null) {
+            executable = findJavadocExecutable();
+            if (cache != null) {
+                cache.putExecutable(key, executable);
+            }
+        }
+        return executable;
+    }
+
+    /**
+     * Find the Javadoc tool executable from the <code>javadocExecutable</code> parameter, or else from the
+     * <code>java.home</code> system property or the <code>JAVA_HOME</code> environment variable.
+     *
+     * @return the path of the Javadoc tool
+     * @throws IOException if not found
+     */
+    private String findJavadocExecutable() throws IOException {
         String javadocCommand = "javadoc" + (SystemUtils.IS_OS_WINDOWS ? ".exe" : "");
 
         File javadocExe;
@@ -3513,15 +4321,23 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * @see JavadocUtil#getJavadocVersion(File)
      */
     private void setFJavadocVersion(File jExecutable) throws MavenReportException {
-        JavaVersion jVersion;
-        try {
-            jVersion = JavadocUtil.getJavadocVersion(jExecutable);
-        } catch (IOException | CommandLineException | IllegalArgumentException e) {
-            if (getLog().isWarnEnabled()) {
-                getLog().warn("Unable to find the javadoc version: " + e.getMessage());
-                getLog().warn("Using the Java version instead of, i.e. " + JAVA_VERSION);
+        JavadocToolCache cache = getJavadocToolCache();
+        JavaVersion jVersion = cache != null ? cache.getVersion(jExecutable) : null;
+        if (jVersion != null) {
+            getLog().debug("Using the cached javadoc version " + jVersion + " of " + jExecutable);
+        } else {
+            try {
+                jVersion = JavadocUtil.getJavadocVersion(jExecutable);
+                if (cache != null) {
+                    cache.putVersion(jExecutable, jVersion);
+                }
+            } catch (IOException | CommandLineException | IllegalArgumentException e) {
+                if (getLog().isWarnEnabled()) {
+                    getLog().warn("Unable to find the javadoc version: " + e.getMessage());
+                    getLog().warn("Using the Java version instead of, i.e. " + JAVA_VERSION);
+                }
+                jVersion = JAVA_VERSION;
             }
-            jVersion = JAVA_VERSION;
         }
 
         if (javadocVersion != null && !javadocVersion.isEmpty()) {
@@ -3539,6 +4355,38 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * @return the cache of the Javadoc Tool executables and versions of the session, or <code>null</code> if there is
+     *         no repository session
+     */
+    private JavadocToolCache getJavadocToolCache() {
+        if (session == null || session.getRepositorySession() == null) {
+            return null;
+        }
+        return JavadocToolCache.getInstance(getSessionCache(), session.getRepositorySession());
+    }
+
+    /**
+     * @return the injected session cache, or a new one if none was injected: it keeps its entries in the repository
+     *         session, so both share the same objects
+     */
+    private JavadocSessionCache getSessionCache() {
+        return sessionCache != null ? sessionCache : new JavadocSessionCache();
+    }
+
+    /**
+     * @return the entry of the session cache, computed by the loader if the session has none yet or if there is no
+     *         session cache
+     * @see JavadocSessionCache#get(RepositorySystemSession, String, String, JavadocSessionCache.Loader)
+     */
+    private <V, E extends Exception> V getCached(String region, String key, JavadocSessionCache.Loader<V, E> loader)
+            throws E {
+        if (sessionCache == null) {
+            return loader.load();
+        }
+        return sessionCache.get(repoSession, region, key, loader);
+    }
+
     /**
      * Is the Javadoc version at least the requested version.
      *
@@ -3766,11 +4614,14 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     }
 
     private Set<OfflineLink> getOfflineLinks() throws MavenReportException {
-        Set<OfflineLink> offlineLinksList = collectOfflineLinks();
+        if (resolvedOfflineLinks == null) {
+            Set<OfflineLink> offlineLinksList = collectOfflineLinks();
 
-        offlineLinksList.addAll(getModulesLinks());
+            offlineLinksList.addAll(getModulesLinks());
 
-        return offlineLinksList;
+            resolvedOfflineLinks = offlineLinksList;
+        }
+        return new LinkedHashSet<>(resolvedOfflineLinks);
     }
 
     /**
@@ -3793,7 +4644,10 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * @see <a href="https://docs.oracle.com/en/java/javase/17/docs/specs/man/javadoc.html#standard-doclet-options">link option</a>
      */
     private void addLinkArguments(List<String> arguments) throws MavenReportException {
-        Set<String> links = collectLinks();
+        if (resolvedLinks == null) {
+            resolvedLinks = collectLinks();
+        }
+        Set<String> links = resolvedLinks;
 
         for (String link : links) {
             if (link == null || link.isEmpty()) {
@@ -3951,36 +4805,18 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      * @param sourcePaths could be null
      * @return the list of package names for files in the sourcePaths
      */
-    private List<String> getPackageNames(Map<Path, Collection<String>> sourcePaths) {
-        List<String> returnList = new ArrayList<>();
-
+    private List<String> getPackageNames(Map<Path, Collection<String>> sourcePaths) throws MavenReportException {
         if (!(sourcepath == null || sourcepath.isEmpty())) {
-            return returnList;
+            return new ArrayList<>();
         }
 
-        for (Entry<Path, Collection<String>> currentPathEntry : sourcePaths.entrySet()) {
-            for (String currentFile : currentPathEntry.getValue()) {
-                /*
-                 * Remove the miscellaneous files
-                 * https://docs.oracle.com/javase/1.4.2/docs/tooldocs/solaris/javadoc.html#unprocessed
-                 */
-                if (currentFile.contains("doc-files")) {
-                    continue;
-                }
-
-                int lastIndexOfSeparator = currentFile.lastIndexOf("/");
-                if (lastIndexOfSeparator != -1) {
-                    String packagename =
-                            currentFile.substring(0, lastIndexOfSeparator).replace('/', '.');
-
-                    if (!returnList.contains(packagename)) {
-                        returnList.add(packagename);
-                    }
-                }
-            }
+        SourceTreeIndex index = getSourceTreeIndex();
+        Set<String> packageNames = new LinkedHashSet<>();
+        for (Path sourcePath : sourcePaths.keySet()) {
+            packageNames.addAll(index.getPackages(sourcePath));
         }
 
-        return returnList;
+        return new ArrayList<>(packageNames);
     }
 
     /**
@@ -4016,25 +4852,10 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 exportAllPackages = true;
             }
 
-            for (Map.Entry<Path, Collection<String>> currentPathEntry :
-                    getFiles(artifactSourcePaths).entrySet()) {
-                for (String currentFile : currentPathEntry.getValue()) {
-                    /*
-                     * Remove the miscellaneous files
-                     * https://docs.oracle.com/javase/1.4.2/docs/tooldocs/solaris/javadoc.html#unprocessed
-                     */
-                    if (currentFile.contains("doc-files")) {
-                        continue;
-                    }
-
-                    int lastIndexOfSeparator = currentFile.lastIndexOf('/');
-                    if (lastIndexOfSeparator != -1) {
-                        String packagename =
-                                currentFile.substring(0, lastIndexOfSeparator).replace('/', '.');
-
-                        if (exportAllPackages || exportedPackages.contains(packagename)) {
-                            returnList.add(packagename);
-                        }
+            for (Path sourcePath : getFiles(artifactSourcePaths).keySet()) {
+                for (String packagename : getSourceTreeIndex().getPackages(sourcePath)) {
+                    if (exportAllPackages || exportedPackages.contains(packagename)) {
+                        returnList.add(packagename);
                     }
                 }
             }
@@ -4056,6 +4877,9 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
 
         for (Entry<Path, Collection<String>> currentPathEntry : sourcePaths.entrySet()) {
             Path currentSourcePath = currentPathEntry.getKey();
+            if (SourceTreeIndex.isArchive(currentSourcePath)) {
+                continue;
+            }
 
             for (String currentFile : currentPathEntry.getValue()) {
                 /*
@@ -4108,6 +4932,10 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
 
         for (Entry<Path, Collection<String>> currentPathEntry : sourcePaths.entrySet()) {
             Path currentSourcePath = currentPathEntry.getKey();
+            if (SourceTreeIndex.isArchive(currentSourcePath)) {
+                // documented by package name
+                continue;
+            }
             if (currentPathEntry.getValue().contains("module-info.java")) {
                 returnList.add(currentSourcePath
                         .resolve("module-info.java")
@@ -4650,9 +5478,13 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
     }
 
     private Path findMainDescriptor(Collection<Path> roots) throws MavenReportException {
-        for (Map.Entry<Path, Collection<String>> entry : getFiles(roots).entrySet()) {
-            if (entry.getValue().contains("module-info.java")) {
-                return entry.getKey().resolve("module-info.java");
+        if (!(subpackages == null || subpackages.isEmpty()) || isAutoExcludeModuleInfo()) {
+            return null;
+        }
+        SourceTreeIndex index = getSourceTreeIndex(roots);
+        for (Path root : roots) {
+            if (!SourceTreeIndex.isArchive(root) && index.hasModuleDescriptor(root)) {
+                return root.resolve("module-info.java");
             }
         }
         return null;
@@ -4968,29 +5800,225 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      *
      * @param cmd                    not null
      * @param javadocOutputDirectory not null
+     * @param sourceFileCount        the number of source files to document
+     * @param sourcePaths            the source paths, not null
+     * @param packageNames           the packages given to Javadoc, or <code>null</code> if source files are given
+     * @param snapshot               the snapshot computing the digests of the stale check, or <code>null</code> to
+     *                               always run
      * @throws MavenReportException if any errors occur
      */
-    private void executeJavadocCommandLine(Commandline cmd, File javadocOutputDirectory) throws MavenReportException {
-        if (staleDataPath != null) {
-            if (!isUpToDate(cmd)) {
-                doExecuteJavadocCommandLine(cmd, javadocOutputDirectory);
-                StaleHelper.writeStaleData(cmd, staleDataPath.toPath());
+    private void executeJavadocCommandLine(
+            Commandline cmd,
+            File javadocOutputDirectory,
+            int sourceFileCount,
+            Collection<Path> sourcePaths,
+            Collection<String> packageNames,
+            ContentSnapshot snapshot)
+            throws MavenReportException {
+        if (snapshot != null) {
+            if (!isUpToDate(cmd, snapshot)) {
+                Path statePath = getIncrementalStatePath();
+                IncrementalJavadoc state = null;
+                if (isIncremental() && packageNames != null) {
+                    IncrementalJavadoc previous = IncrementalJavadoc.read(statePath);
+                    try {
+                        state = IncrementalJavadoc.of(
+                                StaleHelper.getOptionsData(cmd, snapshot),
+                                sourcePaths,
+                                packageNames,
+                                snapshot,
+                                previous);
+                    } catch (IOException e) {
+                        throw new MavenReportException("Unable to compute the incremental javadoc state", e);
+                    }
+                    Set<String> documentedPackages = executeIncrementally(cmd, javadocOutputDirectory, state, previous);
+                    if (documentedPackages == null) {
+                        doExecuteJavadocCommandLine(cmd, javadocOutputDirectory, sourceFileCount);
+                    }
+                    try {
+                        state.readReferences(javadocOutputDirectory.toPath(), documentedPackages);
+                    } catch (IOException e) {
+                        throw new MavenReportException("Unable to read the references of the javadoc pages", e);
+                    }
+                } else {
+                    doExecuteJavadocCommandLine(cmd, javadocOutputDirectory, sourceFileCount);
+                }
+                StaleHelper.writeStaleData(cmd, staleDataPath.toPath(), snapshot.next());
+                try {
+                    if (state != null) {
+                        state.write(statePath);
+                    } else {
+                        Files.deleteIfExists(statePath);
+                    }
+                } catch (IOException e) {
+                    throw new MavenReportException("Error writing the incremental javadoc state", e);
+                }
+            } else {
+                StaleHelper.updateSnapshot(staleDataPath.toPath(), snapshot);
             }
         } else {
-            doExecuteJavadocCommandLine(cmd, javadocOutputDirectory);
+            doExecuteJavadocCommandLine(cmd, javadocOutputDirectory, sourceFileCount);
         }
     }
 
+    /**
+     * @return <code>true</code> to document again only the changed packages, see {@link #incremental}
+     * @since 3.12.1
+     */
+    protected boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Run the Javadoc report again in this execution, after the sources changed. The source trees are walked again,
+     * while the dependencies, the links and the Javadoc Tool found by the previous run are kept, and the resources
+     * are not copied again.
+     *
+     * @throws MavenReportException if any
+     * @since 3.12.1
+     */
+    void executeReportAgain() throws MavenReportException {
+        sourceTreeIndex = null;
+        executeReport(Locale.getDefault());
+    }
+
+    /**
+     * Copy a changed file of a <code>doc-files</code> directory, or of the <code>resources</code> of the
+     * {@link #javadocDirectory}, to the output directory like a run would, without running the Javadoc Tool.
+     *
+     * @param root the source path or the Javadoc directory of the file, not null
+     * @param file the changed file, deleted or not, not null
+     * @return <code>false</code> if the file is not copied as is, so the Javadoc Tool must run again
+     * @throws IOException if the file can not be copied
+     * @since 3.12.1
+     */
+    boolean copyDocFile(Path root, Path file) throws IOException {
+        Path relative = root.relativize(file);
+        int docFiles = -1;
+        for (int i = 0; i < relative.getNameCount() - 1; i++) {
+            if ("doc-files".equals(relative.getName(i).toString())) {
+                docFiles = i;
+                break;
+            }
+        }
+        boolean resources = relative.getNameCount() > 1
+                && "resources".equals(relative.getName(0).toString())
+                && getJavadocDirectory() != null
+                && root.equals(getJavadocDirectory().toPath());
+        if (docFiles == -1 && !resources) {
+            return false;
+        }
+
+        int subdirectory = resources ? 1 : docFiles + 1;
+        if (relative.getNameCount() - subdirectory > 1) {
+            if (!docfilessubdirs) {
+                // not copied by the Javadoc Tool
+                return true;
+            }
+            if (excludedocfilessubdir != null && !excludedocfilessubdir.isEmpty()) {
+                StringTokenizer st = new StringTokenizer(excludedocfilessubdir, ":");
+                while (st.hasMoreTokens()) {
+                    String excluded = st.nextToken().trim();
+                    for (int i = subdirectory; i < relative.getNameCount() - 1; i++) {
+                        if (excluded.equals(relative.getName(i).toString())) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        Path target = Paths.get(getPluginReportOutputDirectory()).resolve(relative.toString());
+        if (Files.isDirectory(file)) {
+            FileUtils.copyDirectoryStructure(file.toFile(), target.toFile());
+        } else if (Files.exists(file)) {
+            Files.createDirectories(target.getParent());
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        } else if (Files.isDirectory(target)) {
+            FileUtils.deleteDirectory(target.toFile());
+        } else {
+            Files.deleteIfExists(target);
+        }
+        return true;
+    }
+
+    /**
+     * Run the Javadoc Tool on the packages changed since the previous run only, see {@link #incremental}.
+     *
+     * @param cmd                    not null
+     * @param javadocOutputDirectory not null
+     * @param state                  the state of the current sources, not null
+     * @param previous               the state of the previous run, may be null
+     * @return the packages documented again, or <code>null</code> if a complete run is needed instead
+     * @throws MavenReportException if any errors occur
+     */
+    private Set<String> executeIncrementally(
+            Commandline cmd, File javadocOutputDirectory, IncrementalJavadoc state, IncrementalJavadoc previous)
+            throws MavenReportException {
+        Path outputDirectory = javadocOutputDirectory.toPath();
+        Set<String> stalePackages = state.getStalePackages(previous);
+        if (stalePackages == null
+                || !javadocRuntimeVersion.isAtLeast("12")
+                || !IncrementalJavadoc.canPatch(outputDirectory)) {
+            return null;
+        }
+        getLog().info("Regenerating the javadoc of " + stalePackages.size() + " changed package(s)");
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("     Packages: " + String.join(", ", stalePackages));
+        }
+
+        File backupDirectory = null;
+        try {
+            backupDirectory = Files.createTempDirectory(
+                            staleDataPath.getAbsoluteFile().getParentFile().toPath(), "javadoc-pages")
+                    .toFile();
+            IncrementalJavadoc.backupSharedPages(outputDirectory, backupDirectory.toPath());
+
+            // the unchanged packages are linked to the pages in place, relative to the output directory
+            List<String> packages = new ArrayList<>();
+            packages.add("-linkoffline");
+            packages.add(JavadocUtil.quotedPathArgument("."));
+            packages.add(JavadocUtil.quotedPathArgument(backupDirectory.getAbsolutePath()));
+            packages.addAll(stalePackages);
+            Files.write(outputDirectory.resolve(PACKAGES_FILE_NAME), packages, Charset.defaultCharset());
+            try {
+                doExecuteJavadocCommandLine(cmd, javadocOutputDirectory, state.getSourceFileCount(stalePackages));
+            } finally {
+                // also restores the packages file, for the stale data
+                IncrementalJavadoc.patchSharedPages(outputDirectory, backupDirectory.toPath(), stalePackages);
+            }
+        } catch (IOException e) {
+            throw new MavenReportException("Unable to regenerate the javadoc incrementally: " + e.getMessage(), e);
+        } finally {
+            if (backupDirectory != null) {
+                try {
+                    FileUtils.deleteDirectory(backupDirectory);
+                } catch (IOException e) {
+                    getLog().debug("Unable to delete " + backupDirectory + ": " + e.getMessage());
+                }
+            }
+        }
+        return stalePackages;
+    }
+
+    private Path getIncrementalStatePath() {
+        return staleDataPath.toPath().resolveSibling(staleDataPath.getName() + ".packages");
+    }
+
     /**
      * Check if the javadoc is uptodate or not
      *
      * @param cmd                    not null
+     * @param snapshot               the snapshot computing the digests of the files, not null
      * @return <code>true</code> is the javadoc is uptodate, <code>false</code> otherwise
      * @throws MavenReportException  if any error occur
      */
-    private boolean isUpToDate(Commandline cmd) throws MavenReportException {
+    private boolean isUpToDate(Commandline cmd, ContentSnapshot snapshot) throws MavenReportException {
         try {
-            List<String> curdata = StaleHelper.getStaleData(cmd);
+            long start = System.nanoTime();
+            List<String> curdata = StaleHelper.getStaleData(cmd, snapshot);
+            getLog().debug("Computed the javadoc stale data in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
             Path cacheData = staleDataPath.toPath();
             List<String> prvdata;
             if (Files.isRegularFile(cacheData)) {
@@ -5032,9 +6060,11 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      *
      * @param cmd                    not null
      * @param javadocOutputDirectory not null
+     * @param sourceFileCount        the number of source files to document
      * @throws MavenReportException if any errors occur
      */
-    private void doExecuteJavadocCommandLine(Commandline cmd, File javadocOutputDirectory) throws MavenReportException {
+    private void doExecuteJavadocCommandLine(Commandline cmd, File javadocOutputDirectory, int sourceFileCount)
+            throws MavenReportException {
         if (getLog().isDebugEnabled()) {
             // no quoted arguments
             getLog().debug(CommandLineUtils.toString(cmd.getCommandline()).replaceAll("'", ""));
@@ -5047,14 +6077,41 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
             writeDebugJavadocScript(cmdLine, javadocOutputDirectory);
         }
 
-        CommandLineUtils.StringStreamConsumer err = new JavadocUtil.JavadocOutputStreamConsumer();
-        CommandLineUtils.StringStreamConsumer out = new JavadocUtil.JavadocOutputStreamConsumer();
+        JavadocOutputConsumer out;
+        JavadocOutputConsumer err;
         try {
-            int exitCode = CommandLineUtils.executeCommandLine(cmd, out, err);
-
-            String output = StringUtils.isEmpty(out.getOutput())
-                    ? null
-                    : '\n' + out.getOutput().trim();
+            int exitCode;
+            JavadocProcessWatchdog watchdog;
+            boolean retried = false;
+            while (true) {
+                // stream the output, it can be huge for big projects
+                out = new JavadocOutputConsumer(String::isEmpty, str -> {}, getLog()::info, null);
+                // only the diagnostics are warned about, as before the output was streamed
+                JavadocOutputConsumer stderr = new JavadocOutputConsumer(
+                        this::isInformationalOutput,
+                        getLog()::debug,
+                        getLog()::warn,
+                        getLog()::debug,
+                        "Javadoc Warnings");
+                err = stderr;
+                watchdog = new JavadocProcessWatchdog(() -> getAbortReason(stderr));
+                exitCode = executeCommandLine(cmd, out, err, sourceFileCount, watchdog);
+
+                if (watchdog.getAbortReason() != null) {
+                    handleAbortedCommandLine(watchdog, err, javadocOutputDirectory);
+                }
+                if (exitCode == 0 || retried || !retryWithMoreMemory(cmd, out, err, javadocOutputDirectory)) {
+                    break;
+                }
+                retried = true;
+                cmdLine = null;
+            }
+            if (watchdog.getElapsedMillis() >= 0) {
+                recordDuration(javadocOutputDirectory, watchdog.getElapsedMillis());
+            }
+            if (exitCode == 0 && isAutoMaxMemory()) {
+                forgetUnneededMaxMemory(cmd, javadocOutputDirectory);
+            }
 
             if (exitCode != 0) {
                 if (cmdLine == null) {
@@ -5062,9 +6119,9 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 }
                 writeDebugJavadocScript(cmdLine, javadocOutputDirectory);
 
-                if ((output != null && !output.isEmpty())
-                        && StringUtils.isEmpty(err.getOutput())
-                        && isJavadocVMInitError(output)) {
+                String output =
+                        out.isEmpty() ? null : '\n' + out.getRetainedOutput().trim();
+                if ((output != null && !output.isEmpty()) && err.isEmpty() && isJavadocVMInitError(output)) {
                     throw new MavenReportException(output + '\n' + '\n' + JavadocUtil.ERROR_INIT_VM + '\n'
                             + "Or, try to reduce the Java heap size for the Javadoc goal using "
                             + "-Dminmemory=<size> and -Dmaxmemory=<size>." + '\n' + '\n' + "Command line was: "
@@ -5073,26 +6130,12 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                             + "' dir.\n");
                 }
 
-                if (output != null && !output.isEmpty()) {
-                    getLog().info(output);
-                }
-
                 StringBuilder msg = new StringBuilder("\nExit code: ");
                 msg.append(exitCode);
-                if (StringUtils.isNotEmpty(err.getOutput())) {
-                    // parse stderr, log informational output, add all other to exception message
-                    List<String> nonInfoLines = new ArrayList<>();
-                    for (String str : err.getOutput().split("\\R")) {
-                        if (isInformationalOutput(str)) {
-                            getLog().debug(str);
-                        } else {
-                            nonInfoLines.add(str);
-                        }
-                    }
-                    if (!nonInfoLines.isEmpty()) {
-                        msg.append('\n'); // new line between exit code and warnings/errors
-                        msg.append(String.join("\n", nonInfoLines));
-                    }
+                String errors = err.getRetainedOutput();
+                if (!errors.isEmpty()) {
+                    msg.append('\n'); // new line between exit code and warnings/errors
+                    msg.append(errors);
                 }
                 msg.append('\n');
                 msg.append("Command line was: ").append(cmdLine).append('\n').append('\n');
@@ -5103,10 +6146,6 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
 
                 throw new MavenReportException(msg.toString());
             }
-
-            if (output != null && !output.isEmpty()) {
-                getLog().info(output);
-            }
         } catch (CommandLineException e) {
             throw new MavenReportException("Unable to execute javadoc command: " + e.getMessage(), e);
         }
@@ -5115,38 +6154,496 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         // Handle Javadoc warnings
         // ----------------------------------------------------------------------
 
-        if (containsWarnings(err.getOutput())) {
-            if (getLog().isWarnEnabled()) {
-                getLog().warn("Javadoc Warnings");
-
-                StringTokenizer token = new StringTokenizer(err.getOutput(), "\n");
-                while (token.hasMoreTokens()) {
-                    String current = token.nextToken().trim();
+        if (containsWarnings(err)) {
+            getLog().debug("Javadoc reported " + err.getWarningCount() + " warnings");
+            if (failOnWarnings) {
+                throw new MavenReportException("Project contains Javadoc Warnings");
+            }
+        }
+    }
 
-                    // log informational output at debug level only
-                    if (isInformationalOutput(current)) {
-                        getLog().debug(current);
-                    } else {
-                        getLog().warn(current);
-                    }
+    /**
+     * Run the Javadoc Tool, in-process if {@link #inProcess} is set and the command line allows it, else in a worker
+     * JVM if {@link #workerPool} is set, in a forked process otherwise.
+     *
+     * All runs are subject to {@link #maxConcurrentForks}, forks and worker runs to {@link #heapBudget} too, and all
+     * are stopped by the watchdog.
+     *
+     * @param cmd not null
+     * @param out not null
+     * @param err not null
+     * @param sourceFileCount the number of source files to document
+     * @param watchdog the watchdog of the run, not null
+     * @return the exit code of the Javadoc Tool
+     * @throws CommandLineException if the Javadoc Tool can not be run
+     */
+    private int executeCommandLine(
+            Commandline cmd,
+            JavadocOutputConsumer out,
+            JavadocOutputConsumer err,
+            int sourceFileCount,
+            JavadocProcessWatchdog watchdog)
+            throws CommandLineException {
+        if (inProcess) {
+            String reason = getInProcessUnsupportedReason(cmd);
+            if (reason == null) {
+                getLog().debug("Running the Javadoc Tool in-process");
+                // counted as a running Javadoc Tool, using the heap of the Maven JVM rather than the heap budget
+                try (JavadocForkScheduler.Permit permit = acquireForkPermit(0, sourceFileCount)) {
+                    return watchdog.execute(() -> InProcessJavadoc.execute(cmd, out::consumeLine, err::consumeLine));
                 }
             }
+            getLog().debug("Not running the Javadoc Tool in-process: " + reason);
+        }
+        try (JavadocForkScheduler.Permit permit = acquireForkPermit(getForkMaxHeap(cmd), sourceFileCount)) {
+            return executeForkedCommandLine(cmd, out, err, watchdog);
+        }
+    }
 
-            if (failOnWarnings) {
-                throw new MavenReportException("Project contains Javadoc Warnings");
+    /**
+     * Wait until the session wide limits of {@link #maxConcurrentForks} and {@link #heapBudget} allow to run the
+     * Javadoc Tool.
+     *
+     * @param heap the maximum heap of the Javadoc Tool JVM in bytes, <code>0</code> to run in-process
+     * @param sourceFileCount the number of source files to document
+     * @return the permit to close after the run, or <code>null</code> if there are no limits
+     * @throws CommandLineException if interrupted while waiting
+     */
+    private JavadocForkScheduler.Permit acquireForkPermit(long heap, int sourceFileCount) throws CommandLineException {
+        long budget = 0;
+        if (heapBudget != null && !heapBudget.isEmpty()) {
+            try {
+                budget = JavadocUtil.parseJavadocMemoryInBytes(heapBudget);
+            } catch (IllegalArgumentException e) {
+                getLog().error("Malformed memory pattern for heapBudget '" + heapBudget + "'. Ignore this option.");
+            }
+        }
+        if (maxConcurrentForks <= 0 && budget <= 0) {
+            return null;
+        }
+
+        JavadocForkScheduler scheduler = JavadocForkScheduler.getInstance(
+                getSessionCache(), session.getRepositorySession(), maxConcurrentForks, budget);
+        if (scheduler.getMaxConcurrentForks() != maxConcurrentForks || scheduler.getHeapBudget() != budget) {
+            getLog().warn("Ignoring maxConcurrentForks=" + maxConcurrentForks + " and heapBudget=" + heapBudget
+                    + ", the limits of the first Javadoc execution apply to the whole build: maxConcurrentForks="
+                    + scheduler.getMaxConcurrentForks() + " and heapBudget="
+                    + (scheduler.getHeapBudget() > 0
+                            ? JavadocHeapEstimator.toMemoryArg(scheduler.getHeapBudget())
+                            : "none"));
+        }
+        JavadocForkScheduler.Permit permit;
+        try {
+            permit = scheduler.acquire(sourceFileCount, heap);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandLineException("Interrupted while waiting to run the Javadoc Tool", e);
+        }
+
+        StringBuilder status = new StringBuilder();
+        status.append(permit.getRunning()).append(" javadoc processes running");
+        if (scheduler.getMaxConcurrentForks() > 0) {
+            status.append(" (max ").append(scheduler.getMaxConcurrentForks()).append(')');
+        }
+        status.append(", ").append(permit.getHeapInUse() >> 20).append(" MB heap");
+        if (scheduler.getHeapBudget() > 0) {
+            status.append(" of ").append(scheduler.getHeapBudget() >> 20).append(" MB budget");
+        }
+        if (permit.getWaitMillis() > 0) {
+            getLog().info("Waited " + permit.getWaitMillis() + " ms to run the Javadoc Tool, " + status);
+        } else {
+            getLog().debug(status.toString());
+        }
+        return permit;
+    }
+
+    /**
+     * @param cmd not null
+     * @return the maximum heap of the Javadoc Tool JVM in bytes, from its <code>-Xmx</code> option or the JVM default
+     */
+    private long getForkMaxHeap(Commandline cmd) {
+        String xmx = null;
+        for (String arg : cmd.getArguments()) {
+            if (arg.startsWith("-J-Xmx")) {
+                xmx = arg.substring("-J-Xmx".length());
+            }
+        }
+        if (xmx != null) {
+            try {
+                return JavadocUtil.parseJavadocMemoryInBytes(xmx);
+            } catch (IllegalArgumentException e) {
+                getLog().debug("Unable to parse the maximum heap '" + xmx + "': " + e.getMessage());
+            }
+        }
+        // the default maximum heap of a JVM is a quarter of the physical memory
+        long physicalMemory = getPhysicalMemory();
+        return physicalMemory > 0 ? physicalMemory / 4 : Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * @return the physical memory of the machine in bytes, or <code>0</code> if unknown
+     */
+    private static long getPhysicalMemory() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        return 0;
+    }
+
+    /**
+     * @return <code>true</code> if {@link #maxmemory} is <code>auto</code>
+     */
+    private boolean isAutoMaxMemory() {
+        return "auto".equalsIgnoreCase(maxmemory);
+    }
+
+    /**
+     * Add the maximum heap estimated by {@link JavadocHeapEstimator}, or the one learned by a previous run that ran out
+     * of memory if larger, and a garbage collector suited to short batch runs unless one is configured. The learned
+     * heap is forgotten once the estimate reaches it, and tried without when the sources shrank well below the ones
+     * of the run that ran out of memory, see {@link #forgetUnneededMaxMemory(Commandline, File)}.
+     *
+     * @param cmd not null
+     * @param files the documented source files, not null
+     * @param javadocOutputDirectory not null
+     * @throws MavenReportException if the classpath can not be resolved
+     */
+    private void addAutoMemoryArgs(Commandline cmd, Map<Path, Collection<String>> files, File javadocOutputDirectory)
+            throws MavenReportException {
+        long fileCount = 0;
+        long sourceBytes = 0;
+        for (Map.Entry<Path, Collection<String>> filesEntry : files.entrySet()) {
+            for (String file : filesEntry.getValue()) {
+                fileCount++;
+                sourceBytes += filesEntry.getKey().resolve(file).toFile().length();
+            }
+        }
+        long classpathBytes = 0;
+        for (File element : getPathElements()) {
+            if (element.isFile()) {
+                classpathBytes += element.length();
+            }
+        }
+
+        long heap = JavadocHeapEstimator.estimate(
+                fileCount, sourceBytes, classpathBytes, includeDependencySources, getPhysicalMemory() / 2);
+        getLog().debug("Estimated a javadoc heap of " + JavadocHeapEstimator.toMemoryArg(heap) + " for " + fileCount
+                + " files (" + sourceBytes + " bytes) and a classpath of " + classpathBytes + " bytes");
+
+        estimatedHeap = heap;
+
+        JavadocRunHistory history = getRunHistory();
+        long learned = history != null ? history.getMaxMemory(javadocOutputDirectory) : -1;
+        if (learned > 0 && learned <= heap) {
+            getLog().debug("Forgetting the javadoc heap of " + JavadocHeapEstimator.toMemoryArg(learned)
+                    + " learned from a previous run, the estimate caught up with it");
+            history.removeMaxMemory(javadocOutputDirectory);
+            storeRunHistory(history);
+        } else if (JavadocHeapEstimator.useLearned(
+                heap, learned, history != null ? history.getMaxMemoryEstimate(javadocOutputDirectory) : -1)) {
+            getLog().debug("Using the javadoc heap of " + JavadocHeapEstimator.toMemoryArg(learned)
+                    + " learned from a previous run");
+            heap = learned;
+        } else if (learned > heap) {
+            getLog().debug("Trying the estimated javadoc heap instead of the one of "
+                    + JavadocHeapEstimator.toMemoryArg(learned)
+                    + " learned from a previous run, the sources shrank well below the ones of that run");
+        }
+        cmd.createArg().setValue("-J-Xmx" + JavadocHeapEstimator.toMemoryArg(heap));
+
+        if (!hasGarbageCollectorOption()) {
+            // throughput matters more than pauses for a batch run
+            cmd.createArg().setValue("-J-XX:+UseParallelGC");
+        }
+    }
+
+    private boolean hasGarbageCollectorOption() {
+        List<String> options = new ArrayList<>();
+        if (additionalJOption != null) {
+            options.add(additionalJOption);
+        }
+        if (additionalJOptions != null) {
+            options.addAll(Arrays.asList(additionalJOptions));
+        }
+        return options.stream().anyMatch(o -> o.contains("-XX:+Use") && o.contains("GC"));
+    }
+
+    /**
+     * Prepare the command line to run again with twice the heap if the Javadoc Tool ran out of memory, and
+     * {@link #maxmemory} is <code>auto</code>. The new heap is recorded for the next builds.
+     *
+     * @param cmd not null
+     * @param out not null
+     * @param err not null
+     * @param javadocOutputDirectory not null
+     * @return <code>true</code> if the command line should run again
+     */
+    private boolean retryWithMoreMemory(
+            Commandline cmd, JavadocOutputConsumer out, JavadocOutputConsumer err, File javadocOutputDirectory) {
+        if (!isAutoMaxMemory() || !(out.hasOutOfMemoryError() || err.hasOutOfMemoryError())) {
+            return false;
+        }
+        long heap = getForkMaxHeap(cmd);
+        long grown = JavadocHeapEstimator.grow(heap, getPhysicalMemory() / 2);
+        if (grown == 0) {
+            return false;
+        }
+
+        String[] arguments = cmd.getArguments();
+        cmd.clearArgs();
+        for (String argument : arguments) {
+            cmd.createArg()
+                    .setValue(
+                            argument.startsWith("-J-Xmx")
+                                    ? "-J-Xmx" + JavadocHeapEstimator.toMemoryArg(grown)
+                                    : argument);
+        }
+
+        JavadocRunHistory history = getRunHistory();
+        if (history != null) {
+            history.setMaxMemory(javadocOutputDirectory, grown, estimatedHeap);
+            storeRunHistory(history);
+        }
+        getLog().warn("The Javadoc Tool ran out of memory with a heap of " + JavadocHeapEstimator.toMemoryArg(heap)
+                + ", retrying with " + JavadocHeapEstimator.toMemoryArg(grown));
+        return true;
+    }
+
+    /**
+     * Run the Javadoc Tool in a worker JVM if {@link #workerPool} is set, in a forked process otherwise, watched by
+     * the given watchdog in both cases.
+     *
+     * @param cmd not null
+     * @param out not null
+     * @param err not null
+     * @param watchdog not null
+     * @return the exit code of the Javadoc Tool
+     * @throws CommandLineException if the Javadoc Tool can not be run
+     */
+    private int executeForkedCommandLine(
+            Commandline cmd, JavadocOutputConsumer out, JavadocOutputConsumer err, JavadocProcessWatchdog watchdog)
+            throws CommandLineException {
+        if (workerPool) {
+            File javaExecutable = new File(
+                    new File(cmd.getShell().getOriginalExecutable()).getParentFile(),
+                    SystemUtils.IS_OS_WINDOWS ? "java.exe" : "java");
+            if (javaExecutable.isFile()) {
+                JavadocWorkerPool pool = JavadocWorkerPool.getInstance(getSessionCache(), session);
+                List<String> jvmOptions = InProcessJavadoc.getJvmOptions(cmd);
+                List<String> arguments = InProcessJavadoc.getToolArguments(cmd);
+                try {
+                    return watchdog.execute(() -> pool.execute(
+                            javaExecutable,
+                            jvmOptions,
+                            arguments,
+                            workerMaxRuns,
+                            workerMaxHeapUsage,
+                            out::consumeLine,
+                            err::consumeLine));
+                } catch (JavadocWorkerPool.WorkerStartException e) {
+                    getLog().warn("Forking the Javadoc Tool: " + e.getMessage());
+                } catch (IOException e) {
+                    throw new CommandLineException("The javadoc worker failed: " + e.getMessage(), e);
+                }
+            } else {
+                getLog().debug("Forking the Javadoc Tool: no java executable found at " + javaExecutable);
             }
         }
+        JavadocClassDataSharing.Fork fork = prepareClassDataSharing(cmd);
+        if (fork == null) {
+            return watchdog.execute(cmd, out, err);
+        }
+        boolean completed = false;
+        try {
+            int exitCode = watchdog.execute(fork.getCommandline(), out, err);
+            completed = exitCode == 0 && watchdog.getAbortReason() == null;
+            return exitCode;
+        } finally {
+            fork.complete(completed);
+        }
+    }
+
+    /**
+     * @param cmd not null
+     * @return the fork using or creating the class data sharing archive, or <code>null</code> if none applies
+     * @see #classDataSharing
+     */
+    private JavadocClassDataSharing.Fork prepareClassDataSharing(Commandline cmd) {
+        if (!classDataSharing
+                || !JavadocClassDataSharing.isSupported(javadocRuntimeVersion)
+                || session == null
+                || session.getRepositorySession() == null
+                || session.getRepositorySession().getLocalRepository() == null) {
+            return null;
+        }
+        File directory = new File(
+                session.getRepositorySession().getLocalRepository().getBasedir(), JavadocClassDataSharing.DIRECTORY);
+        JavadocClassDataSharing.Fork fork =
+                new JavadocClassDataSharing(directory.toPath()).prepare(cmd, javadocRuntimeVersion);
+        if (fork != null) {
+            getLog().debug((fork.isCreatingArchive() ? "Creating" : "Using") + " class data sharing archive "
+                    + fork.getArchive());
+        }
+        return fork;
+    }
+
+    /**
+     * Tells whether the running Javadoc Tool can be stopped, because the build will fail whatever it does next.
+     *
+     * @param err the stderr of the Javadoc Tool so far, not null
+     * @return why the Javadoc Tool can be stopped, or <code>null</code> if it must go on
+     */
+    private String getAbortReason(JavadocOutputConsumer err) {
+        if (isAutoMaxMemory() && err.hasOutOfMemoryError()) {
+            // let it end, to retry with more memory
+            return null;
+        }
+        if (failFast && failOnError && err.getErrorCount() > 0) {
+            return FIRST_ERROR;
+        }
+        if (failOnError && failOnWarnings && err.getWarningCount() > 0) {
+            return FIRST_WARNING;
+        }
+        if (session != null
+                && session.getRequest() != null
+                && MavenExecutionRequest.REACTOR_FAIL_FAST.equals(
+                        session.getRequest().getReactorFailureBehavior())
+                && session.getResult() != null
+                && session.getResult().hasExceptions()) {
+            return OTHER_MODULE_FAILURE;
+        }
+        return null;
+    }
+
+    /**
+     * Report a Javadoc Tool stopped by its watchdog, and how much time it saved compared to the last complete run.
+     *
+     * @param watchdog not null
+     * @param err not null
+     * @param javadocOutputDirectory not null
+     * @throws MavenReportException always, as the build fails: about the warnings if stopped at the first one, naming
+     *             the reason and with the output of the Javadoc Tool otherwise
+     */
+    void handleAbortedCommandLine(
+            JavadocProcessWatchdog watchdog, JavadocOutputConsumer err, File javadocOutputDirectory)
+            throws MavenReportException {
+        StringBuilder msg = new StringBuilder("Stopped the Javadoc Tool at ")
+                .append(watchdog.getAbortReason())
+                .append(" after ")
+                .append(formatDuration(watchdog.getElapsedMillis()));
+        JavadocRunHistory history = getRunHistory();
+        long previousDuration = history != null ? history.getDuration(javadocOutputDirectory) : -1;
+        if (previousDuration > watchdog.getElapsedMillis()) {
+            msg.append(", saving about ")
+                    .append(formatDuration(previousDuration - watchdog.getElapsedMillis()))
+                    .append(" compared to the last complete run");
+        }
+        getLog().warn(msg.toString());
+
+        if (FIRST_WARNING.equals(watchdog.getAbortReason())) {
+            throw new MavenReportException("Project contains Javadoc Warnings");
+        }
+        msg.insert(0, '\n').append('\n');
+        if (!err.isEmpty()) {
+            msg.append(err.getRetainedOutput()).append('\n');
+        }
+        msg.append("Refer to the generated Javadoc files in '")
+                .append(javadocOutputDirectory)
+                .append("' dir.\n");
+        throw new MavenReportException(msg.toString());
+    }
+
+    /**
+     * Remember how long a complete Javadoc run took, to estimate the time saved by stopping later runs early.
+     *
+     * @param javadocOutputDirectory not null
+     * @param millis the duration of the run
+     */
+    private void recordDuration(File javadocOutputDirectory, long millis) {
+        JavadocRunHistory history = getRunHistory();
+        if (history == null) {
+            return;
+        }
+        history.setDuration(javadocOutputDirectory, millis);
+        storeRunHistory(history);
+    }
+
+    /**
+     * Forget the heap learned from a run that ran out of memory after a run that succeeded with a smaller heap.
+     *
+     * @param cmd the command line of the successful run, not null
+     * @param javadocOutputDirectory not null
+     */
+    private void forgetUnneededMaxMemory(Commandline cmd, File javadocOutputDirectory) {
+        JavadocRunHistory history = getRunHistory();
+        if (history == null) {
+            return;
+        }
+        long learned = history.getMaxMemory(javadocOutputDirectory);
+        long heap = getForkMaxHeap(cmd);
+        if (learned > heap) {
+            getLog().debug("Forgetting the javadoc heap of " + JavadocHeapEstimator.toMemoryArg(learned)
+                    + " learned from a previous run, this one succeeded with "
+                    + JavadocHeapEstimator.toMemoryArg(heap));
+            history.removeMaxMemory(javadocOutputDirectory);
+            storeRunHistory(history);
+        }
+    }
+
+    private void storeRunHistory(JavadocRunHistory history) {
+        try {
+            history.store();
+        } catch (IOException e) {
+            getLog().debug("Unable to write the javadoc run history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the run history of the project, or <code>null</code> if it has no build directory
+     */
+    private JavadocRunHistory getRunHistory() {
+        if (project.getBuild() == null || project.getBuild().getDirectory() == null) {
+            return null;
+        }
+        return JavadocRunHistory.load(new File(project.getBuild().getDirectory()));
     }
 
-    private boolean containsWarnings(String output) {
+    private static String formatDuration(long millis) {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+        if (seconds < 60) {
+            return seconds + " s";
+        }
+        return (seconds / 60) + " min " + (seconds % 60) + " s";
+    }
+
+    /**
+     * @param cmd not null
+     * @return why the Javadoc Tool can not run in-process, or <code>null</code> if it can
+     */
+    private String getInProcessUnsupportedReason(Commandline cmd) {
+        if (getToolchain() != null) {
+            return "a toolchain is used";
+        }
+        if (javadocExecutable != null && !javadocExecutable.isEmpty()) {
+            return "a custom javadocExecutable is used";
+        }
+        if (doclet != null && !doclet.isEmpty()) {
+            return "a custom doclet is used";
+        }
+        if (javadocRuntimeVersion.compareTo(JavaVersion.JAVA_VERSION) != 0) {
+            return "the Javadoc Tool version " + javadocRuntimeVersion + " differs from the running JVM "
+                    + JavaVersion.JAVA_VERSION;
+        }
+        return InProcessJavadoc.getUnsupportedReason(cmd);
+    }
+
+    private boolean containsWarnings(JavadocOutputConsumer err) {
         // JDK-8268774 / JDK-8270831
         if (this.javadocRuntimeVersion.isBefore("17")) {
-            return output != null && !output.isEmpty();
+            return !err.isEmpty();
         } else {
-            return Arrays.stream(output.split("\\R"))
-                    .reduce((first, second) -> second) // last line
-                    .filter(line -> line.matches("\\d+ warnings?"))
-                    .isPresent();
+            return err.endsWithWarningsTrailer();
         }
     }
 
@@ -5584,20 +7081,32 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         link.setLocation(javaApiListFile.getParent().toAbsolutePath().toString());
         link.setUrl(javaApiLink);
 
-        InputStream in = this.getClass().getResourceAsStream(resourceName);
-        if (in != null) {
-            try (InputStream closableIS = in) {
-                // TODO only copy when changed
-                Files.copy(closableIS, javaApiListFile, StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException ioe) {
-                logError("Can't get " + resourceName + ": " + ioe.getMessage(), ioe);
-                return null;
-            }
+        try {
+            byte[] javaApiList = getCached("Java API list", resourceName, () -> readResource(resourceName));
+            if (javaApiList != null
+                    && !(Files.isRegularFile(javaApiListFile)
+                            && Arrays.equals(javaApiList, Files.readAllBytes(javaApiListFile)))) {
+                Files.write(javaApiListFile, javaApiList);
+            }
+        } catch (IOException ioe) {
+            logError("Can't get " + resourceName + ": " + ioe.getMessage(), ioe);
+            return null;
         }
 
         return link;
     }
 
+    /**
+     * @param resourceName the name of a resource of this class, not null
+     * @return the content of the resource, or <code>null</code> if there is no such resource
+     * @throws IOException if the resource can not be read
+     */
+    private byte[] readResource(String resourceName) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(resourceName)) {
+            return in != null ? IOUtil.toByteArray(in) : null;
+        }
+    }
+
     /**
      * Follows the given links if the Javadoc version is before 12, and returns their last
      * redirect locations. Ordering is kept. This is necessary because the javadoc tool doesn't follow
@@ -5644,6 +7153,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
         try {
             final URI packageListUri;
             final URI elementListUri;
+            final boolean remote;
 
             if (link.trim().toLowerCase(Locale.ENGLISH).startsWith("http:")
                     || link.trim().toLowerCase(Locale.ENGLISH).startsWith("https:")
@@ -5651,6 +7161,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                     || link.trim().toLowerCase(Locale.ENGLISH).startsWith("file:")) {
                 packageListUri = new URI(link + '/' + PACKAGE_LIST);
                 elementListUri = new URI(link + '/' + ELEMENT_LIST);
+                remote = true;
             } else {
                 // links can be relative paths or files
                 File dir = new File(link);
@@ -5666,17 +7177,31 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 }
                 packageListUri = new File(dir, PACKAGE_LIST).toURI();
                 elementListUri = new File(dir, ELEMENT_LIST).toURI();
+                remote = false;
             }
 
+            // remote links are the same for all the modules, unlike relative ones, and a failed fetch is not cached
+            boolean valid;
             try {
-                if (JavadocUtil.isValidElementList(elementListUri.toURL(), settings, validateLinks)) {
-                    return true;
-                }
+                valid = remote
+                        ? getCached(
+                                "link",
+                                link + " validateLinks=" + validateLinks,
+                                () -> checkJavadocLink(elementListUri, packageListUri))
+                        : checkJavadocLink(elementListUri, packageListUri);
+            } catch (MalformedURLException e) {
+                throw e;
             } catch (IOException e) {
-                // ignore this because it is optional
+                if (getLog().isErrorEnabled()) {
+                    if (detecting) {
+                        getLog().warn("Error fetching link: " + link + ". Ignored it.");
+                    } else {
+                        getLog().error("Error fetching link: " + link + ". Ignored it.");
+                    }
+                }
+                return false;
             }
-
-            if (JavadocUtil.isValidPackageList(packageListUri.toURL(), settings, validateLinks)) {
+            if (valid) {
                 return true;
             }
 
@@ -5700,16 +7225,26 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
                 }
             }
             return false;
-        } catch (IOException e) {
-            if (getLog().isErrorEnabled()) {
-                if (detecting) {
-                    getLog().warn("Error fetching link: " + link + ". Ignored it.");
-                } else {
-                    getLog().error("Error fetching link: " + link + ". Ignored it.");
-                }
+        }
+    }
+
+    /**
+     * @param elementListUri the <code>element-list</code> of the link, not null
+     * @param packageListUri the <code>package-list</code> of the link, not null
+     * @return whether the link has a valid <code>element-list</code> or <code>package-list</code>
+     * @throws MalformedURLException if the <code>package-list</code> URI is malformed
+     * @throws IOException if the <code>package-list</code> can not be fetched
+     */
+    private boolean checkJavadocLink(URI elementListUri, URI packageListUri) throws IOException {
+        try {
+            if (JavadocUtil.isValidElementList(elementListUri.toURL(), settings, validateLinks)) {
+                return true;
             }
-            return false;
+        } catch (IOException e) {
+            // ignore this because it is optional
         }
+
+        return JavadocUtil.isValidPackageList(packageListUri.toURL(), settings, validateLinks);
     }
 
     /**
@@ -5717,7 +7252,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      *
      * @param cmdLine                the current command line as string, not null.
      * @param javadocOutputDirectory the output dir, not null.
-     * @see #executeJavadocCommandLine(Commandline, File)
+     * @see #executeJavadocCommandLine(Commandline, File, int, Collection, Collection, ContentSnapshot)
      * @since 2.6
      */
     private void writeDebugJavadocScript(String cmdLine, File javadocOutputDirectory) {
@@ -5740,7 +7275,7 @@ public abstract class AbstractJavadocMojo extends AbstractMojo {
      *
      * @param output the command line output, not null.
      * @return <code>true</code> if Javadoc output command line contains Javadoc word, <code>false</code> otherwise.
-     * @see #executeJavadocCommandLine(Commandline, File)
+     * @see #executeJavadocCommandLine(Commandline, File, int, Collection, Collection, ContentSnapshot)
      * @since 2.6.1
      */
     private boolean isJavadocVMInitError(String output) {
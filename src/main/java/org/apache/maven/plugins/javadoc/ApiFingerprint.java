@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Fingerprint of the API of a classpath element, i.e. of what the Javadoc Tool can render from it: the classes
+ * visible outside their package or inherited by visible classes, their visible members with their signatures,
+ * annotations and constant values, the module descriptor and the <code>Automatic-Module-Name</code>.
+ * <p>
+ * Class files are read with ASM without their code, and nothing is loaded, so changes to method bodies or to private
+ * members leave the fingerprint unchanged.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class ApiFingerprint {
+    private static final int ASM_API = Opcodes.ASM9;
+
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    /**
+     * The access flags that can show in the documentation.
+     */
+    private static final int ACCESS_MASK = Opcodes.ACC_PUBLIC
+            | Opcodes.ACC_PROTECTED
+            | Opcodes.ACC_PRIVATE
+            | Opcodes.ACC_STATIC
+            | Opcodes.ACC_FINAL
+            | Opcodes.ACC_ABSTRACT
+            | Opcodes.ACC_INTERFACE
+            | Opcodes.ACC_ANNOTATION
+            | Opcodes.ACC_ENUM
+            | Opcodes.ACC_RECORD
+            | Opcodes.ACC_VARARGS
+            | Opcodes.ACC_TRANSIENT
+            | Opcodes.ACC_VOLATILE
+            | Opcodes.ACC_SYNCHRONIZED
+            | Opcodes.ACC_SYNTHETIC
+            | Opcodes.ACC_DEPRECATED;
+
+    private ApiFingerprint() {
+        // no op
+    }
+
+    /**
+     * @param path a jar or a directory of class files, not null
+     * @return the SHA-256 fingerprint of the API, not null
+     * @throws IOException if the path can not be read, or is neither a jar nor a directory
+     */
+    static byte[] of(Path path) throws IOException {
+        // sorted by entry name, the fingerprint doesn't depend on the order of the jar entries
+        Map<String, String> classes = new TreeMap<>();
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(path)) {
+                files = stream.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    addClass(classes, path.relativize(file).toString().replace('\\', '/'), in);
+                }
+            }
+        } else {
+            try (JarFile jar = new JarFile(path.toFile(), false)) {
+                Manifest manifest = jar.getManifest();
+                if (manifest != null) {
+                    String name = manifest.getMainAttributes().getValue("Automatic-Module-Name");
+                    if (name != null) {
+                        classes.put("META-INF/MANIFEST.MF", "Automatic-Module-Name: " + name);
+                    }
+                    String multiRelease = manifest.getMainAttributes().getValue("Multi-Release");
+                    if (multiRelease != null) {
+                        classes.merge("META-INF/MANIFEST.MF", "Multi-Release: " + multiRelease, (a, b) -> a + b);
+                    }
+                }
+                Enumeration<? extends ZipEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            addClass(classes, entry.getName(), in);
+                        }
+                    }
+                }
+            } catch (ZipException e) {
+                throw new IOException("Not a jar: " + path, e);
+            }
+        }
+
+        MessageDigest md = ContentSnapshot.newDigest();
+        for (Map.Entry<String, String> entry : classes.entrySet()) {
+            md.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        }
+        return md.digest();
+    }
+
+    private static void addClass(Map<String, String> classes, String name, InputStream in) throws IOException {
+        ClassReader reader;
+        try {
+            reader = new ClassReader(in);
+        } catch (IllegalArgumentException e) {
+            // not a class file, or from a Java version ASM doesn't know: it may still change the output
+            classes.put(name, "unreadable");
+            return;
+        }
+        ApiVisitor visitor = new ApiVisitor();
+        try {
+            reader.accept(visitor, PARSING_OPTIONS);
+        } catch (RuntimeException e) {
+            classes.put(name, "unreadable");
+            return;
+        }
+        if (visitor.isVisible()) {
+            classes.put(name, visitor.toString());
+        }
+    }
+
+    /**
+     * Describes the API of a class as a string.
+     */
+    private static final class ApiVisitor extends ClassVisitor {
+        private final StringBuilder api = new StringBuilder();
+
+        private final List<String> members = new ArrayList<>();
+
+        private boolean visible = true;
+
+        ApiVisitor() {
+            super(ASM_API);
+        }
+
+        boolean isVisible() {
+            return visible;
+        }
+
+        @Override
+        public void visit(
+                int version, int access, String name, String signature, String superName, String[] interfaces) {
+            // package private classes may be the superclass of public ones, their members are documented as
+            // inherited ones
+            if ((access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) != 0) {
+                visible = false;
+            }
+            api.append("class ")
+                    .append(access & ACCESS_MASK)
+                    .append(' ')
+                    .append(name)
+                    .append(' ')
+                    .append(signature)
+                    .append(" extends ")
+                    .append(superName)
+                    .append(" implements ")
+                    .append(interfaces == null ? "" : String.join(",", interfaces))
+                    .append('\n');
+        }
+
+        @Override
+        public ModuleVisitor visitModule(String name, int access, String version) {
+            api.append("module ").append(name).append(' ').append(access).append('\n');
+            return new ModuleVisitor(ASM_API) {
+                @Override
+                public void visitRequire(String module, int access, String version) {
+                    members.add("requires " + module + ' ' + access);
+                }
+
+                @Override
+                public void visitExport(String packaze, int access, String... modules) {
+                    members.add("exports " + packaze + ' ' + access + ' ' + join(modules));
+                }
+
+                @Override
+                public void visitOpen(String packaze, int access, String... modules) {
+                    members.add("opens " + packaze + ' ' + access + ' ' + join(modules));
+                }
+
+                @Override
+                public void visitUse(String service) {
+                    members.add("uses " + service);
+                }
+
+                @Override
+                public void visitProvide(String service, String... providers) {
+                    members.add("provides " + service + ' ' + join(providers));
+                }
+            };
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return annotation(api, "@" + descriptor);
+        }
+
+        @Override
+        public void visitPermittedSubclass(String permittedSubclass) {
+            api.append("permits ").append(permittedSubclass).append('\n');
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if ((access & Opcodes.ACC_PRIVATE) == 0) {
+                members.add("inner " + name + ' ' + outerName + ' ' + innerName + ' ' + (access & ACCESS_MASK));
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if (!isApi(access)) {
+                return null;
+            }
+            StringBuilder field = new StringBuilder("field ")
+                    .append(access & ACCESS_MASK)
+                    .append(' ')
+                    .append(name)
+                    .append(' ')
+                    .append(descriptor)
+                    .append(' ')
+                    .append(signature)
+                    .append(" = ")
+                    .append(value);
+            return new FieldVisitor(ASM_API) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return annotation(field, " @" + descriptor);
+                }
+
+                @Override
+                public void visitEnd() {
+                    members.add(field.toString());
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!isApi(access)) {
+                return null;
+            }
+            StringBuilder method = new StringBuilder("method ")
+                    .append(access & ACCESS_MASK)
+                    .append(' ')
+                    .append(name)
+                    .append(descriptor)
+                    .append(' ')
+                    .append(signature)
+                    .append(" throws ")
+                    .append(join(exceptions));
+            return new MethodVisitor(ASM_API) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return annotation(method, " @" + descriptor);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+                    return annotation(method, " @" + parameter + descriptor);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return annotation(method, " default");
+                }
+
+                @Override
+                public void visitEnd() {
+                    members.add(method.toString());
+                }
+            };
+        }
+
+        private static boolean isApi(int access) {
+            return (access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0
+                    && (access & Opcodes.ACC_SYNTHETIC) == 0;
+        }
+
+        @Override
+        public String toString() {
+            // members in declaration order, their order shows in the documentation
+            return api + String.join("\n", members);
+        }
+
+        private static String join(String[] values) {
+            return values == null ? "" : String.join(",", values);
+        }
+
+        /**
+         * @return a visitor appending the annotation and its values to the given description
+         */
+        private static AnnotationVisitor annotation(StringBuilder target, String prefix) {
+            target.append(prefix).append('(');
+            return new AnnotationVisitor(ASM_API) {
+                @Override
+                public void visit(String name, Object value) {
+                    target.append(name).append('=').append(valueToString(value)).append(',');
+                }
+
+                @Override
+                public void visitEnum(String name, String descriptor, String value) {
+                    target.append(name)
+                            .append('=')
+                            .append(descriptor)
+                            .append('.')
+                            .append(value)
+                            .append(',');
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+                    return annotation(target, name + "=@" + descriptor);
+                }
+
+                @Override
+                public AnnotationVisitor visitArray(String name) {
+                    return annotation(target, name + "=[]");
+                }
+
+                @Override
+                public void visitEnd() {
+                    target.append(')');
+                }
+            };
+        }
+
+        private static String valueToString(Object value) {
+            if (value != null && value.getClass().isArray()) {
+                // primitive arrays of annotation values
+                StringBuilder sb = new StringBuilder("{");
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    sb.append(Array.get(value, i)).append(',');
+                }
+                return sb.append('}').toString();
+            }
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Content digests of files and directory trees, remembered between builds.
+ * <p>
+ * The digest of a file is the SHA-256 of its content. The digest of a directory is the SHA-256 of the names, types
+ * and digests of its children sorted by name, so it changes whenever a file changes anywhere below it, like in a
+ * Merkle tree. Files of a tree are hashed in parallel.
+ * </p>
+ * <p>
+ * A snapshot is built from the previous one: a file whose size, modification time and file key (the inode on Unix)
+ * didn't change keeps its previous digest without being read again, unless it was modified within the modification time
+ * granularity of the previous snapshot: it may have been written again in the same tick after being hashed, so it is
+ * hashed again. Since digests depend on content only, a fresh checkout or a restored cache with new modification times
+ * costs one hashing pass and yields the same digests. The snapshot only keeps the files and directories digested since
+ * the previous one, and is stored in a compact binary file.
+ * </p>
+ * <p>
+ * Classpath elements can also be digested by their API, see {@link ApiFingerprint}. API fingerprints are kept by
+ * content digest, so an unchanged jar or class directory is not parsed again.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class ContentSnapshot {
+    private static final int MAGIC = 0x4A445332;
+
+    private static final byte FILE = 0;
+
+    private static final byte DIRECTORY = 1;
+
+    private static final byte API = 2;
+
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Modification times are as coarse as 2 seconds on some file systems.
+     */
+    private static final long GRANULARITY = 2000;
+
+    private final ContentSnapshot previous;
+
+    /**
+     * When the snapshot was started, before any of its files was hashed.
+     */
+    private long time = System.currentTimeMillis();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean hashed;
+
+    private ContentSnapshot(ContentSnapshot previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * @return a snapshot with no previous digests
+     */
+    static ContentSnapshot empty() {
+        return new ContentSnapshot(null);
+    }
+
+    /**
+     * @return a new snapshot reusing the unchanged digests of this one
+     */
+    ContentSnapshot next() {
+        return new ContentSnapshot(this);
+    }
+
+    /**
+     * @param file the snapshot file, not null
+     * @return a new snapshot reusing the unchanged digests of the stored one, or an empty snapshot if none could be
+     *         read
+     */
+    static ContentSnapshot read(Path file) {
+        ContentSnapshot stored = new ContentSnapshot(null);
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+                if (in.readInt() != MAGIC) {
+                    return empty();
+                }
+                stored.time = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte type = in.readByte();
+                    String path = in.readUTF();
+                    long size = -1;
+                    long modified = -1;
+                    String fileKey = null;
+                    if (type == FILE) {
+                        size = in.readLong();
+                        modified = in.readLong();
+                        fileKey = in.readUTF();
+                    }
+                    byte[] digest = new byte[DIGEST_LENGTH];
+                    in.readFully(digest);
+                    stored.entries.put(path, new Entry(type, size, modified, fileKey, digest));
+                }
+            } catch (IOException | RuntimeException e) {
+                return empty();
+            }
+        }
+        return stored.next();
+    }
+
+    /**
+     * Store the snapshot, replacing the given file atomically.
+     *
+     * @param file not null
+     * @throws IOException if the file can not be written
+     */
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+            sorted.sort(Map.Entry.comparingByKey());
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeLong(time);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> e : sorted) {
+                    Entry entry = e.getValue();
+                    out.writeByte(entry.type);
+                    out.writeUTF(e.getKey());
+                    if (entry.type == FILE) {
+                        out.writeLong(entry.size);
+                        out.writeLong(entry.modified);
+                        out.writeUTF(entry.fileKey);
+                    }
+                    out.write(entry.digest);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if files were hashed because they were unknown or changed since the previous snapshot
+     */
+    boolean isHashed() {
+        return hashed;
+    }
+
+    /**
+     * @param path a file or directory, not null
+     * @return the hexadecimal digest of the file content or of the directory tree, or <code>missing</code>
+     * @throws IOException if a file can not be read
+     */
+    String digest(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        if (Files.isDirectory(absolute)) {
+            return toHex(digestTree(absolute));
+        }
+        if (Files.isRegularFile(absolute)) {
+            return toHex(digestFile(absolute));
+        }
+        return "missing";
+    }
+
+    /**
+     * @param path a jar or a directory of class files, not null
+     * @return the hexadecimal fingerprint of the API of the path, its content digest if it is neither a jar nor a
+     *         directory, or <code>missing</code>
+     * @throws IOException if a file can not be read
+     */
+    String apiDigest(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        byte[] content;
+        if (Files.isDirectory(absolute)) {
+            content = digestTree(absolute);
+        } else if (Files.isRegularFile(absolute)) {
+            content = digestFile(absolute);
+        } else {
+            return "missing";
+        }
+
+        // keyed by content, the fingerprint follows a jar copied or moved to another path
+        String key = toHex(content);
+        Entry current = entries.get(key);
+        if (current == null && previous != null) {
+            current = previous.entries.get(key);
+        }
+        if (current == null || current.type != API) {
+            byte[] api;
+            try {
+                api = ApiFingerprint.of(absolute);
+            } catch (IOException e) {
+                // not a jar: any change may change the output
+                api = content;
+            }
+            current = new Entry(API, -1, -1, null, api);
+            hashed = true;
+        }
+        entries.put(key, current);
+        return toHex(current.digest);
+    }
+
+    /**
+     * @param directory an absolute and normalized path, not null
+     * @return the digests of the directories digested so far in this snapshot, by path
+     */
+    Map<String, String> getDirectoryDigests(Path directory) {
+        String prefix = directory.toString() + directory.getFileSystem().getSeparator();
+        return entries.entrySet().stream()
+                .filter(e -> e.getValue().type == DIRECTORY)
+                .filter(e ->
+                        e.getKey().equals(directory.toString()) || e.getKey().startsWith(prefix))
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> toHex(e.getValue().digest)));
+    }
+
+    /**
+     * Digest a directory tree from a listing of its regular files, e.g. kept by a {@link SourceTreeIndex}, rather
+     * than walking it again. The files are still checked for changes, but the directories are not listed. Empty
+     * directories are not part of the digest.
+     *
+     * @param root a directory, not null
+     * @param files the regular files below the directory, relative to it with the platform separator, not null
+     * @return the hexadecimal digest of the directory tree
+     * @throws IOException if a file can not be read
+     */
+    String digest(Path root, Collection<String> files) throws IOException {
+        Path absolute = root.toAbsolutePath().normalize();
+        Map<Path, List<Path>> children = new HashMap<>();
+        children.put(absolute, new ArrayList<>());
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (String file : files) {
+            Path path = absolute.resolve(file);
+            addChild(children, path);
+            // read with the digest, in parallel
+            attributes.put(path, null);
+        }
+        return toHex(digestFiles(absolute, children, attributes));
+    }
+
+    private static void addChild(Map<Path, List<Path>> children, Path path) {
+        Path parent = path.getParent();
+        List<Path> siblings = children.get(parent);
+        if (siblings == null) {
+            siblings = new ArrayList<>();
+            children.put(parent, siblings);
+            addChild(children, parent);
+        }
+        siblings.add(path);
+    }
+
+    private byte[] digestTree(Path root) throws IOException {
+        // one walk collects the tree with the attributes of its files
+        Map<Path, List<Path>> children = new HashMap<>();
+        Map<Path, BasicFileAttributes> files = new HashMap<>();
+        Files.walkFileTree(
+                root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        children.put(dir, new ArrayList<>());
+                        if (!dir.equals(root)) {
+                            children.get(dir.getParent()).add(dir);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            children.get(file.getParent()).add(file);
+                            files.put(file, attrs);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                        if (exc instanceof FileSystemLoopException) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        throw exc;
+                    }
+                });
+
+        return digestFiles(root, children, files);
+    }
+
+    /**
+     * @param files the files of the tree, with their attributes if already read
+     */
+    private byte[] digestFiles(Path root, Map<Path, List<Path>> children, Map<Path, BasicFileAttributes> files)
+            throws IOException {
+        Map<Path, byte[]> digests = new ConcurrentHashMap<>();
+        try {
+            files.entrySet().parallelStream().forEach(e -> {
+                try {
+                    digests.put(
+                            e.getKey(),
+                            e.getValue() != null ? digestFile(e.getKey(), e.getValue()) : digestFile(e.getKey()));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return digestDirectory(root, children, digests);
+    }
+
+    private byte[] digestDirectory(Path directory, Map<Path, List<Path>> children, Map<Path, byte[]> digests) {
+        List<Path> entries = children.get(directory);
+        Collections.sort(entries);
+
+        MessageDigest md = newDigest();
+        for (Path child : entries) {
+            byte type;
+            byte[] digest;
+            if (children.containsKey(child)) {
+                type = DIRECTORY;
+                digest = digestDirectory(child, children, digests);
+            } else {
+                type = FILE;
+                digest = digests.get(child);
+            }
+            md.update(type);
+            md.update(child.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(digest);
+        }
+        byte[] digest = md.digest();
+        this.entries.put(directory.toString(), new Entry(DIRECTORY, -1, -1, null, digest));
+        return digest;
+    }
+
+    private byte[] digestFile(Path file) throws IOException {
+        return digestFile(file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    private byte[] digestFile(Path file, BasicFileAttributes attributes) throws IOException {
+        String key = file.toString();
+        Entry current = entries.get(key);
+        if (current != null) {
+            return current.digest;
+        }
+
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String fileKey = attributes.fileKey() != null ? attributes.fileKey().toString() : "";
+
+        Entry known = previous != null ? previous.entries.get(key) : null;
+        if (known != null
+                && known.type == FILE
+                && known.size == size
+                && known.modified == modified
+                && known.fileKey.equals(fileKey)
+                && modified < previous.time - GRANULARITY) {
+            entries.put(key, known);
+            return known.digest;
+        }
+
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                md.update(buffer, 0, n);
+            }
+        }
+        byte[] digest = md.digest();
+        entries.put(key, new Entry(FILE, size, modified, fileKey, digest));
+        hashed = true;
+        return digest;
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // required of every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static final class Entry {
+        private final byte type;
+
+        private final long size;
+
+        private final long modified;
+
+        private final String fileKey;
+
+        private final byte[] digest;
+
+        Entry(byte type, long size, long modified, String fileKey, byte[] digest) {
+            this.type = type;
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.Commandline;
+
+/**
+ * Runs the Javadoc Tool inside the Maven JVM through {@link ToolProvider#getSystemDocumentationTool()} instead of
+ * forking a new process. The output is made to look like the output of a forked Javadoc Tool, so the caller can
+ * handle both the same way. The tool itself is run by {@link JavadocWorker}, which also serves the worker JVMs.
+ * <p>
+ * <strong>Note:</strong> only the command line built by the plugin is supported: <code>-J</code> options other than
+ * the locale ones can not be honoured, and <code>@argfile</code> arguments are expanded here relative to the working
+ * directory of the command line, because {@link javax.tools.DocumentationTool#getTask} does not expand them. Since
+ * the JVM running the tool doesn't run in that working directory, the relative paths given to the options taking
+ * files or paths, and the relative source files, are resolved against it too.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+class InProcessJavadoc {
+    private static final String LOCALE_LANGUAGE_OPTION = "-J-Duser.language=";
+
+    private static final String LOCALE_COUNTRY_OPTION = "-J-Duser.country=";
+
+    private static final Set<String> FILE_OPTIONS = new HashSet<>(Arrays.asList(
+            "-d",
+            "-overview",
+            "--overview",
+            "-stylesheetfile",
+            "--main-stylesheet",
+            "--add-stylesheet",
+            "-helpfile",
+            "--add-script"));
+
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList(
+            "-sourcepath",
+            "--source-path",
+            "-classpath",
+            "-cp",
+            "--class-path",
+            "-bootclasspath",
+            "--module-path",
+            "-p",
+            "--module-source-path",
+            "--upgrade-module-path",
+            "-docletpath",
+            "-tagletpath",
+            "--snippet-path"));
+
+    private static final String LINKOFFLINE_OPTION = "-linkoffline";
+
+    private InProcessJavadoc() {
+        // hide constructor
+    }
+
+    /**
+     * @return <code>true</code> if the running JVM provides a documentation tool, <code>false</code> otherwise
+     */
+    static boolean isAvailable() {
+        return ToolProvider.getSystemDocumentationTool() != null;
+    }
+
+    /**
+     * Tells why the given command line can not be run in-process.
+     *
+     * @param cmd not null
+     * @return the reason, or <code>null</code> if the command line can be run in-process
+     */
+    static String getUnsupportedReason(Commandline cmd) {
+        if (!isAvailable()) {
+            return "no documentation tool available in the running JVM";
+        }
+        for (String arg : cmd.getArguments()) {
+            if (arg.startsWith("-J") && !isLocaleOption(arg)) {
+                return "the JVM option '" + arg.substring(2) + "' requires a forked JVM";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Execute the given Javadoc command line in the running JVM.
+     *
+     * @param cmd not null
+     * @param out the consumer of the informational output, not null
+     * @param err the consumer of the warnings and errors, not null
+     * @return the exit code like the Javadoc Tool would return it
+     * @throws CommandLineException if the command line can not be prepared
+     */
+    static int execute(Commandline cmd, Consumer<String> out, Consumer<String> err) throws CommandLineException {
+        Locale locale = null;
+        for (String arg : cmd.getArguments()) {
+            if (arg.startsWith(LOCALE_LANGUAGE_OPTION)) {
+                locale = Locale.ROOT;
+            }
+        }
+
+        try {
+            return JavadocWorker.run(getToolArguments(cmd), locale, out, err);
+        } catch (IOException e) {
+            throw new CommandLineException("Unable to run the documentation tool: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param cmd not null
+     * @return the arguments of the command line for the Javadoc Tool itself, i.e. without the <code>-J</code>
+     *         arguments, with the <code>@argfile</code> arguments expanded and the relative paths resolved against the
+     *         working directory of the command line
+     * @throws CommandLineException if an argument file can not be read
+     */
+    static List<String> getToolArguments(Commandline cmd) throws CommandLineException {
+        List<String> arguments = new ArrayList<>();
+        for (String arg : cmd.getArguments()) {
+            if (arg.startsWith("-J")) {
+                continue;
+            }
+            if (arg.startsWith("@")) {
+                File argFile = new File(arg.substring(1));
+                if (!argFile.isAbsolute()) {
+                    argFile = new File(cmd.getWorkingDirectory(), arg.substring(1));
+                }
+                try {
+                    arguments.addAll(parseArgFile(argFile.toPath(), EncodingUtils.getExpectedEncoding()));
+                } catch (IOException e) {
+                    throw new CommandLineException("Unable to read '" + argFile + "': " + e.getMessage(), e);
+                }
+            } else {
+                arguments.add(arg);
+            }
+        }
+        return cmd.getWorkingDirectory() != null ? resolveArguments(arguments, cmd.getWorkingDirectory()) : arguments;
+    }
+
+    /**
+     * @param arguments the arguments of the Javadoc Tool, not null
+     * @param workingDirectory not null
+     * @return the arguments, with the relative files and paths given to the options resolved against the working
+     *         directory, and the relative source files existing there
+     */
+    static List<String> resolveArguments(List<String> arguments, File workingDirectory) {
+        List<String> resolved = new ArrayList<>(arguments.size());
+        for (int i = 0; i < arguments.size(); i++) {
+            String arg = arguments.get(i);
+            boolean hasValue = i + 1 < arguments.size();
+            resolved.add(
+                    !arg.startsWith("-") && arg.endsWith(".java") ? resolveSourceFile(arg, workingDirectory) : arg);
+            if (FILE_OPTIONS.contains(arg) && hasValue) {
+                resolved.add(resolve(arguments.get(++i), workingDirectory));
+            } else if (PATH_OPTIONS.contains(arg) && hasValue) {
+                List<String> elements = new ArrayList<>();
+                for (String element : arguments.get(++i).split(File.pathSeparator, -1)) {
+                    elements.add(element.isEmpty() ? element : resolve(element, workingDirectory));
+                }
+                resolved.add(String.join(File.pathSeparator, elements));
+            } else if (LINKOFFLINE_OPTION.equals(arg) && i + 2 < arguments.size()) {
+                // the URL, then the location of the package list, which may be a path
+                resolved.add(arguments.get(++i));
+                String location = arguments.get(++i);
+                resolved.add(location.contains(":/") ? location : resolve(location, workingDirectory));
+            }
+        }
+        return resolved;
+    }
+
+    private static String resolve(String path, File workingDirectory) {
+        File file = new File(path);
+        return file.isAbsolute() ? path : new File(workingDirectory, path).getPath();
+    }
+
+    /**
+     * Resolve a relative source file only if it exists, in case it was the value of an option.
+     */
+    private static String resolveSourceFile(String path, File workingDirectory) {
+        File file = new File(path);
+        if (file.isAbsolute() || !new File(workingDirectory, path).isFile()) {
+            return path;
+        }
+        return new File(workingDirectory, path).getPath();
+    }
+
+    /**
+     * @param cmd not null
+     * @return the JVM options given with <code>-J</code> arguments on the command line, without the prefix
+     */
+    static List<String> getJvmOptions(Commandline cmd) {
+        List<String> options = new ArrayList<>();
+        for (String arg : cmd.getArguments()) {
+            if (arg.startsWith("-J")) {
+                options.add(arg.substring(2));
+            }
+        }
+        return options;
+    }
+
+    private static boolean isLocaleOption(String arg) {
+        return arg.startsWith(LOCALE_LANGUAGE_OPTION) || arg.startsWith(LOCALE_COUNTRY_OPTION);
+    }
+
+    /**
+     * Read the arguments of an argument file like the Javadoc Tool does: arguments are separated by white spaces,
+     * may be enclosed in single or double quotes, and backslash escapes are honoured inside quotes.
+     *
+     * @param argFile not null
+     * @param charset not null
+     * @return the arguments, never null
+     * @throws IOException if the file can not be read
+     */
+    static List<String> parseArgFile(Path argFile, Charset charset) throws IOException {
+        return tokenize(new String(Files.readAllBytes(argFile), charset));
+    }
+
+    static List<String> tokenize(String content) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+        int len = content.length();
+        for (int i = 0; i < len; i++) {
+            char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && i + 1 < len) {
+                    char next = content.charAt(++i);
+                    switch (next) {
+                        case 'n':
+                            current.append('\n');
+                            break;
+                        case 't':
+                            current.append('\t');
+                            break;
+                        case 'r':
+                            current.append('\r');
+                            break;
+                        case 'f':
+                            current.append('\f');
+                            break;
+                        default:
+                            current.append(next);
+                            break;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else if (c == '#' && !inToken) {
+                while (i + 1 < len && content.charAt(i + 1) != '\n' && content.charAt(i + 1) != '\r') {
+                    i++;
+                }
+            } else {
+                inToken = true;
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                } else {
+                    current.append(c);
+                }
+            }
+        }
+        if (inToken) {
+            args.add(current.toString());
+        }
+        return args;
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * State of the packages of a Javadoc run, to document again only the packages changed since the previous run.
+ * <p>
+ * The state holds a digest of the options and of the classpath, and for each package a digest of the files of its
+ * directories, <code>doc-files</code> included, with the packages it imports and the packages its pages link to.
+ * Compared with the state of the previous run, it tells which packages are stale: the changed ones, and the ones
+ * referencing them, transitively, since their pages show the API or the comments of the changed ones. The imports
+ * miss the types used by their qualified name or inherited, while the links of the pages written by the doclet,
+ * class uses included, catch them, so they are read after each run for the packages documented by the run. If the
+ * options or the set of packages changed, everything is.
+ * </p>
+ * <p>
+ * Only the stale packages are then given to the Javadoc Tool, the others are linked to the existing output with
+ * <code>-linkoffline</code>. The pages shared by all packages are patched afterwards: the search indexes are merged
+ * per package, the other ones (element list, overview, trees, class and index pages) are kept from the previous run.
+ * They list the packages and the type declarations, so when the declarations of a changed package differ, e.g. a
+ * type was added or its super type changed, everything is stale. Only the member entries of the index pages may
+ * then be outdated until the next complete run.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class IncrementalJavadoc {
+    private static final String OPTIONS = "options";
+
+    private static final String PACKAGE = "package.";
+
+    private static final String DOC_FILES = "doc-files";
+
+    private static final String ELEMENT_LIST = "element-list";
+
+    private static final String INDEX_FILES = "index-files";
+
+    private static final String SEARCH_INDEX_SUFFIX = "-search-index.js";
+
+    private static final Pattern IMPORT =
+            Pattern.compile("^\\s*import\\s+(?:static\\s+)?([\\w.]+?)(?:\\.\\*)?\\s*;", Pattern.MULTILINE);
+
+    private static final Pattern PACKAGE_KEY = Pattern.compile("\"p\":\"([^\"]*)\"");
+
+    private static final Pattern URL_KEY = Pattern.compile("\"u\":\"([^\"]*)\"");
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|//[^\\n]*", Pattern.DOTALL);
+
+    private static final Pattern TYPE_DECLARATION =
+            Pattern.compile("\\b(?:class|interface|enum|record)\\s+[\\w$]+[^{;]*");
+
+    private static final Pattern HREF = Pattern.compile("href=\"([^\"#?:]+)[\"#?]");
+
+    private static final String CLASS_USE = "class-use";
+
+    private final String options;
+
+    private final Map<String, PackageState> packages = new TreeMap<>();
+
+    private IncrementalJavadoc(String options) {
+        this.options = options;
+    }
+
+    /**
+     * @param options the stale data of the options and the classpath, not null
+     * @param sourcePaths the source paths, not null
+     * @param packageNames the documented packages, not null
+     * @param snapshot the snapshot computing the digests, not null
+     * @param previous the state of the previous run, to reuse the imports of unchanged packages, may be null
+     * @return the state of the current sources, not null
+     * @throws IOException if a source file can not be read
+     */
+    static IncrementalJavadoc of(
+            List<String> options,
+            Collection<Path> sourcePaths,
+            Collection<String> packageNames,
+            ContentSnapshot snapshot,
+            IncrementalJavadoc previous)
+            throws IOException {
+        MessageDigest optionsDigest = ContentSnapshot.newDigest();
+        for (String option : options) {
+            optionsDigest.update(option.getBytes(StandardCharsets.UTF_8));
+            optionsDigest.update((byte) '\n');
+        }
+        IncrementalJavadoc state = new IncrementalJavadoc(ContentSnapshot.toHex(optionsDigest.digest()));
+
+        Set<String> names = new HashSet<>(packageNames);
+        for (String name : packageNames) {
+            MessageDigest md = ContentSnapshot.newDigest();
+            List<Path> sources = new ArrayList<>();
+            for (Path sourcePath : sourcePaths) {
+                Path directory = sourcePath.resolve(name.replace('.', File.separatorChar));
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                List<Path> children = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                    stream.forEach(children::add);
+                }
+                Collections.sort(children);
+                for (Path child : children) {
+                    String fileName = child.getFileName().toString();
+                    if (Files.isRegularFile(child)) {
+                        if (fileName.endsWith(".java")) {
+                            sources.add(child);
+                        }
+                    } else if (!DOC_FILES.equals(fileName)) {
+                        // a sub package
+                        continue;
+                    }
+                    md.update(fileName.getBytes(StandardCharsets.UTF_8));
+                    md.update((byte) 0);
+                    md.update(snapshot.digest(child).getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+            String digest = ContentSnapshot.toHex(md.digest());
+
+            PackageState known = previous != null ? previous.packages.get(name) : null;
+            Set<String> imports;
+            String types;
+            if (known != null && known.digest.equals(digest)) {
+                imports = known.imports;
+                types = known.types;
+            } else {
+                imports = new TreeSet<>();
+                MessageDigest typesDigest = ContentSnapshot.newDigest();
+                for (Path source : sources) {
+                    // imports and declarations are ASCII, whatever the encoding of the file
+                    String content = new String(Files.readAllBytes(source), StandardCharsets.ISO_8859_1);
+                    addImports(imports, content, names);
+                    addTypes(typesDigest, content);
+                }
+                imports.remove(name);
+                types = ContentSnapshot.toHex(typesDigest.digest());
+            }
+            PackageState packageState = new PackageState(digest, imports, types, sources.size());
+            if (known != null) {
+                packageState.references.addAll(known.references);
+            }
+            state.packages.put(name, packageState);
+        }
+        return state;
+    }
+
+    private static void addImports(Set<String> imports, String content, Set<String> packageNames) {
+        Matcher matcher = IMPORT.matcher(content);
+        while (matcher.find()) {
+            // the longest documented package of a class, a nested class or a static member
+            String name = matcher.group(1);
+            while (!packageNames.contains(name) && name.lastIndexOf('.') > 0) {
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+            if (packageNames.contains(name)) {
+                imports.add(name);
+            }
+        }
+    }
+
+    /**
+     * Digest the type declarations of a source file, up to their body: the names, modifiers, type parameters and
+     * super types listed by the element list, the trees and the class pages. Their comments are left out.
+     */
+    private static void addTypes(MessageDigest typesDigest, String content) {
+        Matcher matcher = TYPE_DECLARATION.matcher(COMMENT.matcher(content).replaceAll(" "));
+        while (matcher.find()) {
+            typesDigest.update(matcher.group().replaceAll("\\s+", " ").trim().getBytes(StandardCharsets.ISO_8859_1));
+            typesDigest.update((byte) '\n');
+        }
+    }
+
+    /**
+     * @param file the stored state, not null
+     * @return the stored state, or <code>null</code> if none could be read
+     */
+    static IncrementalJavadoc read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        String options = properties.getProperty(OPTIONS);
+        if (options == null) {
+            return null;
+        }
+        IncrementalJavadoc state = new IncrementalJavadoc(options);
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(PACKAGE)) {
+                String[] value = properties.getProperty(key).split(" ", -1);
+                Set<String> imports = new TreeSet<>();
+                if (value.length > 1 && !value[1].isEmpty()) {
+                    Collections.addAll(imports, value[1].split(","));
+                }
+                // a state without the declarations makes any change a complete run
+                PackageState packageState = new PackageState(value[0], imports, value.length > 3 ? value[3] : "", 0);
+                if (value.length > 2 && !value[2].isEmpty()) {
+                    Collections.addAll(packageState.references, value[2].split(","));
+                }
+                state.packages.put(key.substring(PACKAGE.length()), packageState);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @param file not null
+     * @throws IOException if the file can not be written
+     */
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(OPTIONS, options);
+        for (Map.Entry<String, PackageState> entry : packages.entrySet()) {
+            properties.setProperty(
+                    PACKAGE + entry.getKey(),
+                    entry.getValue().digest
+                            + ' '
+                            + String.join(",", entry.getValue().imports)
+                            + ' '
+                            + String.join(",", entry.getValue().references)
+                            + ' '
+                            + entry.getValue().types);
+        }
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * @param previous the state of the previous run, may be null
+     * @return the packages to document again, or <code>null</code> if all of them must be
+     */
+    Set<String> getStalePackages(IncrementalJavadoc previous) {
+        if (previous == null
+                || !options.equals(previous.options)
+                || !packages.keySet().equals(previous.packages.keySet())) {
+            return null;
+        }
+        Set<String> stale = new TreeSet<>();
+        for (Map.Entry<String, PackageState> entry : packages.entrySet()) {
+            PackageState known = previous.packages.get(entry.getKey());
+            if (!entry.getValue().digest.equals(known.digest)) {
+                if (!entry.getValue().types.equals(known.types)) {
+                    // the shared pages listing the types can't be patched
+                    return null;
+                }
+                stale.add(entry.getKey());
+            }
+        }
+        boolean added = !stale.isEmpty();
+        while (added) {
+            added = false;
+            for (Map.Entry<String, PackageState> entry : packages.entrySet()) {
+                if (!stale.contains(entry.getKey())
+                        && (!Collections.disjoint(entry.getValue().imports, stale)
+                                || !Collections.disjoint(entry.getValue().references, stale))) {
+                    stale.add(entry.getKey());
+                    added = true;
+                }
+            }
+        }
+        // nothing to gain, or a change outside of the packages, like the overview
+        if (stale.isEmpty() || stale.size() == packages.size()) {
+            return null;
+        }
+        return stale;
+    }
+
+    /**
+     * Read the packages linked to by the pages of the given packages, written by the Javadoc Tool, the pages of the
+     * class uses included. The other packages keep the references read after a previous run.
+     *
+     * @param outputDirectory the Javadoc output directory, not null
+     * @param documentedPackages the packages documented by the run, or <code>null</code> if all of them were
+     * @throws IOException if a page can not be read
+     */
+    void readReferences(Path outputDirectory, Set<String> documentedPackages) throws IOException {
+        Path root = outputDirectory.toAbsolutePath().normalize();
+        for (Map.Entry<String, PackageState> entry : packages.entrySet()) {
+            if (documentedPackages != null && !documentedPackages.contains(entry.getKey())) {
+                continue;
+            }
+            Set<String> references = entry.getValue().references;
+            references.clear();
+            Path directory = root.resolve(entry.getKey().replace('.', File.separatorChar));
+            addReferences(references, root, directory);
+            addReferences(references, root, directory.resolve(CLASS_USE));
+            references.remove(entry.getKey());
+        }
+    }
+
+    private void addReferences(Set<String> references, Path outputDirectory, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.html")) {
+            for (Path page : stream) {
+                // links are ASCII, whatever the encoding of the page
+                String content = new String(Files.readAllBytes(page), StandardCharsets.ISO_8859_1);
+                Matcher matcher = HREF.matcher(content);
+                while (matcher.find()) {
+                    Path target = page.resolveSibling(matcher.group(1)).normalize();
+                    if (!target.startsWith(outputDirectory) || target.getParent() == null) {
+                        continue;
+                    }
+                    Path targetDirectory = target.getParent();
+                    String name = targetDirectory.getFileName() != null
+                            ? targetDirectory.getFileName().toString()
+                            : "";
+                    if (CLASS_USE.equals(name) || DOC_FILES.equals(name)) {
+                        targetDirectory = targetDirectory.getParent();
+                    }
+                    String packageName = outputDirectory
+                            .relativize(targetDirectory)
+                            .toString()
+                            .replace(File.separatorChar, '.');
+                    if (packages.containsKey(packageName)) {
+                        references.add(packageName);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param packageNames not null
+     * @return the number of source files of the given packages
+     */
+    int getSourceFileCount(Collection<String> packageNames) {
+        return packageNames.stream()
+                .map(packages::get)
+                .mapToInt(p -> p != null ? p.sourceFileCount : 0)
+                .sum();
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @return <code>true</code> if the output directory holds the pages of a complete run, without modules, that can
+     *         be patched
+     */
+    static boolean canPatch(Path outputDirectory) {
+        Path elementList = outputDirectory.resolve(ELEMENT_LIST);
+        if (!Files.isRegularFile(elementList)) {
+            return false;
+        }
+        try (Stream<String> lines = Files.lines(elementList, StandardCharsets.UTF_8)) {
+            return lines.noneMatch(line -> line.startsWith("module:"));
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copy the files at the root of the output directory, and the split index, to the given directory.
+     *
+     * @param outputDirectory the Javadoc output directory, not null
+     * @param backupDirectory an existing directory, not null
+     * @throws IOException if a file can not be copied
+     */
+    static void backupSharedPages(Path outputDirectory, Path backupDirectory) throws IOException {
+        copyFiles(outputDirectory, backupDirectory);
+        Path indexFiles = outputDirectory.resolve(INDEX_FILES);
+        if (Files.isDirectory(indexFiles)) {
+            copyFiles(indexFiles, Files.createDirectories(backupDirectory.resolve(INDEX_FILES)));
+        }
+    }
+
+    /**
+     * Restore the shared pages saved before a run of the stale packages only, merging the search indexes. The stale
+     * packages must declare the same types as in the run that wrote the saved pages.
+     *
+     * @param outputDirectory the Javadoc output directory, not null
+     * @param backupDirectory the directory of the saved pages, not null
+     * @param stalePackages the packages documented again, not null
+     * @throws IOException if a file can not be restored
+     */
+    static void patchSharedPages(Path outputDirectory, Path backupDirectory, Set<String> stalePackages)
+            throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(backupDirectory)) {
+            for (Path saved : stream) {
+                Path target = outputDirectory.resolve(saved.getFileName().toString());
+                if (!Files.isRegularFile(saved)) {
+                    continue;
+                }
+                if (saved.getFileName().toString().endsWith(SEARCH_INDEX_SUFFIX) && Files.isRegularFile(target)) {
+                    // the indexes only hold escaped ASCII, but keep the bytes as they are
+                    String merged = mergeSearchIndex(
+                            new String(Files.readAllBytes(saved), StandardCharsets.ISO_8859_1),
+                            new String(Files.readAllBytes(target), StandardCharsets.ISO_8859_1),
+                            stalePackages);
+                    Files.write(target, merged.getBytes(StandardCharsets.ISO_8859_1));
+                } else {
+                    Files.copy(saved, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        Path indexFiles = backupDirectory.resolve(INDEX_FILES);
+        if (Files.isDirectory(indexFiles)) {
+            copyFiles(indexFiles, Files.createDirectories(outputDirectory.resolve(INDEX_FILES)));
+        }
+    }
+
+    /**
+     * @param previous the search index of the previous run, not null
+     * @param current the search index of the stale packages, not null
+     * @param stalePackages the packages documented again, not null
+     * @return the entries of the previous index, with the entries of the stale packages taken from the current one
+     */
+    static String mergeSearchIndex(String previous, String current, Set<String> stalePackages) {
+        int previousStart = previous.indexOf('[');
+        int previousEnd = previous.lastIndexOf(']');
+        int currentStart = current.indexOf('[');
+        int currentEnd = current.lastIndexOf(']');
+        if (previousStart < 0 || previousEnd < previousStart || currentStart < 0 || currentEnd < currentStart) {
+            // unknown format
+            return previous;
+        }
+        List<String> entries = new ArrayList<>();
+        for (String entry : getEntries(previous.substring(previousStart + 1, previousEnd))) {
+            String packageName = getPackage(entry);
+            if (packageName == null || !stalePackages.contains(packageName)) {
+                entries.add(entry);
+            }
+        }
+        for (String entry : getEntries(current.substring(currentStart + 1, currentEnd))) {
+            String packageName = getPackage(entry);
+            if (packageName != null && stalePackages.contains(packageName)) {
+                entries.add(entry);
+            }
+        }
+        return previous.substring(0, previousStart + 1) + String.join(",", entries) + previous.substring(previousEnd);
+    }
+
+    /**
+     * @return the JSON objects of the given array content
+     */
+    private static List<String> getEntries(String array) {
+        List<String> entries = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        boolean string = false;
+        for (int i = 0; i < array.length(); i++) {
+            char c = array.charAt(i);
+            if (string) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    string = false;
+                }
+            } else if (c == '"') {
+                string = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}' && --depth == 0) {
+                entries.add(array.substring(start, i + 1));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return the package of a search index entry, from its package key or else from its URL, or <code>null</code>
+     */
+    private static String getPackage(String entry) {
+        Matcher matcher = PACKAGE_KEY.matcher(entry);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = URL_KEY.matcher(entry);
+        if (matcher.find()) {
+            String url = matcher.group(1);
+            if (url.indexOf('#') >= 0) {
+                url = url.substring(0, url.indexOf('#'));
+            }
+            int slash = url.lastIndexOf('/');
+            if (slash > 0 && !url.startsWith("..")) {
+                return url.substring(0, slash).replace('/', '.');
+            }
+        }
+        return null;
+    }
+
+    private static void copyFiles(Path from, Path to) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(from, Files::isRegularFile)) {
+            for (Path file : stream) {
+                Files.copy(file, to.resolve(file.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static final class PackageState {
+        private final String digest;
+
+        private final Set<String> imports;
+
+        /**
+         * The digest of the type declarations of the package.
+         */
+        private final String types;
+
+        /**
+         * The packages the pages link to, according to the previous run.
+         */
+        private final Set<String> references = new TreeSet<>();
+
+        private final int sourceFileCount;
+
+        PackageState(String digest, Set<String> imports, String types, int sourceFileCount) {
+            this.digest = digest;
+            this.imports = imports;
+            this.types = types;
+            this.sourceFileCount = sourceFileCount;
+        }
+    }
+}
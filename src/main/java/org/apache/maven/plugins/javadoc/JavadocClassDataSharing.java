@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.languages.java.version.JavaVersion;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the dynamic class data sharing (AppCDS) archives of the Javadoc Tool, to cut the startup time of its
+ * forks.
+ * <p>
+ * The first fork of a JDK dumps the classes it loaded to an archive with <code>-XX:ArchiveClassesAtExit</code>, and
+ * the next forks map it with <code>-XX:SharedArchiveFile</code>. Archives are named after the JDK version, the
+ * executable and the size and modification time of the <code>release</code> file of the JDK, so an updated JDK gets
+ * a new archive and the archive of the previous build is deleted. The JVM validates the archive again on use, and
+ * silently runs without it if it doesn't match.
+ * </p>
+ * <p>
+ * Dynamic archives are supported since Java 13. Only one fork at a time creates a given archive in a JVM, the
+ * others run without archive meanwhile.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocClassDataSharing {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavadocClassDataSharing.class);
+
+    static final String DIRECTORY = JavadocToolCache.CACHE_DIRECTORY + "/cds";
+
+    private static final String EXTENSION = ".jsa";
+
+    private static final Set<Path> IN_PROGRESS = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+
+    /**
+     * @param directory the directory of the archives, not null
+     */
+    JavadocClassDataSharing(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param version the version of the Javadoc Tool, not null
+     * @return <code>true</code> if the Javadoc Tool supports dynamic archives
+     */
+    static boolean isSupported(JavaVersion version) {
+        return version.isAtLeast("13");
+    }
+
+    /**
+     * Prepare a fork of the Javadoc Tool using the archive of its JDK, or creating it.
+     *
+     * @param cmd the command line of the Javadoc Tool, not changed, not null
+     * @param version the version of the Javadoc Tool, not null
+     * @return the fork, or <code>null</code> if it can neither use nor create an archive
+     */
+    Fork prepare(Commandline cmd, JavaVersion version) {
+        File executable = new File(cmd.getShell().getOriginalExecutable());
+        String stamp = JavadocToolCache.getReleaseStamp(executable);
+        if (stamp == null) {
+            LOGGER.debug("No class data sharing: the JDK of {} has no release file", executable);
+            return null;
+        }
+        String prefix = getArchivePrefix(executable, version);
+        Path archive = directory.resolve(prefix + String.format("%08x", stamp.hashCode()) + EXTENSION);
+        if (archive.toString().matches(".*\\s.*")) {
+            // the -J options are passed unquoted
+            LOGGER.debug("No class data sharing: the archive path {} contains whitespace", archive);
+            return null;
+        }
+
+        if (Files.isRegularFile(archive)) {
+            return new Fork(withOptions(cmd, "-J-XX:SharedArchiveFile=" + archive), null, archive, prefix);
+        }
+        if (!IN_PROGRESS.add(archive)) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            IN_PROGRESS.remove(archive);
+            LOGGER.debug("No class data sharing: unable to create {}: {}", directory, e.getMessage());
+            return null;
+        }
+        Path tmp = directory.resolve(archive.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        return new Fork(withOptions(cmd, "-J-XX:ArchiveClassesAtExit=" + tmp), tmp, archive, prefix);
+    }
+
+    /**
+     * @param executable the Javadoc Tool, not null
+     * @param version its version, not null
+     * @return the start of the names of the archives of the given executable, whatever its JDK build
+     */
+    static String getArchivePrefix(File executable, JavaVersion version) {
+        return "javadoc-" + version.toString().replaceAll("[^\\w.-]", "_") + "-"
+                + String.format("%08x", executable.getAbsolutePath().hashCode()) + "-";
+    }
+
+    private static Commandline withOptions(Commandline cmd, String archiveOption) {
+        Commandline fork = new Commandline();
+        fork.getShell().setQuotedArgumentsEnabled(false);
+        fork.setWorkingDirectory(cmd.getWorkingDirectory());
+        fork.setExecutable(cmd.getShell().getOriginalExecutable());
+        fork.createArg().setValue(archiveOption);
+        // the JVM logs to stdout when it can't use or write the archive, it's no concern of the build
+        fork.createArg().setValue("-J-Xlog:cds=off");
+        fork.createArg().setValue("-J-Xlog:cds+dynamic=off");
+        for (String argument : cmd.getArguments()) {
+            fork.createArg().setValue(argument);
+        }
+        return fork;
+    }
+
+    private void publish(Path tmp, Path archive, String prefix) {
+        try {
+            if (!Files.isRegularFile(tmp) || Files.size(tmp) == 0) {
+                LOGGER.debug("No class data sharing archive was written to {}", tmp);
+                return;
+            }
+            // archives of previous builds of the same JDK are useless now
+            try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory, prefix + "*" + EXTENSION)) {
+                for (Path previous : archives) {
+                    if (!previous.equals(archive)) {
+                        Files.deleteIfExists(previous);
+                    }
+                }
+            }
+            Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Created class data sharing archive {}", archive);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to create class data sharing archive {}: {}", archive, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * A fork of the Javadoc Tool using or creating an archive.
+     */
+    final class Fork {
+        private final Commandline commandline;
+
+        private final Path tmp;
+
+        private final Path archive;
+
+        private final String prefix;
+
+        private Fork(Commandline commandline, Path tmp, Path archive, String prefix) {
+            this.commandline = commandline;
+            this.tmp = tmp;
+            this.archive = archive;
+            this.prefix = prefix;
+        }
+
+        /**
+         * @return the command line to run, not null
+         */
+        Commandline getCommandline() {
+            return commandline;
+        }
+
+        /**
+         * @return <code>true</code> if the fork creates the archive, <code>false</code> if it uses it
+         */
+        boolean isCreatingArchive() {
+            return tmp != null;
+        }
+
+        /**
+         * @return the archive used or created, not null
+         */
+        Path getArchive() {
+            return archive;
+        }
+
+        /**
+         * Publish the archive created by the fork if it completed normally, discard it otherwise.
+         *
+         * @param completed <code>true</code> if the fork ran to completion
+         */
+        void complete(boolean completed) {
+            if (tmp == null) {
+                return;
+            }
+            try {
+                if (completed) {
+                    publish(tmp, archive, prefix);
+                } else {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                // ignore
+            } finally {
+                IN_PROGRESS.remove(archive);
+            }
+        }
+    }
+}
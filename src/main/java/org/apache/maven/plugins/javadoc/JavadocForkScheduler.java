@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * Limits the number of Javadoc Tool processes running at the same time in a Maven session, and the sum of their
+ * maximum heaps.
+ * <p>
+ * Waiting executions are admitted largest first, so the biggest modules don't end up running alone at the end of
+ * the build. When the largest one does not fit in the remaining heap budget, smaller ones that fit start before it,
+ * until it has been overtaken {@link #MAX_OVERTAKES} times: then nothing starts before it, so it can't be starved. An
+ * execution needing more heap than the budget is admitted when nothing else runs, so it can't block the build forever.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocForkScheduler {
+    /**
+     * The number of times the largest waiting execution can be overtaken by smaller ones fitting the heap budget.
+     */
+    static final int MAX_OVERTAKES = 8;
+
+    private final int maxConcurrentForks;
+
+    private final long heapBudget;
+
+    private final TreeSet<Request> queue = new TreeSet<>(
+            Comparator.comparingLong((Request r) -> r.size).reversed().thenComparingLong(r -> r.sequence));
+
+    private long sequence;
+
+    private int running;
+
+    private long heapInUse;
+
+    /**
+     * @param maxConcurrentForks the maximum number of concurrent executions, <code>0</code> for no limit
+     * @param heapBudget the maximum sum of the heaps of the concurrent executions in bytes, <code>0</code> for no limit
+     */
+    JavadocForkScheduler(int maxConcurrentForks, long heapBudget) {
+        this.maxConcurrentForks = maxConcurrentForks;
+        this.heapBudget = heapBudget;
+    }
+
+    /**
+     * The limits are set by the first execution of the session, later executions share them.
+     *
+     * @param sessionCache not null
+     * @param session not null
+     * @param maxConcurrentForks the maximum number of concurrent executions, <code>0</code> for no limit
+     * @param heapBudget the maximum sum of the heaps of the concurrent executions in bytes, <code>0</code> for no limit
+     * @return the scheduler of the given session, created on first use
+     */
+    static JavadocForkScheduler getInstance(
+            JavadocSessionCache sessionCache,
+            RepositorySystemSession session,
+            int maxConcurrentForks,
+            long heapBudget) {
+        return sessionCache.getInstance(
+                session, JavadocForkScheduler.class, () -> new JavadocForkScheduler(maxConcurrentForks, heapBudget));
+    }
+
+    int getMaxConcurrentForks() {
+        return maxConcurrentForks;
+    }
+
+    long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Wait until an execution of the given size and heap can start.
+     *
+     * @param size the size of the execution, like its number of source files, to order waiting executions
+     * @param heap the maximum heap of the execution in bytes
+     * @return the permit to close once the execution has ended, not null
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    Permit acquire(long size, long heap) throws InterruptedException {
+        long start = System.nanoTime();
+        synchronized (this) {
+            Request request = new Request(size, heap, sequence++);
+            queue.add(request);
+            try {
+                while (!canStart(request)) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                queue.remove(request);
+                notifyAll();
+                throw e;
+            }
+            Request first = queue.first();
+            if (first != request) {
+                first.overtakes++;
+            }
+            queue.remove(request);
+            running++;
+            heapInUse += heap;
+            // the next waiting execution may fit as well
+            notifyAll();
+            return new Permit(heap, System.nanoTime() - start, running, heapInUse);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the request is the first waiting one and fits, or if the first one is only held
+     *         back by the heap budget, was not overtaken too often, and the request is the largest one which fits
+     */
+    private boolean canStart(Request request) {
+        if (!canStart(request.heap)) {
+            return false;
+        }
+        Request first = queue.first();
+        if (first == request) {
+            return true;
+        }
+        if (first.overtakes >= MAX_OVERTAKES || canStart(first.heap)) {
+            return false;
+        }
+        for (Request waiting : queue) {
+            if (waiting == request) {
+                return true;
+            }
+            if (canStart(waiting.heap)) {
+                // a larger one fits too
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean canStart(long heap) {
+        if (running == 0) {
+            return true;
+        }
+        if (maxConcurrentForks > 0 && running >= maxConcurrentForks) {
+            return false;
+        }
+        return heapBudget <= 0 || heapInUse + heap <= heapBudget;
+    }
+
+    private synchronized void release(long heap) {
+        running--;
+        heapInUse -= heap;
+        notifyAll();
+    }
+
+    private static final class Request {
+        private final long size;
+
+        private final long heap;
+
+        private final long sequence;
+
+        private int overtakes;
+
+        Request(long size, long heap, long sequence) {
+            this.size = size;
+            this.heap = heap;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Allows an execution to run until closed.
+     */
+    final class Permit implements AutoCloseable {
+        private final long heap;
+
+        private final long waitNanos;
+
+        private final int running;
+
+        private final long heapInUse;
+
+        private boolean closed;
+
+        private Permit(long heap, long waitNanos, int running, long heapInUse) {
+            this.heap = heap;
+            this.waitNanos = waitNanos;
+            this.running = running;
+            this.heapInUse = heapInUse;
+        }
+
+        /**
+         * @return the time spent waiting for the permit in milliseconds
+         */
+        long getWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        }
+
+        /**
+         * @return the number of executions running when the permit was granted, including this one
+         */
+        int getRunning() {
+            return running;
+        }
+
+        /**
+         * @return the sum of the heaps of the running executions when the permit was granted, including this one
+         */
+        long getHeapInUse() {
+            return heapInUse;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(heap);
+            }
+        }
+    }
+}
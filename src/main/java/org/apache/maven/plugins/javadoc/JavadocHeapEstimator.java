@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+/**
+ * Cost model of the heap needed by the Javadoc Tool, used when <code>maxmemory</code> is <code>auto</code>.
+ * <p>
+ * The Javadoc Tool keeps the trees and comments of all documented sources in memory, and reads the symbols it needs
+ * from the classpath. The estimate is a base size, plus a share per documented file for the pages being generated,
+ * plus a multiple of the source size, plus a fraction of the classpath size. Dependency sources are documented along
+ * with the project sources and cross-linked, so the whole is raised when they are included.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocHeapEstimator {
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * The smallest heap ever estimated, enough for the JVM and the Javadoc Tool on a handful of files.
+     */
+    static final long MIN_HEAP = 256 * MB;
+
+    private static final long PER_FILE = 64 * 1024;
+
+    private static final long SOURCE_FACTOR = 8;
+
+    private static final long CLASSPATH_DIVISOR = 2;
+
+    private static final long DEPENDENCY_SOURCES_PERCENT = 125;
+
+    private JavadocHeapEstimator() {
+        // no op
+    }
+
+    /**
+     * @param fileCount the number of documented source files
+     * @param sourceBytes the total size of the documented source files
+     * @param classpathBytes the total size of the classpath jars
+     * @param dependencySources whether the sources of dependencies are documented too
+     * @param limit the largest heap to return, <code>0</code> for no limit
+     * @return the estimated heap in bytes, a multiple of 64 MB
+     */
+    static long estimate(long fileCount, long sourceBytes, long classpathBytes, boolean dependencySources, long limit) {
+        long heap = MIN_HEAP + fileCount * PER_FILE + sourceBytes * SOURCE_FACTOR + classpathBytes / CLASSPATH_DIVISOR;
+        if (dependencySources) {
+            heap = heap * DEPENDENCY_SOURCES_PERCENT / 100;
+        }
+        return clamp(heap, limit);
+    }
+
+    /**
+     * @param heap the heap the Javadoc Tool ran out of, in bytes
+     * @param limit the largest heap to return, <code>0</code> for no limit
+     * @return the heap to retry with in bytes, or <code>0</code> if it can't grow
+     */
+    static long grow(long heap, long limit) {
+        long grown = clamp(heap * 2, limit);
+        return grown > heap ? grown : 0;
+    }
+
+    /**
+     * @param estimate the heap estimated for a run, in bytes
+     * @param learned the heap learned from a previous run that ran out of memory, or <code>-1</code> if none
+     * @param learnedEstimate the heap estimated for that previous run, or <code>-1</code> if unknown
+     * @return <code>true</code> if the learned heap should be used instead of the estimate: it is larger, and the
+     *         sources did not shrink to less than half of the estimate of the run that ran out of memory
+     */
+    static boolean useLearned(long estimate, long learned, long learnedEstimate) {
+        return learned > estimate && estimate > learnedEstimate / 2;
+    }
+
+    private static long clamp(long heap, long limit) {
+        long rounded = (heap + 64 * MB - 1) / (64 * MB) * (64 * MB);
+        if (limit > 0 && rounded > limit) {
+            rounded = Math.max(MIN_HEAP, limit / (64 * MB) * (64 * MB));
+        }
+        return Math.max(MIN_HEAP, rounded);
+    }
+
+    /**
+     * @param heap in bytes
+     * @return the heap in the format of <code>-Xmx</code>
+     */
+    static String toMemoryArg(long heap) {
+        return (heap / MB) + "m";
+    }
+}
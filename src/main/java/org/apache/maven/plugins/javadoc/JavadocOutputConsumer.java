@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Classifies the output of the Javadoc Tool line by line while it runs, without keeping it all in memory.
+ * <p>
+ * Informational lines are passed on right away to their own consumer. The other lines are passed on as well,
+ * counted as warnings or errors, and only the first and last {@link #RETAINED_LINES} of them are kept for the
+ * exception message. The <code>N warnings</code> and <code>N errors</code> trailers written by the Javadoc Tool are
+ * recognized on the fly.
+ * </p>
+ * <p>
+ * Diagnostics, the lines following them such as the echoed source lines, and the trailers are passed on to the
+ * diagnostics consumer. The lines written before the first diagnostic are neither warnings nor errors and are passed
+ * on to a consumer of their own.
+ * </p>
+ * <p>
+ * Lines like <code>Picked up JAVA_TOOL_OPTIONS: ...</code>, as can happen on CI servers, are ignored.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+class JavadocOutputConsumer implements StreamConsumer {
+    /**
+     * Number of lines kept from the start and from the end of the non informational output.
+     */
+    static final int RETAINED_LINES = 100;
+
+    private static final Pattern WARNINGS_TRAILER = Pattern.compile("(\\d+) warnings?");
+
+    private static final Pattern ERRORS_TRAILER = Pattern.compile("(\\d+) errors?");
+
+    /**
+     * The header of a diagnostic, <code>File.java:12: warning: </code> or <code>error: </code> since JDK 9, or
+     * <code>javadoc: warning - </code> before. Source lines echoed below a diagnostic don't match, even if they
+     * contain <code>error: </code>.
+     */
+    private static final Pattern DIAGNOSTIC_HEADER =
+            Pattern.compile("^(?:\\S+:\\d+: )?(error|warning): |^javadoc: (error|warning) - ");
+
+    private final Predicate<String> informational;
+
+    private final Consumer<String> informationalLog;
+
+    private final Consumer<String> log;
+
+    private final Consumer<String> otherLog;
+
+    private final String heading;
+
+    private final List<String> head = new ArrayList<>();
+
+    private final Deque<String> tail = new ArrayDeque<>();
+
+    private long omitted;
+
+    private boolean empty = true;
+
+    private String lastLine;
+
+    private long warnings;
+
+    private long errors;
+
+    private long reportedWarnings;
+
+    private long reportedErrors;
+
+    private boolean outOfMemoryError;
+
+    private boolean inDiagnostics;
+
+    /**
+     * @param informational tells whether a line is informational output, not null
+     * @param informationalLog the consumer of the informational lines, not null
+     * @param log the consumer of the other lines, not null
+     * @param heading a line to pass to <code>log</code> before the first other line, may be null
+     */
+    JavadocOutputConsumer(
+            Predicate<String> informational, Consumer<String> informationalLog, Consumer<String> log, String heading) {
+        this(informational, informationalLog, log, log, heading);
+    }
+
+    /**
+     * @param informational tells whether a line is informational output, not null
+     * @param informationalLog the consumer of the informational lines, not null
+     * @param log the consumer of the diagnostics and of the lines following them, not null
+     * @param otherLog the consumer of the other lines written before the first diagnostic, not null
+     * @param heading a line to pass to <code>log</code> before its first line, may be null
+     */
+    JavadocOutputConsumer(
+            Predicate<String> informational,
+            Consumer<String> informationalLog,
+            Consumer<String> log,
+            Consumer<String> otherLog,
+            String heading) {
+        this.informational = informational;
+        this.informationalLog = informationalLog;
+        this.log = log;
+        this.otherLog = otherLog;
+        this.heading = heading;
+    }
+
+    @Override
+    public synchronized void consumeLine(String line) {
+        if (line.startsWith("Picked up ")) {
+            return;
+        }
+        empty = false;
+        lastLine = line;
+        if (line.contains("java.lang.OutOfMemoryError")) {
+            outOfMemoryError = true;
+        }
+
+        String str = line.trim();
+        if (informational.test(str)) {
+            informationalLog.accept(str);
+            return;
+        }
+
+        if (classify(line, str) && !inDiagnostics) {
+            inDiagnostics = true;
+            if (heading != null) {
+                log.accept(heading);
+            }
+        }
+        if (inDiagnostics) {
+            log.accept(str);
+        } else {
+            otherLog.accept(str);
+        }
+
+        if (head.size() < RETAINED_LINES) {
+            head.add(line);
+        } else {
+            tail.addLast(line);
+            if (tail.size() > RETAINED_LINES) {
+                tail.removeFirst();
+                omitted++;
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the line is a diagnostic header or a trailer
+     */
+    private boolean classify(String line, String str) {
+        Matcher header = DIAGNOSTIC_HEADER.matcher(line);
+        if (header.find()) {
+            String kind = header.group(1) != null ? header.group(1) : header.group(2);
+            if ("warning".equals(kind)) {
+                warnings++;
+            } else {
+                errors++;
+            }
+            return true;
+        }
+        Matcher m = WARNINGS_TRAILER.matcher(str);
+        if (m.matches()) {
+            reportedWarnings = Long.parseLong(m.group(1));
+            return true;
+        }
+        m = ERRORS_TRAILER.matcher(str);
+        if (m.matches()) {
+            reportedErrors = Long.parseLong(m.group(1));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if no line was consumed, <code>false</code> otherwise
+     */
+    synchronized boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return <code>true</code> if the last line is a <code>N warnings</code> trailer
+     */
+    synchronized boolean endsWithWarningsTrailer() {
+        return lastLine != null && WARNINGS_TRAILER.matcher(lastLine).matches();
+    }
+
+    /**
+     * @return the number of warnings, as reported by the Javadoc Tool or as counted if more
+     */
+    synchronized long getWarningCount() {
+        return Math.max(warnings, reportedWarnings);
+    }
+
+    /**
+     * @return the number of errors, as reported by the Javadoc Tool or as counted if more
+     */
+    synchronized long getErrorCount() {
+        return Math.max(errors, reportedErrors);
+    }
+
+    /**
+     * @return <code>true</code> if a line reported a <code>java.lang.OutOfMemoryError</code>
+     */
+    synchronized boolean hasOutOfMemoryError() {
+        return outOfMemoryError;
+    }
+
+    /**
+     * @return the first and last non informational lines, with a note about the omitted lines in between
+     */
+    synchronized String getRetainedOutput() {
+        List<String> lines = new ArrayList<>(head);
+        if (omitted > 0) {
+            lines.add("[... " + omitted + " more lines ...]");
+        }
+        lines.addAll(tail);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.codehaus.plexus.util.cli.CommandLineCallable;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Runs a Javadoc Tool and stops it as soon as its result no longer matters, e.g. because the build will fail on the
+ * first warning anyway.
+ * <p>
+ * The run is stopped by interrupting the thread executing it: this kills a forked process, closes the connection to
+ * a {@link JavadocWorkerPool worker}, which is then stopped, and stops an {@link InProcessJavadoc in-process} run at
+ * its next output.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocProcessWatchdog {
+    private static final long POLL_MILLIS = 100;
+
+    private final Supplier<String> abortCondition;
+
+    private final Object lock = new Object();
+
+    private boolean running;
+
+    private String abortReason;
+
+    private long elapsedMillis = -1;
+
+    /**
+     * @param abortCondition returns why the process should be killed, or <code>null</code> to let it run, not null
+     */
+    JavadocProcessWatchdog(Supplier<String> abortCondition) {
+        this.abortCondition = abortCondition;
+    }
+
+    /**
+     * Execute the command line, checking the abort condition while it runs.
+     *
+     * @param cmd not null
+     * @param out not null
+     * @param err not null
+     * @return the exit code of the process, meaningless if it was killed
+     * @throws CommandLineException if the process can not be run
+     * @see #getAbortReason()
+     */
+    int execute(Commandline cmd, StreamConsumer out, StreamConsumer err) throws CommandLineException {
+        CommandLineCallable callable = CommandLineUtils.executeCommandLineAsCallable(cmd, null, out, err, 0);
+        return execute(callable::call);
+    }
+
+    /**
+     * Execute a run of the Javadoc Tool, checking the abort condition while it runs.
+     *
+     * @param run stops when the calling thread is interrupted, not null
+     * @param <E> the exception thrown by the run
+     * @return the exit code of the run, meaningless if it was stopped
+     * @throws E if the run fails, unless it was stopped
+     * @see #getAbortReason()
+     */
+    <E extends Exception> int execute(Run<E> run) throws E {
+        Thread caller = Thread.currentThread();
+        synchronized (lock) {
+            running = true;
+            abortReason = null;
+        }
+        Thread watcher = new Thread(() -> watch(caller), "javadoc-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            int exitCode = run.call();
+            completed = true;
+            return exitCode;
+        } catch (Exception e) {
+            // the run fails when it is interrupted
+            synchronized (lock) {
+                if (abortReason != null) {
+                    return -1;
+                }
+            }
+            throw e;
+        } finally {
+            synchronized (lock) {
+                running = false;
+                if (abortReason != null) {
+                    // clear the interrupt meant to stop the process
+                    Thread.interrupted();
+                    if (completed) {
+                        abortReason = null;
+                    }
+                }
+            }
+            watcher.interrupt();
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private void watch(Thread caller) {
+        while (true) {
+            synchronized (lock) {
+                if (!running) {
+                    return;
+                }
+                String reason = abortCondition.get();
+                if (reason != null) {
+                    abortReason = reason;
+                    caller.interrupt();
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return why the run was stopped, or <code>null</code> if it ran to completion
+     */
+    String getAbortReason() {
+        synchronized (lock) {
+            return abortReason;
+        }
+    }
+
+    /**
+     * @return how long the last execution took in milliseconds, or <code>-1</code> if nothing was executed
+     */
+    long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * A run of the Javadoc Tool.
+     *
+     * @param <E> the exception thrown by the run
+     */
+    interface Run<E extends Exception> {
+        /**
+         * @return the exit code of the Javadoc Tool
+         * @throws E if the run fails
+         */
+        int call() throws E;
+    }
+}
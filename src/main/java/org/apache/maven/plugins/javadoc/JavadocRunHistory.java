@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * What the plugin learned from previous Javadoc runs of a project, kept in a properties file in its build directory
+ * so a <code>clean</code> forgets it. Entries are keyed by Javadoc output directory, to tell goals apart.
+ *
+ * @since 3.12.1
+ */
+final class JavadocRunHistory {
+    static final String FILE_NAME = "maven-javadoc-plugin-history.properties";
+
+    private static final String DURATION = ".duration";
+
+    private static final String MAX_MEMORY = ".maxmemory";
+
+    private static final String MAX_MEMORY_ESTIMATE = ".maxmemory.estimate";
+
+    private final Path file;
+
+    private final Properties properties = new Properties();
+
+    private JavadocRunHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param buildDirectory the build directory of the project, not null
+     * @return the history of the project, empty if none was recorded or if it can not be read
+     */
+    static synchronized JavadocRunHistory load(File buildDirectory) {
+        JavadocRunHistory history = new JavadocRunHistory(new File(buildDirectory, FILE_NAME).toPath());
+        if (Files.isRegularFile(history.file)) {
+            try (InputStream in = Files.newInputStream(history.file)) {
+                history.properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                // start over
+                history.properties.clear();
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @return the duration of the last complete run in milliseconds, or <code>-1</code> if unknown
+     */
+    long getDuration(File outputDirectory) {
+        return getLong(outputDirectory.getAbsolutePath() + DURATION);
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @param millis the duration of a complete run in milliseconds
+     */
+    void setDuration(File outputDirectory, long millis) {
+        properties.setProperty(outputDirectory.getAbsolutePath() + DURATION, String.valueOf(millis));
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @return the maximum heap in bytes learned from a run that ran out of memory, or <code>-1</code> if none
+     */
+    long getMaxMemory(File outputDirectory) {
+        return getLong(outputDirectory.getAbsolutePath() + MAX_MEMORY);
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @return the heap in bytes estimated for the run that ran out of memory, or <code>-1</code> if unknown
+     */
+    long getMaxMemoryEstimate(File outputDirectory) {
+        return getLong(outputDirectory.getAbsolutePath() + MAX_MEMORY_ESTIMATE);
+    }
+
+    /**
+     * @param outputDirectory the Javadoc output directory, not null
+     * @param bytes the maximum heap to use from now on
+     * @param estimate the heap in bytes estimated for the run that ran out of memory
+     */
+    void setMaxMemory(File outputDirectory, long bytes, long estimate) {
+        properties.setProperty(outputDirectory.getAbsolutePath() + MAX_MEMORY, String.valueOf(bytes));
+        properties.setProperty(outputDirectory.getAbsolutePath() + MAX_MEMORY_ESTIMATE, String.valueOf(estimate));
+    }
+
+    /**
+     * Forget the maximum heap learned from a run that ran out of memory.
+     *
+     * @param outputDirectory the Javadoc output directory, not null
+     */
+    void removeMaxMemory(File outputDirectory) {
+        properties.remove(outputDirectory.getAbsolutePath() + MAX_MEMORY);
+        properties.remove(outputDirectory.getAbsolutePath() + MAX_MEMORY_ESTIMATE);
+    }
+
+    private long getLong(String key) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the history back to its file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    void store() throws IOException {
+        synchronized (JavadocRunHistory.class) {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                properties.store(out, "maven-javadoc-plugin run history");
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memoizes, for the lifetime of a Maven session, the results which all the executions of the plugin in the reactor
+ * compute from the same inputs: the validation of the <code>links</code>, the resolution of the
+ * <code>docletArtifacts</code> and <code>tagletArtifacts</code>, the options of the <code>javadoc-resources</code>
+ * bundles and the Java API element lists. It also holds the objects shared by the executions of a session, like the
+ * pool of worker JVMs or the scheduler of the forked Javadoc Tools, see
+ * {@link #getInstance(RepositorySystemSession, Class, Supplier)}.
+ * <p>
+ * Results are stored in the data of the repository session, by region and key, so they are dropped with the
+ * session. Each entry is computed once, even when several modules ask for it concurrently, and a failed computation
+ * is not cached, so the next execution tries again. Hits and misses are logged in debug.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+@Named
+@Singleton
+public final class JavadocSessionCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavadocSessionCache.class);
+
+    private static final String SESSION_KEY = JavadocSessionCache.class.getName();
+
+    /**
+     * Get an entry of the cache of a session, computing it first if needed.
+     *
+     * @param session the repository session, or <code>null</code> to compute the entry without caching it
+     * @param region the kind of the entry, not null
+     * @param key the inputs of the entry, not null
+     * @param loader computes the entry, not null
+     * @param <V> the type of the entry
+     * @param <E> the exception thrown by the loader
+     * @return the entry, may be <code>null</code> if computed as such
+     * @throws E if the entry can not be computed
+     */
+    public <V, E extends Exception> V get(
+            RepositorySystemSession session, String region, String key, Loader<V, E> loader) throws E {
+        if (session == null) {
+            return loader.load();
+        }
+        Entry entry = getEntries(session).computeIfAbsent(region + ':' + key, k -> new Entry());
+        synchronized (entry) {
+            if (entry.loaded) {
+                entry.hits++;
+                LOGGER.debug("Reusing {} {} ({} hit(s), 1 miss)", region, key, entry.hits);
+                @SuppressWarnings("unchecked")
+                V value = (V) entry.value;
+                return value;
+            }
+            long start = System.currentTimeMillis();
+            V value = loader.load();
+            entry.value = value;
+            entry.loaded = true;
+            LOGGER.debug("Computed {} {} in {} ms", region, key, System.currentTimeMillis() - start);
+            return value;
+        }
+    }
+
+    /**
+     * Get the object of the given class shared by all the executions of a session, creating it first if needed.
+     *
+     * @param session the repository session, or <code>null</code> to create an object which is not shared
+     * @param type the class of the object, not null
+     * @param factory creates the object, not null
+     * @param <V> the class of the object
+     * @return the object
+     */
+    public <V> V getInstance(RepositorySystemSession session, Class<V> type, Supplier<V> factory) {
+        return get(session, "instance", type.getName(), factory::get);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entry> getEntries(RepositorySystemSession session) {
+        SessionData data = session.getData();
+        Map<String, Entry> entries = (Map<String, Entry>) data.get(SESSION_KEY);
+        if (entries == null) {
+            data.set(SESSION_KEY, null, new ConcurrentHashMap<String, Entry>());
+            entries = (Map<String, Entry>) data.get(SESSION_KEY);
+        }
+        return entries;
+    }
+
+    private static final class Entry {
+        private int hits;
+
+        private boolean loaded;
+
+        private Object value;
+    }
+
+    /**
+     * Computes an entry of the cache.
+     *
+     * @param <V> the type of the entry
+     * @param <E> the exception thrown when the entry can not be computed
+     */
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception> {
+        /**
+         * @return the entry, may be <code>null</code>
+         * @throws E if the entry can not be computed
+         */
+        V load() throws E;
+    }
+}
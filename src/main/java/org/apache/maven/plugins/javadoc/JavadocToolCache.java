@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.languages.java.version.JavaVersion;
+import org.eclipse.aether.RepositorySystemSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers where the Javadoc Tool is and which version it is, so each execution doesn't have to look for it and
+ * fork <code>javadoc -J-version</code> again.
+ * <p>
+ * Executables are cached for the Maven session, keyed by toolchain and <code>javadocExecutable</code> parameter.
+ * Versions are cached for the Maven session and in a file of the local repository, keyed by executable and by the
+ * size and modification time of the <code>release</code> file of its JDK, so a JDK update is noticed. Executables
+ * of a JDK without <code>release</code> file are only cached for the session.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocToolCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavadocToolCache.class);
+
+    /**
+     * The directory of the plugin caches shared by all builds, relative to the local repository.
+     */
+    static final String CACHE_DIRECTORY = ".cache/maven-javadoc-plugin";
+
+    static final String FILE_NAME = CACHE_DIRECTORY + "/javadoc-versions.properties";
+
+    private final Map<String, String> executables = new ConcurrentHashMap<>();
+
+    private final Map<String, JavaVersion> versions = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    private Properties persistedVersions;
+
+    /**
+     * @param file the file persisting the versions, or <code>null</code> to only cache them in memory
+     */
+    JavadocToolCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param sessionCache not null
+     * @param session not null
+     * @return the cache of the given session, created on first use
+     */
+    static JavadocToolCache getInstance(JavadocSessionCache sessionCache, RepositorySystemSession session) {
+        return sessionCache.getInstance(session, JavadocToolCache.class, () -> {
+            Path file = null;
+            if (session.getLocalRepository() != null) {
+                file = new File(session.getLocalRepository().getBasedir(), FILE_NAME).toPath();
+            }
+            return new JavadocToolCache(file);
+        });
+    }
+
+    /**
+     * @param key identifies how the executable was looked for, not null
+     * @return the path of the Javadoc Tool found earlier in the session, or <code>null</code>
+     */
+    String getExecutable(String key) {
+        return executables.get(key);
+    }
+
+    /**
+     * @param key identifies how the executable was looked for, not null
+     * @param executable the path of the Javadoc Tool, not null
+     */
+    void putExecutable(String key, String executable) {
+        executables.put(key, executable);
+    }
+
+    /**
+     * @param executable the Javadoc Tool, not null
+     * @return the version found earlier for this executable of this JDK build, or <code>null</code>
+     */
+    JavaVersion getVersion(File executable) {
+        String path = executable.getAbsolutePath();
+        JavaVersion version = versions.get(path);
+        if (version != null) {
+            return version;
+        }
+
+        String stamp = getReleaseStamp(executable);
+        if (stamp == null || file == null) {
+            return null;
+        }
+        String value;
+        synchronized (this) {
+            value = getPersistedVersions().getProperty(path);
+        }
+        if (value != null && value.startsWith(stamp + ':')) {
+            try {
+                version = JavaVersion.parse(value.substring(stamp.length() + 1));
+                versions.put(path, version);
+                return version;
+            } catch (IllegalArgumentException e) {
+                // probe again
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param executable the Javadoc Tool, not null
+     * @param version its version, not null
+     */
+    void putVersion(File executable, JavaVersion version) {
+        String path = executable.getAbsolutePath();
+        versions.put(path, version);
+
+        String stamp = getReleaseStamp(executable);
+        if (stamp == null || file == null) {
+            return;
+        }
+        synchronized (this) {
+            // other builds may have added versions meanwhile
+            persistedVersions = null;
+            Properties properties = getPersistedVersions();
+            properties.setProperty(path, stamp + ':' + version);
+            try {
+                Files.createDirectories(file.getParent());
+                Path tmp = Files.createTempFile(
+                        file.getParent(), file.getFileName().toString(), ".tmp");
+                try {
+                    try (OutputStream out = Files.newOutputStream(tmp)) {
+                        properties.store(out, "Versions of the Javadoc Tool, by executable");
+                    }
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Unable to write {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private Properties getPersistedVersions() {
+        if (persistedVersions == null) {
+            persistedVersions = new Properties();
+            if (Files.isRegularFile(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    persistedVersions.load(in);
+                } catch (IOException | IllegalArgumentException e) {
+                    LOGGER.debug("Unable to read {}: {}", file, e.getMessage());
+                    persistedVersions.clear();
+                }
+            }
+        }
+        return persistedVersions;
+    }
+
+    /**
+     * The <code>release</code> file of a JDK is rewritten by every update of the JDK, its size and modification time
+     * tell JDK builds apart without reading it.
+     *
+     * @param executable the Javadoc Tool, in the <code>bin</code> directory of its JDK, not null
+     * @return the size and modification time of the <code>release</code> file of the JDK, or <code>null</code>
+     */
+    static String getReleaseStamp(File executable) {
+        File bin = executable.getAbsoluteFile().getParentFile();
+        if (bin == null || bin.getParentFile() == null) {
+            return null;
+        }
+        File release = new File(bin.getParentFile(), "release");
+        if (!release.isFile()) {
+            return null;
+        }
+        return release.length() + ":" + release.lastModified();
+    }
+}
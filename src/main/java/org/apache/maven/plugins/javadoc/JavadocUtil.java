@@ -53,6 +53,7 @@ import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Predicate;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.regex.Matcher;
@@ -329,25 +330,28 @@ public class JavadocUtil {
      */
     protected static List<String> getIncludedFiles(
             File sourceDirectory, String[] fileList, Collection<String> excludePackages) {
-        List<String> files = new ArrayList<>();
+        return getIncludedFiles(fileList, PackageMatcher.forFiles(excludePackages));
+    }
 
-        List<Pattern> excludePackagePatterns = new ArrayList<>(excludePackages.size());
-        for (String excludePackage : excludePackages) {
-            excludePackagePatterns.add(Pattern.compile(excludePackage
-                    .replace('.', File.separatorChar)
-                    .replace("\\", "\\\\")
-                    .replace("*", ".+")
-                    .concat("[\\\\/][^\\\\/]+\\.java")));
-        }
+    /**
+     * Method that gets the files that are not in an excluded package.
+     *
+     * @param fileList the list of all relative files found in a source directory
+     * @param excludePackages the matcher of the package names to be excluded in the javadoc, see
+     *            {@link PackageMatcher#forFiles(Collection)}
+     * @return the files to be included in the javadoc, separated by <code>/</code>
+     * @since 3.12.1
+     */
+    static List<String> getIncludedFiles(String[] fileList, PackageMatcher excludePackages) {
+        List<String> files = new ArrayList<>();
 
         for (String file : fileList) {
-            boolean excluded = false;
-            for (Pattern excludePackagePattern : excludePackagePatterns) {
-                if (excludePackagePattern.matcher(file).matches()) {
-                    excluded = true;
-                    break;
-                }
-            }
+            // only Java files directly in an excluded package are excluded
+            int separator = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'));
+            boolean excluded = separator != -1
+                    && file.length() - separator > ".java".length() + 1
+                    && file.endsWith(".java")
+                    && excludePackages.matches(file.substring(0, separator));
 
             if (!excluded) {
                 files.add(file.replace('\\', '/'));
@@ -357,6 +361,17 @@ public class JavadocUtil {
         return files;
     }
 
+    /**
+     * @param excludePackages package names to be excluded in the javadoc, as in <code>excludePackageNames</code>
+     * @return tells whether the Java files of a package, given by its name, are excluded, like
+     *         {@link #getIncludedFiles(File, String[], Collection)} does
+     * @since 3.12.1
+     */
+    public static Predicate<String> getExcludedPackageFilter(Collection<String> excludePackages) {
+        PackageMatcher matcher = PackageMatcher.forFiles(excludePackages);
+        return packageName -> matcher.matches(packageName.replace('.', File.separatorChar));
+    }
+
     /**
      * Method that gets the complete package names (including subpackages) of the packages that were defined in the
      * excludePackageNames parameter.
@@ -367,8 +382,6 @@ public class JavadocUtil {
      */
     protected static Collection<String> getExcludedPackages(
             final Path sourceDirectory, Collection<String> excludePackagenames) {
-        final String regexFileSeparator = File.separator.replace("\\", "\\\\");
-
         final Collection<String> fileList = new ArrayList<>();
 
         try {
@@ -386,25 +399,40 @@ public class JavadocUtil {
             // noop
         }
 
-        List<String> files = new ArrayList<>();
-        for (String excludePackagename : excludePackagenames) {
-            // Usage of wildcard was bad specified and bad implemented, i.e. using String.contains()
-            //   without respecting surrounding context
-            // Following implementation should match requirements as defined in the examples:
-            // - A wildcard at the beginning should match one or more directories
-            // - Any other wildcard must match exactly one directory
-            Pattern p = Pattern.compile(excludePackagename
-                    .replace(".", regexFileSeparator)
-                    .replaceFirst("^\\*", ".+")
-                    .replace("*", "[^" + regexFileSeparator + "]+"));
-
-            for (String aFileList : fileList) {
-                if (p.matcher(aFileList).matches()) {
-                    files.add(aFileList.replace(File.separatorChar, '.'));
-                }
-            }
+        return filterExcludedPackages(fileList, excludePackagenames);
+    }
+
+    /**
+     * Method that gets the complete package names (including subpackages) of the packages that were defined in the
+     * excludePackageNames parameter, among the given package directories.
+     *
+     * @param packageDirectories the directories of the source files, relative to their source directory
+     * @param excludePackagenames package names to be excluded in the javadoc
+     * @return the package names to be excluded
+     * @since 3.12.1
+     */
+    protected static Collection<String> filterExcludedPackages(
+            Collection<String> packageDirectories, Collection<String> excludePackagenames) {
+        // Usage of wildcard was bad specified and bad implemented, i.e. using String.contains()
+        //   without respecting surrounding context
+        // Following implementation should match requirements as defined in the examples:
+        // - A wildcard at the beginning should match one or more directories
+        // - Any other wildcard must match exactly one directory
+        PackageMatcher matcher = PackageMatcher.forPackages(excludePackagenames);
+
+        // the packages matched by each pattern, in the order of the patterns
+        List<List<String>> matched = new ArrayList<>(excludePackagenames.size());
+        for (int i = 0; i < excludePackagenames.size(); i++) {
+            matched.add(new ArrayList<>());
+        }
+        for (String aFileList : packageDirectories) {
+            matcher.match(aFileList, index -> matched.get(index).add(aFileList.replace(File.separatorChar, '.')));
         }
 
+        List<String> files = new ArrayList<>();
+        for (List<String> packages : matched) {
+            files.addAll(packages);
+        }
         return files;
     }
 
@@ -638,6 +666,21 @@ public class JavadocUtil {
         throw new IllegalArgumentException("Could convert not to a memory size: " + memory);
     }
 
+    /**
+     * Parse a memory string like {@link #parseJavadocMemory(String)} does, and convert it to bytes.
+     *
+     * @param memory the memory to be parsed, not null.
+     * @return the memory in bytes
+     * @throws NullPointerException if the <code>memory</code> argument is null
+     * @throws IllegalArgumentException if the <code>memory</code> argument doesn't match any pattern.
+     * @since 3.12.1
+     */
+    protected static long parseJavadocMemoryInBytes(String memory) {
+        String parsed = parseJavadocMemory(memory);
+        long value = Long.parseLong(parsed.substring(0, parsed.length() - 1));
+        return parsed.endsWith("k") ? value * 1024 : value * 1024 * 1024;
+    }
+
     /**
      * Validate if a charset is supported on this platform.
      *
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.doxia.tools.SiteTool;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.plugins.javadoc.resolver.ResourceResolver;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.reporting.MavenReportException;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.eclipse.aether.RepositorySystem;
+
+/**
+ * Generates documentation for the <code>Java code</code> in a <b>NON aggregator</b> project like
+ * <code>javadoc:javadoc</code>, then keeps watching the source paths and the <code>javadocDirectory</code> and
+ * generates the documentation again whenever they change, until stopped with <code>Ctrl+C</code>.
+ * <p>
+ * The dependencies, the links and the Javadoc Tool are resolved once. Changed files of <code>doc-files</code>
+ * directories are copied to the output directory as they are, and other changes document again only the changed
+ * packages, see <code>incremental</code>.
+ * </p>
+ *
+ * @since 3.12.1
+ * @see <a href="https://docs.oracle.com/en/java/javase/17/docs/specs/man/javadoc.html">Javadoc Tool</a>
+ */
+@Mojo(
+        name = "watch",
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        requiresDirectInvocation = true,
+        threadSafe = true)
+@Execute(phase = LifecyclePhase.GENERATE_SOURCES)
+public class JavadocWatchMojo extends JavadocReport {
+    /**
+     * The time in milliseconds without any change to wait for after a change, before generating the documentation
+     * again, so that the files saved together are handled together.
+     *
+     * @since 3.12.1
+     */
+    @Parameter(property = "maven.javadoc.watch.quietPeriod", defaultValue = "300")
+    private long quietPeriod;
+
+    @Inject
+    public JavadocWatchMojo(
+            SiteTool siteTool,
+            ArchiverManager archiverManager,
+            ResourceResolver resourceResolver,
+            RepositorySystem repoSystem,
+            ArtifactHandlerManager artifactHandlerManager,
+            ProjectBuilder mavenProjectBuilder,
+            ToolchainManager toolchainManager) {
+        super(
+                siteTool,
+                archiverManager,
+                resourceResolver,
+                repoSystem,
+                artifactHandlerManager,
+                mavenProjectBuilder,
+                toolchainManager);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isIncremental() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        super.doExecute();
+        if (skip) {
+            return;
+        }
+
+        List<Path> roots = new ArrayList<>();
+        try {
+            for (JavadocModule module : getSourcePaths()) {
+                roots.addAll(module.getSourcePaths());
+            }
+        } catch (MavenReportException e) {
+            throw new MojoExecutionException("Unable to find the source paths to watch", e);
+        }
+        if (getJavadocDirectory() != null) {
+            roots.add(getJavadocDirectory().toPath());
+        }
+
+        try (SourceWatcher watcher = new SourceWatcher(roots)) {
+            getLog().info("Watching " + watcher.getDirectoryCount() + " directories for changes, press Ctrl+C to stop");
+            while (true) {
+                Set<Path> changed = watcher.awaitChanges(quietPeriod);
+                long start = System.currentTimeMillis();
+                if (copyOrRegenerate(roots, changed)) {
+                    getLog().info("Updated the javadoc for " + changed.size() + " changed file(s) in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to watch the sources: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Copy the changed files of <code>doc-files</code> directories, and run the Javadoc Tool again for the other
+     * changes, ignoring the backup and temporary files of editors.
+     *
+     * @param roots the watched directories, not null
+     * @param changed the changed files, not null
+     * @return <code>true</code> if the output directory was updated
+     */
+    boolean copyOrRegenerate(List<Path> roots, Set<Path> changed) {
+        boolean updated = false;
+        boolean regenerate = false;
+        for (Path path : changed) {
+            Path root = getRoot(roots, path);
+            if (root == null || isDefaultExcluded(root.relativize(path))) {
+                continue;
+            }
+            try {
+                if (copyDocFile(root, path)) {
+                    updated = true;
+                } else {
+                    regenerate = true;
+                }
+            } catch (IOException e) {
+                getLog().warn("Unable to copy " + path + ": " + e.getMessage());
+            }
+        }
+
+        if (regenerate) {
+            try {
+                executeReportAgain();
+                updated = true;
+            } catch (MavenReportException | RuntimeException e) {
+                // keep watching, the next change may fix it
+                getLog().error("Error while generating the javadoc again: " + e.getMessage(), e);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * @return the innermost root of the path, or <code>null</code> if none
+     */
+    private static Path getRoot(List<Path> roots, Path path) {
+        Path root = null;
+        for (Path candidate : roots) {
+            if (path.startsWith(candidate) && (root == null || candidate.startsWith(root))) {
+                root = candidate;
+            }
+        }
+        return root;
+    }
+
+    /**
+     * @return <code>true</code> for the backup and temporary files of editors and version control systems
+     */
+    static boolean isDefaultExcluded(Path relative) {
+        for (String exclude : FileUtils.getDefaultExcludes()) {
+            if (SelectorUtils.matchPath(exclude, relative.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the Javadoc Tool through {@link ToolProvider#getSystemDocumentationTool()}, either directly in the calling JVM
+ * or as a long-lived worker JVM started by {@link JavadocWorkerPool}.
+ * <p>
+ * <strong>Note:</strong> the worker JVM only has this class on its class path, so it must not use anything else
+ * than the JDK, and it must stay compatible with the oldest JDK supported by the plugin.
+ * </p>
+ * <p>
+ * The worker connects back to the plugin on a loopback socket and then serves requests one at a time:
+ * </p>
+ * <ul>
+ * <li>the worker sends {@link #READY} with the token it was started with, or {@link #FAILED} with a message</li>
+ * <li>the plugin sends the argument count followed by the arguments, or <code>-1</code> to stop the worker</li>
+ * <li>the worker answers with {@link #OUT} and {@link #ERR} lines, and ends with {@link #EXIT} followed by the exit
+ * code, the heap retained after the last garbage collection and the maximum heap</li>
+ * </ul>
+ *
+ * @since 3.12.1
+ */
+class JavadocWorker {
+    static final byte READY = 'R';
+
+    static final byte FAILED = 'F';
+
+    static final byte OUT = 'O';
+
+    static final byte ERR = 'E';
+
+    static final byte EXIT = 'X';
+
+    private static volatile boolean busy;
+
+    private static volatile long lastActivity = System.nanoTime();
+
+    private JavadocWorker() {
+        // hide constructor
+    }
+
+    /**
+     * Entry point of the worker JVM.
+     *
+     * @param args the loopback port to connect to, the token to identify with and the idle timeout in seconds
+     * @throws IOException if the connection to the plugin fails
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        String token = args[1];
+        long idleTimeout = TimeUnit.SECONDS.toNanos(Long.parseLong(args[2]));
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            if (ToolProvider.getSystemDocumentationTool() == null) {
+                writeLine(out, FAILED, "No documentation tool available in " + System.getProperty("java.home"));
+                out.flush();
+                return;
+            }
+            writeLine(out, READY, token);
+            out.flush();
+
+            // doclets and taglets may write directly to the standard streams
+            LineOutputStream stdout = new LineOutputStream(out, OUT);
+            LineOutputStream stderr = new LineOutputStream(out, ERR);
+            System.setOut(new PrintStream(stdout, true));
+            System.setErr(new PrintStream(stderr, true));
+
+            startIdleWatchdog(idleTimeout);
+
+            while (true) {
+                int count;
+                try {
+                    count = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (count < 0) {
+                    break;
+                }
+                busy = true;
+                List<String> arguments = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    arguments.add(readString(in));
+                }
+
+                int exitCode;
+                try {
+                    exitCode = run(arguments, null, stdout::writeLine, stderr::writeLine);
+                } catch (Exception | LinkageError | OutOfMemoryError e) {
+                    stderr.writeLine("error: " + e);
+                    exitCode = 1;
+                }
+                System.out.flush();
+                System.err.flush();
+                stdout.flushLine();
+                stderr.flushLine();
+
+                synchronized (out) {
+                    out.writeByte(EXIT);
+                    out.writeInt(exitCode);
+                    out.writeLong(getRetainedHeap());
+                    out.writeLong(Runtime.getRuntime().maxMemory());
+                    out.flush();
+                }
+                lastActivity = System.nanoTime();
+                busy = false;
+            }
+        }
+    }
+
+    /**
+     * Run the Javadoc Tool in the running JVM. The run stops at its next output once the calling thread is
+     * interrupted.
+     *
+     * @param arguments the Javadoc arguments, without <code>@argfile</code> and <code>-J</code> arguments, not null
+     * @param locale the locale of the messages, or <code>null</code> for the default one
+     * @param out the consumer of the informational output, not null
+     * @param err the consumer of the warnings and errors, not null
+     * @return the exit code like the Javadoc Tool would return it
+     * @throws InterruptedIOException if the calling thread was interrupted
+     * @throws IOException if the file manager of the tool can not be closed
+     */
+    static int run(List<String> arguments, Locale locale, Consumer<String> out, Consumer<String> err)
+            throws IOException {
+        DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        if (tool == null) {
+            throw new IOException("No documentation tool available in the running JVM");
+        }
+
+        StringWriter output = new StringWriter() {
+            @Override
+            public void write(int c) {
+                checkInterrupted();
+                super.write(c);
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                checkInterrupted();
+                super.write(cbuf, off, len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+                checkInterrupted();
+                super.write(str, off, len);
+            }
+        };
+        DiagnosticListener<JavaFileObject> listener = diagnostic -> {
+            checkInterrupted();
+            report(diagnostic, err);
+        };
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previous = currentThread.getContextClassLoader();
+        // hide the plugin realm from the tool, so doclets and taglets are loaded like in a forked JVM
+        try (URLClassLoader isolated =
+                        new URLClassLoader(new URL[0], tool.getClass().getClassLoader());
+                StandardJavaFileManager fileManager = tool.getStandardFileManager(listener, locale, null)) {
+            currentThread.setContextClassLoader(isolated);
+            DocumentationTool.DocumentationTask task =
+                    tool.getTask(output, fileManager, listener, null, arguments, null);
+            if (locale != null) {
+                task.setLocale(locale);
+            }
+            boolean success;
+            try {
+                success = task.call();
+            } catch (RuntimeException e) {
+                if (currentThread.isInterrupted()) {
+                    throw (IOException) new InterruptedIOException("The Javadoc Tool was interrupted").initCause(e);
+                }
+                throw e;
+            }
+            if (currentThread.isInterrupted()) {
+                // the tool may report the exception thrown by the output as an internal error
+                throw new InterruptedIOException("The Javadoc Tool was interrupted");
+            }
+            return success ? 0 : 1;
+        } catch (IllegalArgumentException e) {
+            // invalid option, the Javadoc Tool would exit with a command line error
+            err.accept("error: " + e.getMessage());
+            return 2;
+        } finally {
+            currentThread.setContextClassLoader(previous);
+            for (String line : output.toString().split("\\R")) {
+                if (!line.isEmpty()) {
+                    out.accept(line);
+                }
+            }
+        }
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The Javadoc Tool was interrupted");
+        }
+    }
+
+    /**
+     * Write a diagnostic the way the Javadoc Tool writes it on <code>stderr</code>, i.e.
+     * <code>File.java:12: warning: message</code>. Notes without source, like the <code>1 warning</code> summary,
+     * are written as they are.
+     */
+    private static void report(Diagnostic<? extends JavaFileObject> diagnostic, Consumer<String> err) {
+        StringBuilder line = new StringBuilder();
+        if (diagnostic.getSource() != null) {
+            line.append(diagnostic.getSource().getName());
+            if (diagnostic.getLineNumber() != Diagnostic.NOPOS) {
+                line.append(':').append(diagnostic.getLineNumber());
+            }
+            line.append(": ");
+        }
+        switch (diagnostic.getKind()) {
+            case ERROR:
+                line.append("error: ");
+                break;
+            case WARNING:
+            case MANDATORY_WARNING:
+                line.append("warning: ");
+                break;
+            default:
+                if (diagnostic.getSource() != null) {
+                    line.append("note: ");
+                }
+                break;
+        }
+        line.append(diagnostic.getMessage(null));
+        for (String str : line.toString().split("\\R")) {
+            err.accept(str);
+        }
+    }
+
+    /**
+     * @return the heap still in use after the last garbage collection, a good measure of what a run leaves behind
+     */
+    private static long getRetainedHeap() {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    retained += usage.getUsed();
+                }
+            }
+        }
+        return retained;
+    }
+
+    private static void startIdleWatchdog(long idleTimeout) {
+        Thread watchdog = new Thread(
+                () -> {
+                    while (true) {
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (!busy && System.nanoTime() - lastActivity > idleTimeout) {
+                            // the plugin is gone or has no more work, don't linger
+                            System.exit(0);
+                        }
+                    }
+                },
+                "javadoc-worker-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    static void writeLine(DataOutputStream out, byte type, String line) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            writeString(out, line);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends everything written to it line by line to the plugin.
+     */
+    private static class LineOutputStream extends OutputStream {
+        private final DataOutputStream out;
+
+        private final byte type;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        LineOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (b == '\n') {
+                flushLine();
+            } else if (b != '\r') {
+                buffer.write(b);
+            }
+        }
+
+        synchronized void flushLine() throws IOException {
+            if (buffer.size() > 0) {
+                String line = new String(buffer.toByteArray(), Charset.defaultCharset());
+                buffer.reset();
+                writeLine(line);
+            }
+        }
+
+        void writeLine(String line) {
+            try {
+                JavadocWorker.writeLine(out, type, line);
+            } catch (IOException e) {
+                // the plugin is gone, nothing left to report to
+                System.exit(1);
+            }
+        }
+    }
+}
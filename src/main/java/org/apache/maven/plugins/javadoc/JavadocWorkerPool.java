@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of long-lived {@link JavadocWorker} JVMs, shared by all Javadoc executions of a Maven session.
+ * <p>
+ * Workers are keyed by the <code>java</code> executable of the JDK providing the Javadoc Tool and by the JVM options,
+ * so each toolchain and option set gets its own workers. A worker is recycled after a given number of runs or when
+ * the heap it retains grows above a given ratio of its maximum heap.
+ * </p>
+ * <p>
+ * The workers are stopped when the Maven session ends, see {@link SessionEndListener}. They also stop on their own
+ * when the Maven JVM exits, since their connection is closed, and when they are idle for
+ * {@link #IDLE_TIMEOUT_SECONDS} seconds.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class JavadocWorkerPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavadocWorkerPool.class);
+
+    static final long IDLE_TIMEOUT_SECONDS = 600;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 30000;
+
+    private final Map<List<String>, Deque<Worker>> idleWorkers = new HashMap<>();
+
+    private final Set<Worker> workers = new HashSet<>();
+
+    private boolean closed;
+
+    private JavadocWorkerPool() {
+        // use getInstance()
+    }
+
+    /**
+     * @param sessionCache not null
+     * @param session not null
+     * @return the pool of the given session, created on first use and closed when the session ends
+     */
+    static JavadocWorkerPool getInstance(JavadocSessionCache sessionCache, MavenSession session) {
+        return sessionCache.getInstance(session.getRepositorySession(), JavadocWorkerPool.class, () -> {
+            JavadocWorkerPool pool = new JavadocWorkerPool();
+            SessionEndListener.register(session, pool::close);
+            return pool;
+        });
+    }
+
+    /**
+     * Run the Javadoc Tool on a worker, starting one if none is idle.
+     *
+     * @param javaExecutable the <code>java</code> executable of the JDK to use, not null
+     * @param jvmOptions the options of the worker JVM, not null
+     * @param arguments the Javadoc arguments, without <code>@argfile</code> and <code>-J</code> arguments, and with
+     *            relative paths resolved, since a worker serves executions with different working directories, see
+     *            {@link InProcessJavadoc#getToolArguments}, not null
+     * @param maxRuns the number of runs after which a worker is recycled
+     * @param maxHeapUsage the percentage of the maximum heap retained by a worker after which it is recycled
+     * @param out the consumer of the informational output, not null
+     * @param err the consumer of the warnings and errors, not null
+     * @return the exit code like the Javadoc Tool would return it
+     * @throws WorkerStartException if no worker could be started, the caller should fork the Javadoc Tool instead
+     * @throws IOException if the worker failed during the run, or if the calling thread was interrupted: the worker is
+     *             then stopped
+     */
+    int execute(
+            File javaExecutable,
+            List<String> jvmOptions,
+            List<String> arguments,
+            int maxRuns,
+            int maxHeapUsage,
+            Consumer<String> out,
+            Consumer<String> err)
+            throws IOException {
+        List<String> key = new ArrayList<>();
+        key.add(javaExecutable.getAbsolutePath());
+        key.addAll(jvmOptions);
+
+        Worker worker = acquire(key);
+        boolean reusable = false;
+        try {
+            int exitCode = worker.run(arguments, out, err);
+
+            long heapUsage = worker.maxHeap > 0 ? worker.retainedHeap * 100 / worker.maxHeap : 0;
+            if (worker.runs >= maxRuns) {
+                LOGGER.debug("Recycling javadoc worker after {} runs", worker.runs);
+            } else if (heapUsage >= maxHeapUsage) {
+                LOGGER.debug("Recycling javadoc worker retaining {}% of its heap", heapUsage);
+            } else {
+                reusable = true;
+            }
+            return exitCode;
+        } finally {
+            release(key, worker, reusable);
+        }
+    }
+
+    private Worker acquire(List<String> key) throws WorkerStartException {
+        synchronized (this) {
+            if (closed) {
+                throw new WorkerStartException("The javadoc worker pool is closed");
+            }
+            Deque<Worker> idle = idleWorkers.get(key);
+            while (idle != null && !idle.isEmpty()) {
+                Worker worker = idle.pollFirst();
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+                // stopped itself after being idle for too long
+                workers.remove(worker);
+            }
+        }
+
+        Worker worker = Worker.start(key);
+        synchronized (this) {
+            if (!closed) {
+                workers.add(worker);
+                return worker;
+            }
+        }
+        worker.stop();
+        throw new WorkerStartException("The javadoc worker pool is closed");
+    }
+
+    private void release(List<String> key, Worker worker, boolean reusable) {
+        synchronized (this) {
+            if (reusable && !closed) {
+                idleWorkers.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(worker);
+                return;
+            }
+            workers.remove(worker);
+        }
+        worker.stop();
+    }
+
+    /**
+     * Stop all workers, idle or busy.
+     */
+    void close() {
+        List<Worker> toStop;
+        synchronized (this) {
+            closed = true;
+            toStop = new ArrayList<>(workers);
+            workers.clear();
+            idleWorkers.clear();
+        }
+        for (Worker worker : toStop) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Thrown when no worker could be started, e.g. because the JDK provides no documentation tool.
+     */
+    static class WorkerStartException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        WorkerStartException(String message) {
+            super(message);
+        }
+
+        WorkerStartException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * A worker JVM and its connection.
+     */
+    private static final class Worker {
+        private final Process process;
+
+        private final SocketChannel channel;
+
+        private final DataInputStream in;
+
+        private final DataOutputStream out;
+
+        private volatile boolean busy;
+
+        private int runs;
+
+        private long retainedHeap;
+
+        private long maxHeap;
+
+        /**
+         * @param channel a blocking channel, so a thread interrupted while waiting for the worker closes it
+         */
+        private Worker(Process process, SocketChannel channel) {
+            this.process = process;
+            this.channel = channel;
+            this.in = new DataInputStream(new BufferedInputStream(newInputStream(channel)));
+            this.out = new DataOutputStream(new BufferedOutputStream(newOutputStream(channel)));
+        }
+
+        static Worker start(List<String> key) throws WorkerStartException {
+            String token = UUID.randomUUID().toString();
+            try (ServerSocketChannel serverChannel = ServerSocketChannel.open();
+                    Selector selector = Selector.open()) {
+                serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+                serverChannel.configureBlocking(false);
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+                List<String> command = new ArrayList<>(key);
+                command.add("-cp");
+                command.add(getClassPath());
+                command.add(JavadocWorker.class.getName());
+                command.add(String.valueOf(((InetSocketAddress) serverChannel.getLocalAddress()).getPort()));
+                command.add(token);
+                command.add(String.valueOf(IDLE_TIMEOUT_SECONDS));
+
+                long start = System.nanoTime();
+                Process process =
+                        new ProcessBuilder(command).redirectErrorStream(true).start();
+                drain(process);
+
+                SocketChannel channel = null;
+                try {
+                    if (selector.select(CONNECT_TIMEOUT_MILLIS) > 0) {
+                        channel = serverChannel.accept();
+                    }
+                    if (channel == null) {
+                        throw new IOException("the worker did not connect within " + CONNECT_TIMEOUT_MILLIS + " ms");
+                    }
+                    channel.configureBlocking(true);
+                } catch (IOException e) {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                    process.destroyForcibly();
+                    throw e;
+                }
+                Worker worker = new Worker(process, channel);
+                try {
+                    byte type = worker.in.readByte();
+                    String message = JavadocWorker.readString(worker.in);
+                    if (type != JavadocWorker.READY || !token.equals(message)) {
+                        throw new IOException(
+                                type == JavadocWorker.FAILED ? message : "unexpected answer from the worker");
+                    }
+                } catch (IOException e) {
+                    worker.stop();
+                    throw e;
+                }
+                LOGGER.debug(
+                        "Started javadoc worker {} in {} ms",
+                        key,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return worker;
+            } catch (IOException | URISyntaxException e) {
+                throw new WorkerStartException("Unable to start a javadoc worker: " + e.getMessage(), e);
+            }
+        }
+
+        int run(List<String> arguments, Consumer<String> stdout, Consumer<String> stderr) throws IOException {
+            busy = true;
+            try {
+                return call(arguments, stdout, stderr);
+            } finally {
+                busy = false;
+            }
+        }
+
+        private int call(List<String> arguments, Consumer<String> stdout, Consumer<String> stderr) throws IOException {
+            runs++;
+            out.writeInt(arguments.size());
+            for (String argument : arguments) {
+                JavadocWorker.writeString(out, argument);
+            }
+            out.flush();
+
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case JavadocWorker.OUT:
+                        stdout.accept(JavadocWorker.readString(in));
+                        break;
+                    case JavadocWorker.ERR:
+                        stderr.accept(JavadocWorker.readString(in));
+                        break;
+                    case JavadocWorker.EXIT:
+                        int exitCode = in.readInt();
+                        retainedHeap = in.readLong();
+                        maxHeap = in.readLong();
+                        return exitCode;
+                    default:
+                        throw new IOException("Unexpected answer from the javadoc worker: " + type);
+                }
+            }
+        }
+
+        void stop() {
+            if (!busy) {
+                try {
+                    out.writeInt(-1);
+                    out.flush();
+                } catch (IOException e) {
+                    // already gone
+                }
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Unlike the streams of {@link java.nio.channels.Channels}, reading does not block writing, so a busy worker
+         * can be stopped.
+         */
+        private static InputStream newInputStream(SocketChannel channel) {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+                }
+            };
+        }
+
+        private static OutputStream newOutputStream(SocketChannel channel) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            };
+        }
+
+        private static String getClassPath() throws URISyntaxException {
+            return new File(JavadocWorker.class
+                            .getProtectionDomain()
+                            .getCodeSource()
+                            .getLocation()
+                            .toURI())
+                    .getPath();
+        }
+
+        /**
+         * The worker reports through its socket, anything on its standard streams comes from the JVM itself.
+         */
+        private static void drain(Process process) {
+            Thread drainer = new Thread(
+                    () -> {
+                        try (BufferedReader reader =
+                                new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                LOGGER.debug("[javadoc worker] {}", line);
+                            }
+                        } catch (IOException e) {
+                            // worker is gone
+                        }
+                    },
+                    "javadoc-worker-output");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Matches package directories against the patterns of <code>excludePackageNames</code>, compiled once into a trie of
+ * package name segments, so a directory is matched in time proportional to its depth rather than to the number of
+ * patterns.
+ * <p>
+ * A segment of a pattern is a name or a <code>*</code> wildcard. The wildcards have the meaning of the regular
+ * expressions used so far: for {@link #forFiles(Collection)} a <code>*</code> matches one or more segments, and for
+ * {@link #forPackages(Collection)} a leading <code>*</code> matches one or more segments and any other one exactly
+ * one segment. A pattern with a wildcard inside a segment, e.g. <code>com.foo*</code>, is matched with its regular
+ * expression.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class PackageMatcher {
+    private static final String REGEX_FILE_SEPARATOR = File.separator.replace("\\", "\\\\");
+
+    private final Node root = new Node(false);
+
+    private final List<Pattern> regexes = new ArrayList<>();
+
+    private final List<Integer> regexIndexes = new ArrayList<>();
+
+    private PackageMatcher() {}
+
+    /**
+     * @param excludePackages the package patterns, not null
+     * @return a matcher with the semantics of {@link JavadocUtil#getIncludedFiles(File, String[], Collection)}
+     */
+    static PackageMatcher forFiles(Collection<String> excludePackages) {
+        PackageMatcher matcher = new PackageMatcher();
+        int index = 0;
+        for (String excludePackage : excludePackages) {
+            if (!matcher.add(excludePackage, index, true)) {
+                matcher.addRegex(
+                        excludePackage
+                                .replace('.', File.separatorChar)
+                                .replace("\\", "\\\\")
+                                .replace("*", ".+"),
+                        index);
+            }
+            index++;
+        }
+        return matcher;
+    }
+
+    /**
+     * @param excludePackagenames the package patterns, not null
+     * @return a matcher with the semantics of {@link JavadocUtil#filterExcludedPackages(Collection, Collection)}
+     */
+    static PackageMatcher forPackages(Collection<String> excludePackagenames) {
+        PackageMatcher matcher = new PackageMatcher();
+        int index = 0;
+        for (String excludePackagename : excludePackagenames) {
+            if (!matcher.add(excludePackagename, index, false)) {
+                matcher.addRegex(
+                        excludePackagename
+                                .replace(".", REGEX_FILE_SEPARATOR)
+                                .replaceFirst("^\\*", ".+")
+                                .replace("*", "[^" + REGEX_FILE_SEPARATOR + "]+"),
+                        index);
+            }
+            index++;
+        }
+        return matcher;
+    }
+
+    /**
+     * @param directory a package directory, relative to its source directory with the platform separator
+     * @return <code>true</code> if the directory matches one of the patterns
+     */
+    boolean matches(String directory) {
+        boolean[] matched = new boolean[1];
+        match(directory, index -> matched[0] = true);
+        return matched[0];
+    }
+
+    /**
+     * @param directory a package directory, relative to its source directory with the platform separator
+     * @param action called with the index of every pattern matching the directory, in no particular order
+     */
+    void match(String directory, IntConsumer action) {
+        Set<Node> states = Collections.singleton(root);
+        int start = 0;
+        if (!directory.isEmpty()) {
+            while (!states.isEmpty() && start <= directory.length()) {
+                int end = directory.indexOf(File.separatorChar, start);
+                if (end == -1) {
+                    end = directory.length();
+                }
+                states = next(states, directory.substring(start, end));
+                start = end + 1;
+            }
+        }
+        for (Node state : states) {
+            for (int index : state.patterns) {
+                action.accept(index);
+            }
+        }
+        for (int i = 0; i < regexes.size(); i++) {
+            if (regexes.get(i).matcher(directory).matches()) {
+                action.accept(regexIndexes.get(i));
+            }
+        }
+    }
+
+    private static Set<Node> next(Set<Node> states, String segment) {
+        Set<Node> next = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node state : states) {
+            if (state.repeating) {
+                next.add(state);
+            }
+            if (state.names != null) {
+                Node child = state.names.get(segment);
+                if (child != null) {
+                    next.add(child);
+                }
+            }
+            if (state.anySegment != null && !segment.isEmpty()) {
+                next.add(state.anySegment);
+            }
+            if (state.anySegments != null && !segment.isEmpty()) {
+                next.add(state.anySegments);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return <code>false</code> if the pattern can not be put in the trie
+     */
+    private boolean add(String pattern, int index, boolean starMatchesSegments) {
+        String[] segments = pattern.split("\\.", -1);
+        for (String segment : segments) {
+            if (!isTrieSegment(segment)) {
+                return false;
+            }
+        }
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("*".equals(segment)) {
+                if (starMatchesSegments || i == 0) {
+                    if (node.anySegments == null) {
+                        node.anySegments = new Node(true);
+                    }
+                    node = node.anySegments;
+                } else {
+                    if (node.anySegment == null) {
+                        node.anySegment = new Node(false);
+                    }
+                    node = node.anySegment;
+                }
+            } else {
+                if (node.names == null) {
+                    node.names = new HashMap<>();
+                }
+                node = node.names.computeIfAbsent(segment, s -> new Node(false));
+            }
+        }
+        node.patterns.add(index);
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> for a <code>*</code> or a non empty name without characters special to regular
+     *         expressions or paths
+     */
+    private static boolean isTrieSegment(String segment) {
+        if ("*".equals(segment)) {
+            return true;
+        }
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isJavaIdentifierPart(segment.charAt(i)) || segment.charAt(i) == '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addRegex(String regex, int index) {
+        regexes.add(Pattern.compile(regex));
+        regexIndexes.add(index);
+    }
+
+    private static final class Node {
+        /**
+         * Whether the node was reached by a wildcard matching one or more segments, so it matches further segments.
+         */
+        private final boolean repeating;
+
+        private final List<Integer> patterns = new ArrayList<>(1);
+
+        private Map<String, Node> names;
+
+        private Node anySegment;
+
+        private Node anySegments;
+
+        Node(boolean repeating) {
+            this.repeating = repeating;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The listings of the directories of source trees, remembered between builds in a binary file of the build
+ * directory of a project, so all the goals of the project share it and a <code>clean</code> forgets it.
+ * <p>
+ * A listing holds the names of the regular files and sub directories of a directory, and its modification time at the
+ * time it was listed. Adding, removing or renaming an entry changes the modification time of a directory, so a
+ * directory with the same modification time is not listed again. A directory modified too shortly before it was
+ * listed, within the time granularity of some file systems, is listed again next time.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class SourceInventory {
+    static final String FILE_NAME = "maven-javadoc-plugin-source-inventory";
+
+    private static final int MAGIC = 0x4A445349;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Modification times are as coarse as 2 seconds on some file systems.
+     */
+    private static final long GRANULARITY = 2000;
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final Path file;
+
+    private final Map<String, Map<String, Listing>> roots = new ConcurrentHashMap<>();
+
+    private volatile boolean changed;
+
+    private SourceInventory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return an inventory with no listings, which is never stored
+     */
+    static SourceInventory empty() {
+        return new SourceInventory(null);
+    }
+
+    /**
+     * @param buildDirectory the build directory of the project, not null
+     * @return the inventory of the project, empty if none was stored or if it can not be read
+     */
+    static SourceInventory load(File buildDirectory) {
+        SourceInventory inventory = new SourceInventory(new File(buildDirectory, FILE_NAME).toPath());
+        if (Files.isRegularFile(inventory.file)) {
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(Files.newInputStream(inventory.file), BUFFER_SIZE))) {
+                if (in.readInt() != MAGIC) {
+                    return inventory;
+                }
+                int rootCount = in.readInt();
+                for (int i = 0; i < rootCount; i++) {
+                    String root = in.readUTF();
+                    int directoryCount = in.readInt();
+                    Map<String, Listing> listings = new HashMap<>(directoryCount * 2);
+                    for (int j = 0; j < directoryCount; j++) {
+                        String directory = in.readUTF();
+                        long modified = in.readLong();
+                        String[] names = new String[in.readInt()];
+                        boolean[] directories = new boolean[names.length];
+                        for (int k = 0; k < names.length; k++) {
+                            directories[k] = in.readBoolean();
+                            names[k] = in.readUTF();
+                        }
+                        listings.put(directory, new Listing(modified, names, directories));
+                    }
+                    inventory.roots.put(root, listings);
+                }
+            } catch (IOException | RuntimeException e) {
+                // start over
+                inventory.roots.clear();
+            }
+        }
+        return inventory;
+    }
+
+    /**
+     * @param root a source path, not null
+     * @return the listings of the directories of the source path, by path relative to it, not null
+     */
+    Map<String, Listing> get(Path root) {
+        Map<String, Listing> listings = roots.get(root.toString());
+        return listings != null ? listings : Collections.emptyMap();
+    }
+
+    /**
+     * Replace the listings of a source path, dropping the directories no longer found below it.
+     *
+     * @param root a source path, not null
+     * @param listings the listings of the directories of the source path, by path relative to it, not null
+     */
+    void put(Path root, Map<String, Listing> listings) {
+        Map<String, Listing> previous = roots.put(root.toString(), listings);
+        if (previous == null || !previous.keySet().equals(listings.keySet())) {
+            changed = true;
+        }
+    }
+
+    /**
+     * @param directory a directory, not null
+     * @param modified the modification time of the directory, read before listing it
+     * @return the listing of the directory, its entries sorted by name
+     * @throws IOException if the directory can not be listed
+     */
+    Listing list(Path directory, long modified) throws IOException {
+        long now = System.currentTimeMillis();
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(children::add);
+        }
+        Collections.sort(children);
+
+        List<String> names = new ArrayList<>(children.size());
+        boolean[] directories = new boolean[children.size()];
+        for (Path child : children) {
+            if (Files.isDirectory(child)) {
+                directories[names.size()] = true;
+            } else if (!Files.isRegularFile(child)) {
+                // neither a file nor a directory, or not readable
+                continue;
+            }
+            names.add(child.getFileName().toString());
+        }
+        changed = true;
+        return new Listing(
+                modified > now - GRANULARITY ? UNKNOWN : modified,
+                names.toArray(new String[0]),
+                Arrays.copyOf(directories, names.size()));
+    }
+
+    /**
+     * @return <code>true</code> if directories were listed or dropped since the inventory was loaded
+     */
+    boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Store the inventory, replacing its file atomically. The listings of source paths which no longer exist are
+     * dropped.
+     *
+     * @throws IOException if the file can not be written
+     */
+    void store() throws IOException {
+        if (file == null) {
+            return;
+        }
+        roots.keySet().removeIf(root -> !Files.isDirectory(Paths.get(root)));
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(roots.size());
+                for (Map.Entry<String, Map<String, Listing>> root : roots.entrySet()) {
+                    out.writeUTF(root.getKey());
+                    out.writeInt(root.getValue().size());
+                    for (Map.Entry<String, Listing> directory : root.getValue().entrySet()) {
+                        Listing listing = directory.getValue();
+                        out.writeUTF(directory.getKey());
+                        out.writeLong(listing.modified);
+                        out.writeInt(listing.names.length);
+                        for (int i = 0; i < listing.names.length; i++) {
+                            out.writeBoolean(listing.directories[i]);
+                            out.writeUTF(listing.names[i]);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        changed = false;
+    }
+
+    /**
+     * The entries of a directory, sorted by name.
+     */
+    static final class Listing {
+        private final long modified;
+
+        private final String[] names;
+
+        private final boolean[] directories;
+
+        private Listing(long modified, String[] names, boolean[] directories) {
+            this.modified = modified;
+            this.names = names;
+            this.directories = directories;
+        }
+
+        /**
+         * @param modified the current modification time of the directory
+         * @return <code>true</code> if the directory was not modified since it was listed
+         */
+        boolean isUpToDate(long modified) {
+            return this.modified != UNKNOWN && this.modified == modified;
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        String getName(int index) {
+            return names[index];
+        }
+
+        boolean isDirectory(int index) {
+            return directories[index];
+        }
+    }
+}
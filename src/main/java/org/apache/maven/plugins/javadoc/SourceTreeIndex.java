@@ -0,0 +1,456 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Index of the source trees of one execution. Each source path is walked once, concurrently with the other ones, and
+ * the files, packages and directories of Java files asked for by the execution are computed from that walk and
+ * remembered. Walks only list the directories modified since the {@link SourceInventory} of the previous build.
+ * A source path may also be a source archive, e.g. a <code>-sources.jar</code>, whose files are listed from its
+ * central directory without extracting it.
+ * <p>
+ * Files are selected like {@link JavadocUtil#getFilesFromSource(File, List, List, Collection)} does, with the same
+ * include and exclude patterns as a <code>DirectoryScanner</code>, then without the excluded packages.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class SourceTreeIndex {
+    private static final String MODULE_DESCRIPTOR = "module-info.java";
+
+    /**
+     * Listing directories mostly waits for the file system, e.g. a network one, so use more threads than CPUs.
+     */
+    private static final int PARALLELISM = Math.min(4 * Runtime.getRuntime().availableProcessors(), 32);
+
+    private final List<String> includes;
+
+    private final List<String> excludes;
+
+    private final PackageMatcher excludedPackages;
+
+    private final SourceInventory inventory;
+
+    private final Map<Path, Tree> trees = new ConcurrentHashMap<>();
+
+    private final AtomicInteger listedDirectories = new AtomicInteger();
+
+    /**
+     * @param includes the include patterns of the source files, <code>**&#47;*.java</code> if null
+     * @param excludes the exclude patterns of the source files, may be null
+     * @param excludedPackages the packages to exclude, as in <code>excludePackageNames</code>, not null
+     */
+    SourceTreeIndex(List<String> includes, List<String> excludes, Collection<String> excludedPackages) {
+        this(includes, excludes, excludedPackages, SourceInventory.empty());
+    }
+
+    /**
+     * @param includes the include patterns of the source files, <code>**&#47;*.java</code> if null
+     * @param excludes the exclude patterns of the source files, may be null
+     * @param excludedPackages the packages to exclude, as in <code>excludePackageNames</code>, not null
+     * @param inventory the listings of the previous build, updated by the walks, not null
+     */
+    SourceTreeIndex(
+            List<String> includes,
+            List<String> excludes,
+            Collection<String> excludedPackages,
+            SourceInventory inventory) {
+        this.inventory = inventory;
+        this.includes = normalize(includes != null ? includes : Collections.singletonList("**/*.java"));
+        this.excludes = normalize(excludes != null ? excludes : Collections.emptyList());
+        this.excludedPackages = PackageMatcher.forFiles(excludedPackages);
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return the selected files, relative to the source path and separated by <code>/</code>, not null
+     */
+    List<String> getFiles(Path sourcePath) {
+        return getTree(sourcePath).getFiles();
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return all the regular files, whatever the patterns, relative to the source path with the platform separator
+     */
+    List<String> getAllFiles(Path sourcePath) {
+        return Collections.unmodifiableList(getTree(sourcePath).allFiles);
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @param file a path relative to the source path, separated by <code>/</code>
+     * @return <code>true</code> if the file is one of the selected files
+     */
+    boolean containsFile(Path sourcePath, String file) {
+        return getTree(sourcePath).getFileSet().contains(file);
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return the packages of the selected files, in the order of the files, without <code>doc-files</code>
+     */
+    Set<String> getPackages(Path sourcePath) {
+        return getTree(sourcePath).getPackages();
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return the directories holding Java files, whatever the patterns, relative to the source path
+     */
+    Set<String> getJavaDirectories(Path sourcePath) {
+        return getTree(sourcePath).getJavaDirectories();
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return <code>true</code> if the selected files of the source path include a module descriptor
+     */
+    boolean hasModuleDescriptor(Path sourcePath) {
+        return containsFile(sourcePath, MODULE_DESCRIPTOR);
+    }
+
+    /**
+     * @param sourcePath a source path, not null
+     * @return <code>true</code> if the source path is an archive rather than a directory
+     */
+    static boolean isArchive(Path sourcePath) {
+        return Files.isRegularFile(sourcePath);
+    }
+
+    /**
+     * Walk the given source paths not walked yet, concurrently, on a bounded fork/join pool. Each directory is
+     * listed by its own task, and its entries are sorted by name, so the result doesn't depend on the scheduling.
+     * Archives are listed in the same order.
+     *
+     * @param sourcePaths the source paths, not null
+     * @return the number of source paths walked
+     */
+    int walk(Collection<Path> sourcePaths) {
+        Map<Path, ForkJoinTask<List<String>>> tasks = new LinkedHashMap<>();
+        Map<Path, Map<String, SourceInventory.Listing>> listings = new LinkedHashMap<>();
+        int archives = 0;
+        ForkJoinPool pool = null;
+        try {
+            for (Path sourcePath : sourcePaths) {
+                if (trees.containsKey(sourcePath) || tasks.containsKey(sourcePath)) {
+                    continue;
+                }
+                if (isArchive(sourcePath)) {
+                    trees.putIfAbsent(sourcePath, new Tree(sourcePath, listArchive(sourcePath)));
+                    archives++;
+                    continue;
+                }
+                if (pool == null) {
+                    pool = new ForkJoinPool(PARALLELISM);
+                }
+                Map<String, SourceInventory.Listing> current = new ConcurrentHashMap<>();
+                listings.put(sourcePath, current);
+                tasks.put(
+                        sourcePath,
+                        pool.submit(new DirectoryTask(
+                                sourcePath, sourcePath, Collections.emptySet(), inventory.get(sourcePath), current)));
+            }
+            for (Map.Entry<Path, ForkJoinTask<List<String>>> task : tasks.entrySet()) {
+                trees.putIfAbsent(
+                        task.getKey(), new Tree(task.getKey(), task.getValue().join()));
+                inventory.put(task.getKey(), listings.get(task.getKey()));
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return archives + tasks.size();
+    }
+
+    /**
+     * @return the files of the archive, relative to its root with the platform separator, in the order of a walk
+     */
+    private static List<String> listArchive(Path archive) {
+        List<String> files = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory()
+                        || name.startsWith("/")
+                        || name.contains("\\")
+                        || ("/" + name + "/").contains("/../")) {
+                    continue;
+                }
+                files.add(name);
+            }
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        // segment by segment, as a walk lists the entries of a directory by name
+        files.sort((a, b) -> {
+            String[] left = a.split("/");
+            String[] right = b.split("/");
+            for (int i = 0; i < Math.min(left.length, right.length); i++) {
+                int result = left[i].compareTo(right[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(left.length, right.length);
+        });
+        List<String> relative = new ArrayList<>(files.size());
+        for (String file : files) {
+            relative.add(file.replace('/', File.separatorChar));
+        }
+        return relative;
+    }
+
+    /**
+     * @return the number of directories listed by the walks, the other ones being known from the inventory
+     */
+    int getListedDirectories() {
+        return listedDirectories.get();
+    }
+
+    /**
+     * Store the inventory if walks changed it.
+     *
+     * @throws IOException if the inventory can not be written
+     */
+    void storeInventory() throws IOException {
+        if (inventory.isChanged()) {
+            inventory.store();
+        }
+    }
+
+    private Tree getTree(Path sourcePath) {
+        Tree tree = trees.get(sourcePath);
+        if (tree == null) {
+            walk(Collections.singleton(sourcePath));
+            tree = trees.get(sourcePath);
+        }
+        return tree;
+    }
+
+    /**
+     * Normalize patterns like <code>DirectoryScanner</code> does.
+     */
+    private static List<String> normalize(List<String> patterns) {
+        List<String> normalized = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            String p = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+            if (p.endsWith(File.separator)) {
+                p += "**";
+            }
+            normalized.add(p);
+        }
+        return normalized;
+    }
+
+    private static boolean matches(List<String> patterns, String name) {
+        for (String pattern : patterns) {
+            if (SelectorUtils.matchPath(pattern, name, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the regular files below a directory, following links like <code>DirectoryScanner</code> but not into
+     * one of its own ancestors. Directories not modified since the previous inventory are not listed again. What
+     * can't be read is skipped.
+     */
+    private final class DirectoryTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+
+        private final Path directory;
+
+        private final Set<Object> ancestors;
+
+        private final Map<String, SourceInventory.Listing> previous;
+
+        private final Map<String, SourceInventory.Listing> current;
+
+        DirectoryTask(
+                Path root,
+                Path directory,
+                Set<Object> ancestors,
+                Map<String, SourceInventory.Listing> previous,
+                Map<String, SourceInventory.Listing> current) {
+            this.root = root;
+            this.directory = directory;
+            this.ancestors = ancestors;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        @Override
+        protected List<String> compute() {
+            String relative = root.relativize(directory).toString();
+            Set<Object> keys = ancestors;
+            SourceInventory.Listing listing;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+                Object key = attributes.fileKey();
+                if (key != null) {
+                    if (ancestors.contains(key)) {
+                        return Collections.emptyList();
+                    }
+                    keys = new HashSet<>(ancestors);
+                    keys.add(key);
+                }
+                long modified = attributes.lastModifiedTime().toMillis();
+                listing = previous.get(relative);
+                if (listing == null || !listing.isUpToDate(modified)) {
+                    listing = inventory.list(directory, modified);
+                    listedDirectories.incrementAndGet();
+                }
+            } catch (IOException e) {
+                return Collections.emptyList();
+            }
+            current.put(relative, listing);
+
+            // files and forked sub directory tasks, in name order
+            List<Object> entries = new ArrayList<>(listing.size());
+            for (int i = 0; i < listing.size(); i++) {
+                Path child = directory.resolve(listing.getName(i));
+                if (listing.isDirectory(i)) {
+                    entries.add(new DirectoryTask(root, child, keys, previous, current).fork());
+                } else {
+                    entries.add(root.relativize(child).toString());
+                }
+            }
+
+            List<String> files = new ArrayList<>();
+            for (Object entry : entries) {
+                if (entry instanceof DirectoryTask) {
+                    files.addAll(((DirectoryTask) entry).join());
+                } else {
+                    files.add((String) entry);
+                }
+            }
+            return files;
+        }
+    }
+
+    private final class Tree {
+        private final Path root;
+
+        /**
+         * All regular files, relative to the root with the platform separator, sorted per directory.
+         */
+        private final List<String> allFiles;
+
+        private List<String> files;
+
+        private Set<String> fileSet;
+
+        private Set<String> packages;
+
+        private Set<String> javaDirectories;
+
+        Tree(Path root, List<String> allFiles) {
+            this.root = root;
+            this.allFiles = allFiles;
+        }
+
+        synchronized List<String> getFiles() {
+            if (files == null) {
+                List<String> selected = new ArrayList<>();
+                for (String file : allFiles) {
+                    if (matches(includes, file) && !matches(excludes, file)) {
+                        selected.add(file);
+                    }
+                }
+                files = Collections.unmodifiableList(
+                        JavadocUtil.getIncludedFiles(selected.toArray(new String[0]), excludedPackages));
+            }
+            return files;
+        }
+
+        synchronized Set<String> getFileSet() {
+            if (fileSet == null) {
+                fileSet = new HashSet<>(getFiles());
+            }
+            return fileSet;
+        }
+
+        synchronized Set<String> getPackages() {
+            if (packages == null) {
+                Set<String> names = new LinkedHashSet<>();
+                for (String file : getFiles()) {
+                    /*
+                     * Remove the miscellaneous files
+                     * https://docs.oracle.com/javase/1.4.2/docs/tooldocs/solaris/javadoc.html#unprocessed
+                     */
+                    if (file.contains("doc-files")) {
+                        continue;
+                    }
+                    int lastIndexOfSeparator = file.lastIndexOf('/');
+                    if (lastIndexOfSeparator != -1) {
+                        names.add(file.substring(0, lastIndexOfSeparator).replace('/', '.'));
+                    }
+                }
+                packages = Collections.unmodifiableSet(names);
+            }
+            return packages;
+        }
+
+        synchronized Set<String> getJavaDirectories() {
+            if (javaDirectories == null) {
+                Set<String> directories = new LinkedHashSet<>();
+                for (String file : allFiles) {
+                    if (file.endsWith(".java")) {
+                        int separator = file.lastIndexOf(File.separatorChar);
+                        directories.add(separator != -1 ? file.substring(0, separator) : "");
+                    }
+                }
+                javaDirectories = Collections.unmodifiableSet(directories);
+            }
+            return javaDirectories;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches directory trees for changes, with a {@link WatchService} registered on every directory since watch services
+ * don't watch sub directories. Directories created later are registered when they show up.
+ *
+ * @since 3.12.1
+ */
+final class SourceWatcher implements Closeable {
+    private final WatchService watchService;
+
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+    /**
+     * @param roots the directories to watch, with their sub directories, the missing ones being ignored
+     * @throws IOException if the directories can not be watched
+     */
+    SourceWatcher(Collection<Path> roots) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                register(root);
+            }
+        }
+    }
+
+    /**
+     * @return the number of directories watched
+     */
+    int getDirectoryCount() {
+        return directories.size();
+    }
+
+    /**
+     * Wait for a change, then for the changes following it until none happens for the given quiet period, so
+     * an editor saving several files or a <code>git checkout</code> make one batch.
+     *
+     * @param quietPeriod the quiet period in milliseconds
+     * @return the created, modified and deleted files and directories, in the order of their first change
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException if a created directory can not be watched
+     */
+    Set<Path> awaitChanges(long quietPeriod) throws InterruptedException, IOException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events were lost, the whole directory may have changed
+                    changed.add(directory);
+                    continue;
+                }
+                Path path = directory.resolve((Path) event.context());
+                changed.add(path);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    register(path);
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+            key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void register(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(
+                        dir.register(
+                                watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_DELETE,
+                                StandardWatchEventKinds.ENTRY_MODIFY),
+                        dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -24,7 +24,7 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -34,9 +34,28 @@ import org.codehaus.plexus.util.cli.Commandline;
 /**
  * Helper class to compute and write data used to detect a
  * stale javadoc.
+ * <p>
+ * The data are the Javadoc options, followed by an API fingerprint of each classpath element, and a content digest
+ * of each source path tree and each file in the working directory. The digests are computed by a
+ * {@link ContentSnapshot}, stored next to the data, so unchanged files are not read again. Since only the API of
+ * the classpath is fingerprinted, rebuilding an upstream module whose method bodies changed doesn't make the
+ * javadoc stale.
+ * </p>
+ * <p>
+ * A first stage of the check, with the plugin configuration, the Javadoc Tool, the source paths and the dependencies,
+ * is stored in a <code>.pre</code> file next to the data, to skip the setup of the command line when none changed.
+ * </p>
  */
 public class StaleHelper {
 
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    private static final String PRE_STALE_DATA_EXTENSION = ".pre";
+
+    private static final List<String> CLASS_PATH_OPTIONS = Arrays.asList("-classpath", "--module-path");
+
+    private static final List<String> SOURCE_PATH_OPTIONS = Arrays.asList("-sourcepath", "--source-path");
+
     /**
      * Compute the data used to detect a stale javadoc
      *
@@ -45,6 +64,38 @@ public class StaleHelper {
      * @throws MavenReportException if an error occurs
      */
     public static List<String> getStaleData(Commandline cmd) throws MavenReportException {
+        return getStaleData(cmd, ContentSnapshot.empty());
+    }
+
+    /**
+     * Compute the data used to detect a stale javadoc
+     *
+     * @param cmd the command line
+     * @param snapshot the snapshot computing the digests, not null
+     * @return the stale data
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    static List<String> getStaleData(Commandline cmd, ContentSnapshot snapshot) throws MavenReportException {
+        return getStaleData(cmd, snapshot, true);
+    }
+
+    /**
+     * Compute the data used to detect a stale javadoc, without the source paths and the files of the working
+     * directory, i.e. what must not change for an incremental run.
+     *
+     * @param cmd the command line
+     * @param snapshot the snapshot computing the digests, not null
+     * @return the stale data of the options and of the classpath
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    static List<String> getOptionsData(Commandline cmd, ContentSnapshot snapshot) throws MavenReportException {
+        return getStaleData(cmd, snapshot, false);
+    }
+
+    private static List<String> getStaleData(Commandline cmd, ContentSnapshot snapshot, boolean sources)
+            throws MavenReportException {
         try {
             List<String> ignored = new ArrayList<>();
             List<String> options = new ArrayList<>();
@@ -60,35 +111,35 @@ public class StaleHelper {
                 }
             }
             List<String> state = new ArrayList<>(options);
-            boolean cp = false;
-            boolean sp = false;
+            boolean classPath = false;
+            boolean sourcePath = false;
             for (String arg : options) {
-                if (cp) {
-                    String s = unquote(arg);
-                    for (String ps : s.split(File.pathSeparator)) {
-                        Path p = dir.resolve(ps);
-                        state.add(p + " = " + lastmod(p));
-                    }
-                } else if (sp) {
+                if (classPath || (sourcePath && sources)) {
                     String s = unquote(arg);
                     for (String ps : s.split(File.pathSeparator)) {
                         Path p = dir.resolve(ps);
-                        for (Path c : walk(p)) {
-                            if (Files.isRegularFile(c)) {
-                                state.add(c + " = " + lastmod(c));
-                            }
-                        }
-                        state.add(p + " = " + lastmod(p));
+                        state.add(p + " = " + (classPath ? snapshot.apiDigest(p) : snapshot.digest(p)));
                     }
                 }
-                cp = "-classpath".equals(arg);
-                sp = "-sourcepath".equals(arg);
+                classPath = CLASS_PATH_OPTIONS.contains(arg);
+                sourcePath = SOURCE_PATH_OPTIONS.contains(arg);
+            }
+            if (!sources) {
+                return state;
             }
-            for (Path p : walk(dir)) {
-                if (Files.isRegularFile(p) && !ignored.contains(p.getFileName().toString())) {
-                    state.add(p + " = " + lastmod(p));
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dir)) {
+                for (Path p : directoryStream) {
+                    if (Files.isRegularFile(p)
+                            && !ignored.contains(p.getFileName().toString())) {
+                        files.add(p);
+                    }
                 }
             }
+            Collections.sort(files);
+            for (Path p : files) {
+                state.add(p + " = " + snapshot.digest(p));
+            }
             return state;
         } catch (Exception e) {
             throw new MavenReportException("Unable to compute stale date", e);
@@ -103,27 +154,98 @@ public class StaleHelper {
      * @throws MavenReportException if an error occurs
      */
     public static void writeStaleData(Commandline cmd, Path path) throws MavenReportException {
+        writeStaleData(cmd, path, readSnapshot(path));
+    }
+
+    /**
+     * Write the data used to detect a stale javadoc, and the snapshot of their digests.
+     *
+     * @param cmd the command line
+     * @param path the stale data path
+     * @param snapshot the snapshot computing the digests, not null
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    static void writeStaleData(Commandline cmd, Path path, ContentSnapshot snapshot) throws MavenReportException {
         try {
-            List<String> curdata = getStaleData(cmd);
+            List<String> curdata = getStaleData(cmd, snapshot);
             Files.createDirectories(path.getParent());
             Files.write(path, curdata, EncodingUtils.getExpectedEncoding());
+            snapshot.write(getSnapshotPath(path));
         } catch (IOException e) {
             throw new MavenReportException("Error checking stale data", e);
         }
     }
 
-    private static Collection<Path> walk(Path dir) {
-        Collection<Path> paths = new ArrayList<>();
-        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dir)) {
-            for (Path p : directoryStream) {
-                paths.add(p);
+    /**
+     * @param path the stale data path
+     * @return a snapshot reusing the digests stored with the stale data, not null
+     * @since 3.12.1
+     */
+    static ContentSnapshot readSnapshot(Path path) {
+        return ContentSnapshot.read(getSnapshotPath(path));
+    }
+
+    /**
+     * Store the snapshot with the stale data if files had to be hashed, e.g. after a fresh checkout.
+     *
+     * @param path the stale data path
+     * @param snapshot not null
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    static void updateSnapshot(Path path, ContentSnapshot snapshot) throws MavenReportException {
+        if (snapshot.isHashed()) {
+            try {
+                snapshot.write(getSnapshotPath(path));
+            } catch (IOException e) {
+                throw new MavenReportException("Error writing stale data snapshot", e);
             }
-            return paths;
+        }
+    }
+
+    /**
+     * @param path the stale data path
+     * @return the data of the first stage of the stale check stored with the stale data, or <code>null</code>
+     * @since 3.12.1
+     */
+    static List<String> readPreStaleData(Path path) {
+        Path preStaleDataPath = getPreStaleDataPath(path);
+        if (!Files.isRegularFile(preStaleDataPath)) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(preStaleDataPath, EncodingUtils.getExpectedEncoding());
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            return null;
         }
     }
 
+    /**
+     * Write the data of the first stage of the stale check, computed before the expensive setup of the command line.
+     *
+     * @param path the stale data path
+     * @param data the data, not null
+     * @throws MavenReportException if an error occurs
+     * @since 3.12.1
+     */
+    static void writePreStaleData(Path path, List<String> data) throws MavenReportException {
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(getPreStaleDataPath(path), data, EncodingUtils.getExpectedEncoding());
+        } catch (IOException e) {
+            throw new MavenReportException("Error writing stale data", e);
+        }
+    }
+
+    private static Path getPreStaleDataPath(Path path) {
+        return path.resolveSibling(path.getFileName() + PRE_STALE_DATA_EXTENSION);
+    }
+
+    private static Path getSnapshotPath(Path path) {
+        return path.resolveSibling(path.getFileName() + SNAPSHOT_EXTENSION);
+    }
+
     private static String unquote(String s) {
         if (s.startsWith("'") && s.endsWith("'")) {
             return s.substring(1, s.length() - 1).replaceAll("\\\\'", "'");
@@ -131,12 +253,4 @@ public class StaleHelper {
             return s;
         }
     }
-
-    private static long lastmod(Path p) {
-        try {
-            return Files.getLastModifiedTime(p).toMillis();
-        } catch (IOException e) {
-            return 0;
-        }
-    }
 }
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.plugins.javadoc.JavadocSessionCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the <code>-sources</code>, <code>-test-sources</code> and <code>javadoc-resources</code> artifacts which
+ * were not found in the remote repositories, so they are not looked for again on every build. Most dependencies
+ * don't have them, and each miss is a round trip to every remote repository.
+ * <p>
+ * Misses are stored in a file of the local repository, keyed by coordinates and remote repositories, with the time
+ * they were found. A miss is trusted for a given time, then the artifact is looked for again. Offline builds trust
+ * all misses, whatever their age, and don't record new ones since they can't tell. Builds forcing updates, e.g. with
+ * <code>-U</code>, look for all the artifacts again.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class MissingArtifactCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MissingArtifactCache.class);
+
+    static final String FILE_NAME = ".cache/maven-javadoc-plugin/missing-artifacts.properties";
+
+    private static final String UPDATE_POLICY_ALWAYS = "always";
+
+    private final Path file;
+
+    private Properties persistedMisses;
+
+    /**
+     * @param file the file persisting the misses, not null
+     */
+    MissingArtifactCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param sessionCache not null
+     * @param session not null
+     * @return the cache of the given session, created on first use, or <code>null</code> without local repository
+     */
+    static MissingArtifactCache getInstance(JavadocSessionCache sessionCache, RepositorySystemSession session) {
+        if (session.getLocalRepository() == null) {
+            return null;
+        }
+        return sessionCache.getInstance(session, MissingArtifactCache.class, () -> {
+            File file = new File(session.getLocalRepository().getBasedir(), FILE_NAME);
+            return new MissingArtifactCache(file.toPath());
+        });
+    }
+
+    /**
+     * @param session the session of the request, not null
+     * @param request the request of an artifact, not null
+     * @param timeToLive how long a miss is trusted, in milliseconds
+     * @return <code>true</code> if the artifact was recently not found in the repositories of the request
+     */
+    synchronized boolean isMissing(RepositorySystemSession session, ArtifactRequest request, long timeToLive) {
+        if (UPDATE_POLICY_ALWAYS.equals(session.getUpdatePolicy())) {
+            return false;
+        }
+        String value = getPersistedMisses().getProperty(getKey(request));
+        if (value == null) {
+            return false;
+        }
+        try {
+            return session.isOffline() || Long.parseLong(value) > System.currentTimeMillis() - timeToLive;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Record the artifacts not found, and forget the found ones.
+     *
+     * @param session the session of the results, not null
+     * @param results the results of the resolution, not null
+     * @param timeToLive how long a miss is trusted, in milliseconds, to drop the expired ones
+     */
+    synchronized void update(RepositorySystemSession session, Collection<ArtifactResult> results, long timeToLive) {
+        if (session.isOffline()) {
+            return;
+        }
+        List<String> missing = new ArrayList<>();
+        List<String> found = new ArrayList<>();
+        for (ArtifactResult result : results) {
+            if (result.isResolved()) {
+                found.add(getKey(result.getRequest()));
+            } else if (isNotFound(result)) {
+                missing.add(getKey(result.getRequest()));
+            }
+        }
+        if (missing.isEmpty() && found.stream().noneMatch(getPersistedMisses()::containsKey)) {
+            return;
+        }
+
+        // other builds may have added misses meanwhile
+        persistedMisses = null;
+        Properties properties = getPersistedMisses();
+        long now = System.currentTimeMillis();
+        properties.entrySet().removeIf(e -> isExpired((String) e.getValue(), now - timeToLive));
+        for (String key : found) {
+            properties.remove(key);
+        }
+        for (String key : missing) {
+            properties.setProperty(key, Long.toString(now));
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    properties.store(out, "Artifacts not found, by coordinates and remote repositories");
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to write {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @return <code>true</code> if every repository told the artifact doesn't exist, a transfer error not being a miss
+     */
+    private static boolean isNotFound(ArtifactResult result) {
+        if (result.getExceptions().isEmpty()) {
+            return false;
+        }
+        for (Exception e : result.getExceptions()) {
+            if (!(e instanceof ArtifactNotFoundException)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExpired(String value, long limit) {
+        try {
+            return Long.parseLong(value) <= limit;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return the coordinates of the artifact and the remote repositories of the request
+     */
+    static String getKey(ArtifactRequest request) {
+        Artifact artifact = request.getArtifact();
+        StringBuilder repositories = new StringBuilder();
+        for (RemoteRepository repository : request.getRepositories()) {
+            repositories
+                    .append(repository.getId())
+                    .append('=')
+                    .append(repository.getUrl())
+                    .append(',');
+        }
+        return artifact.getGroupId()
+                + ':'
+                + artifact.getArtifactId()
+                + ':'
+                + artifact.getExtension()
+                + ':'
+                + artifact.getClassifier()
+                + ':'
+                + artifact.getVersion()
+                + '@'
+                + String.format("%08x", repositories.toString().hashCode());
+    }
+
+    private Properties getPersistedMisses() {
+        if (persistedMisses == null) {
+            persistedMisses = new Properties();
+            if (Files.isRegularFile(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    persistedMisses.load(in);
+                } catch (IOException | IllegalArgumentException e) {
+                    LOGGER.debug("Unable to read {}: {}", file, e.getMessage());
+                    persistedMisses.clear();
+                }
+            }
+        }
+        return persistedMisses;
+    }
+}
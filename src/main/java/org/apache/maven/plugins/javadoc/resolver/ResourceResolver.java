@@ -31,10 +31,19 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
 
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
@@ -43,6 +52,7 @@ import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.plugins.javadoc.AbstractJavadocMojo;
 import org.apache.maven.plugins.javadoc.JavadocModule;
+import org.apache.maven.plugins.javadoc.JavadocSessionCache;
 import org.apache.maven.plugins.javadoc.JavadocUtil;
 import org.apache.maven.plugins.javadoc.ResourcesBundleMojo;
 import org.apache.maven.plugins.javadoc.options.JavadocOptions;
@@ -54,6 +64,7 @@ import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
 import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
@@ -78,6 +89,9 @@ public final class ResourceResolver {
     @Inject
     private ArchiverManager archiverManager;
 
+    @Inject
+    private JavadocSessionCache sessionCache;
+
     /**
      * The classifier for sources.
      */
@@ -95,6 +109,11 @@ public final class ResourceResolver {
             AbstractJavadocMojo.JAVADOC_RESOURCES_ATTACHMENT_CLASSIFIER,
             AbstractJavadocMojo.TEST_JAVADOC_RESOURCES_ATTACHMENT_CLASSIFIER);
 
+    /**
+     * The maximum number of threads unpacking artifacts.
+     */
+    private static final int UNPACK_THREADS = Runtime.getRuntime().availableProcessors();
+
     /**
      * @param config {@link SourceResolverConfig}
      * @return list of {@link JavadocBundle}.
@@ -146,23 +165,47 @@ public final class ResourceResolver {
 
         final List<Artifact> artifacts = config.project().getTestArtifacts();
 
+        // the source artifacts of all the dependencies are resolved together
+        final Map<Artifact, List<org.eclipse.aether.artifact.Artifact>> sourceArtifacts = new LinkedHashMap<>();
+        final List<org.eclipse.aether.artifact.Artifact> toResolve = new ArrayList<>();
+        for (final Artifact artifact : artifacts) {
+            if (projectMap.get(ArtifactUtils.key(artifact)) == null) {
+                List<org.eclipse.aether.artifact.Artifact> sources = createSourceArtifacts(config, artifact);
+                if (sources != null) {
+                    sourceArtifacts.put(artifact, sources);
+                    toResolve.addAll(sources);
+                }
+            }
+        }
+        final Map<org.eclipse.aether.artifact.Artifact, Path> unpacked = resolveAndUnpack(
+                toResolve,
+                config,
+                SOURCE_VALID_CLASSIFIERS,
+                true,
+                config.includeArchives(),
+                new SourceFileSelector(config.excludedPackages()));
+
         for (final Artifact artifact : artifacts) {
             final String key = ArtifactUtils.key(artifact);
             final MavenProject p = projectMap.get(key);
             if (p != null) {
                 mappedDirs.add(new JavadocModule(key, artifact.getFile(), resolveFromProject(config, p, artifact)));
-            } else {
-                JavadocModule m = resolveFromArtifact(config, artifact);
-                if (m != null) {
-                    mappedDirs.add(m);
+            } else if (sourceArtifacts.containsKey(artifact)) {
+                Collection<Path> sourcePaths = new ArrayList<>();
+                for (org.eclipse.aether.artifact.Artifact sources : sourceArtifacts.get(artifact)) {
+                    Path sourcePath = unpacked.get(sources);
+                    if (sourcePath != null && !sourcePaths.contains(sourcePath)) {
+                        sourcePaths.add(sourcePath);
+                    }
                 }
+                mappedDirs.add(new JavadocModule(key, artifact.getFile(), sourcePaths));
             }
         }
 
         return mappedDirs;
     }
 
-    private static List<JavadocBundle> resolveBundleFromProject(
+    private List<JavadocBundle> resolveBundleFromProject(
             SourceResolverConfig config, MavenProject project, Artifact artifact) throws IOException {
         List<JavadocBundle> bundles = new ArrayList<>();
 
@@ -182,15 +225,10 @@ public final class ResourceResolver {
                 continue;
             }
 
-            try (FileInputStream stream = new FileInputStream(optionsFile)) {
-                JavadocOptions options = new JavadocOptionsXpp3Reader().read(stream);
-                bundles.add(new JavadocBundle(
-                        options, new File(project.getBasedir(), options.getJavadocResourcesDirectory())));
-            } catch (XmlPullParserException e) {
-                IOException error = new IOException(
-                        "Failed to read javadoc options from: " + optionsFile + "\nReason: " + e.getMessage(), e);
-                throw error;
-            }
+            JavadocOptions options = readJavadocOptions(
+                    config, optionsFile, "Failed to read javadoc options from: " + optionsFile + "\nReason: ");
+            bundles.add(
+                    new JavadocBundle(options, new File(project.getBasedir(), options.getJavadocResourcesDirectory())));
         }
 
         return bundles;
@@ -221,7 +259,9 @@ public final class ResourceResolver {
 
         Collection<Path> dirs = new ArrayList<>(toResolve.size());
         try {
-            dirs = resolveAndUnpack(toResolve, config, RESOURCE_VALID_CLASSIFIERS, false);
+            Map<org.eclipse.aether.artifact.Artifact, Path> unpacked =
+                    resolveAndUnpack(toResolve, config, RESOURCE_VALID_CLASSIFIERS, false, false, null);
+            dirs = new LinkedHashSet<>(unpacked.values());
         } catch (ArtifactResolutionException e) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(e.getMessage(), e);
@@ -237,12 +277,7 @@ public final class ResourceResolver {
 
             File javadocOptions = new File(dir, ResourcesBundleMojo.BUNDLE_OPTIONS_PATH);
             if (javadocOptions.exists()) {
-                try (FileInputStream reader = new FileInputStream(javadocOptions)) {
-                    options = new JavadocOptionsXpp3Reader().read(reader);
-                } catch (XmlPullParserException e) {
-                    IOException error = new IOException("Failed to parse javadoc options: " + e.getMessage(), e);
-                    throw error;
-                }
+                options = readJavadocOptions(config, javadocOptions, "Failed to parse javadoc options: ");
             }
 
             result.add(new JavadocBundle(options, resources));
@@ -251,8 +286,32 @@ public final class ResourceResolver {
         return result;
     }
 
-    private JavadocModule resolveFromArtifact(final SourceResolverConfig config, final Artifact artifact)
-            throws ArtifactResolutionException, ArtifactNotFoundException {
+    /**
+     * Read the options of a bundle, once per session as long as the file doesn't change.
+     *
+     * @param errorMessage the start of the message of the error thrown if the file is malformed
+     */
+    private JavadocOptions readJavadocOptions(SourceResolverConfig config, File file, String errorMessage)
+            throws IOException {
+        JavadocSessionCache.Loader<JavadocOptions, IOException> loader = () -> {
+            try (FileInputStream stream = new FileInputStream(file)) {
+                return new JavadocOptionsXpp3Reader().read(stream);
+            } catch (XmlPullParserException e) {
+                throw new IOException(errorMessage + e.getMessage(), e);
+            }
+        };
+        if (sessionCache == null || config.getBuildingRequest() == null) {
+            return loader.load();
+        }
+        String key = file.getAbsolutePath() + '@' + file.lastModified() + ':' + file.length();
+        return sessionCache.get(config.getBuildingRequest().getRepositorySession(), "bundle options", key, loader);
+    }
+
+    /**
+     * @return the source artifacts of the artifact, or <code>null</code> if the artifact is filtered out
+     */
+    private List<org.eclipse.aether.artifact.Artifact> createSourceArtifacts(
+            final SourceResolverConfig config, final Artifact artifact) {
         final List<org.eclipse.aether.artifact.Artifact> toResolve = new ArrayList<>(2);
 
         if (config.filter() != null
@@ -270,9 +329,7 @@ public final class ResourceResolver {
             toResolve.add(createResourceArtifact(artifact, TEST_SOURCES_CLASSIFIER, config));
         }
 
-        Collection<Path> sourcePaths = resolveAndUnpack(toResolve, config, SOURCE_VALID_CLASSIFIERS, true);
-
-        return new JavadocModule(ArtifactUtils.key(artifact), artifact.getFile(), sourcePaths);
+        return toResolve;
     }
 
     private org.eclipse.aether.artifact.Artifact createResourceArtifact(
@@ -282,23 +339,27 @@ public final class ResourceResolver {
     }
 
     /**
+     * Resolve the artifacts with a single request, then unpack them concurrently. Artifacts which can not be resolved
+     * are skipped.
      *
      * @param artifacts the artifacts to resolve
      * @param config the configuration
-     * @param validClassifiers
-     * @param propagateErrors
-     * @return list of <dependencyConflictId, absolutePath>
-     * @throws ArtifactResolutionException if an exception occurs
+     * @param validClassifiers the classifiers of the artifacts to resolve, the other ones being skipped
+     * @param propagateErrors <code>true</code> to fail if an artifact can not be unpacked, <code>false</code> to skip
+     *            it
+     * @param keepArchives <code>true</code> to return the archives without module descriptor rather than unpack them
+     * @param selector the entries of the archives to unpack, all of them if null
+     * @return the directories of the unpacked artifacts, or the archives, in the order of the artifacts
+     * @throws ArtifactResolutionException if an artifact can not be unpacked and <code>propagateErrors</code> is set
      */
-    private Collection<Path> resolveAndUnpack(
+    private Map<org.eclipse.aether.artifact.Artifact, Path> resolveAndUnpack(
             final List<org.eclipse.aether.artifact.Artifact> artifacts,
             final SourceResolverConfig config,
             final List<String> validClassifiers,
-            final boolean propagateErrors)
+            final boolean propagateErrors,
+            final boolean keepArchives,
+            final SourceFileSelector selector)
             throws ArtifactResolutionException {
-        // NOTE: Since these are '-sources' and '-test-sources' artifacts, they won't actually
-        // resolve transitively...this is just used to aggregate resolution failures into a single
-        // exception.
         final Set<org.eclipse.aether.artifact.Artifact> artifactSet = new LinkedHashSet<>(artifacts);
 
         final DependencyFilter filter;
@@ -308,54 +369,208 @@ public final class ResourceResolver {
             filter = null;
         }
 
-        final List<Path> result = new ArrayList<>(artifacts.size());
+        final RepositorySystemSession repoSession = config.getBuildingRequest().getRepositorySession();
+        final long timeToLive = config.missingArtifactsTimeToLive();
+        final MissingArtifactCache missingArtifacts = timeToLive > 0
+                ? MissingArtifactCache.getInstance(
+                        sessionCache != null ? sessionCache : new JavadocSessionCache(), repoSession)
+                : null;
+
+        final List<ArtifactRequest> requests = new ArrayList<>(artifactSet.size());
+        int knownMissing = 0;
         for (final org.eclipse.aether.artifact.Artifact a : artifactSet) {
             if (!validClassifiers.contains(a.getClassifier())
                     || (filter != null && !filter.accept(new DefaultDependencyNode(a), Collections.emptyList()))) {
                 continue;
             }
-
-            Artifact resolvedArtifact;
-            ArtifactRequest req = new ArtifactRequest(a, config.project().getRemoteProjectRepositories(), null);
-            try {
-                RepositorySystemSession repoSession =
-                        config.getBuildingRequest().getRepositorySession();
-                ArtifactResult resolutionResult = repoSystem.resolveArtifact(repoSession, req);
-                resolvedArtifact = RepositoryUtils.toArtifact(resolutionResult.getArtifact());
-            } catch (org.eclipse.aether.resolution.ArtifactResolutionException e) {
+            ArtifactRequest request = new ArtifactRequest(a, config.project().getRemoteProjectRepositories(), null);
+            if (missingArtifacts != null && missingArtifacts.isMissing(repoSession, request, timeToLive)) {
+                knownMissing++;
                 continue;
             }
-            final File d = new File(
-                    config.outputBasedir(), a.getArtifactId() + "-" + a.getVersion() + "-" + a.getClassifier());
+            requests.add(request);
+        }
+        if (knownMissing > 0) {
+            LOGGER.debug("Skipping {} artifacts not found by a previous build", knownMissing);
+        }
+        if (requests.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<ArtifactResult> results;
+        try {
+            results = repoSystem.resolveArtifacts(repoSession, requests);
+        } catch (org.eclipse.aether.resolution.ArtifactResolutionException e) {
+            // keep the artifacts which could be resolved
+            results = e.getResults();
+        }
+        if (missingArtifacts != null) {
+            missingArtifacts.update(repoSession, results, timeToLive);
+        }
 
+        // artifacts unpacked in the same directory are unpacked by the same task, one after the other
+        final SourceArchiveCache cache = config.sharedCache();
+        final Map<Object, List<ArtifactResult>> groups = new LinkedHashMap<>();
+        for (final ArtifactResult result : results) {
+            if (result.isResolved()) {
+                Object key = cache != null || keepArchives ? result.getArtifact() : getUnpackDirectory(config, result);
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+            }
+        }
+
+        final Map<Object, Future<Path>> unpacking = new LinkedHashMap<>();
+        ExecutorService executor = null;
+        try {
+            for (final Map.Entry<Object, List<ArtifactResult>> group : groups.entrySet()) {
+                Callable<Path> task = () -> unpack(config, group.getValue(), keepArchives, selector);
+                if (groups.size() == 1) {
+                    FutureTask<Path> future = new FutureTask<>(task);
+                    future.run();
+                    unpacking.put(group.getKey(), future);
+                } else {
+                    if (executor == null) {
+                        executor = newUnpackExecutor(groups.size());
+                    }
+                    unpacking.put(group.getKey(), executor.submit(task));
+                }
+            }
+
+            final Map<org.eclipse.aether.artifact.Artifact, Path> result = new LinkedHashMap<>();
+            for (final Map.Entry<Object, Future<Path>> entry : unpacking.entrySet()) {
+                Path directory;
+                try {
+                    directory = getUnpacked(entry.getValue());
+                } catch (ArtifactResolutionException e) {
+                    if (propagateErrors) {
+                        throw e;
+                    }
+                    continue;
+                }
+                for (ArtifactResult artifactResult : groups.get(entry.getKey())) {
+                    result.put(artifactResult.getRequest().getArtifact(), directory);
+                }
+            }
+            return result;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static File getUnpackDirectory(SourceResolverConfig config, ArtifactResult result) {
+        org.eclipse.aether.artifact.Artifact a = result.getRequest().getArtifact();
+        return new File(config.outputBasedir(), a.getArtifactId() + "-" + a.getVersion() + "-" + a.getClassifier());
+    }
+
+    /**
+     * @param config the configuration
+     * @param results the resolved artifacts to unpack to the same directory, only one with a shared cache or when
+     *            keeping archives
+     * @param keepArchives <code>true</code> to return the archive rather than unpack it if it has no module descriptor
+     * @param selector the entries of the archives to unpack, all of them if null
+     * @return the directory of the unpacked artifacts, or the archive
+     * @throws ArtifactResolutionException if an artifact can not be unpacked
+     */
+    private Path unpack(
+            SourceResolverConfig config,
+            List<ArtifactResult> results,
+            boolean keepArchives,
+            SourceFileSelector selector)
+            throws ArtifactResolutionException {
+        ArtifactResult current = results.get(0);
+        if (keepArchives && !hasModuleDescriptor(current.getArtifact().getFile())) {
+            return current.getArtifact().getFile().toPath().toAbsolutePath();
+        }
+        try {
+            SourceArchiveCache cache = config.sharedCache();
+            if (cache != null) {
+                final ArtifactResult cached = current;
+                try {
+                    return cache.get(
+                            cached.getArtifact().getFile(),
+                            selector != null ? selector.getVariant() : null,
+                            d -> extract(cached, d, selector));
+                } catch (IOException e) {
+                    LOGGER.debug(
+                            "Unable to use the cache {} for {}: {}",
+                            cache.getDirectory(),
+                            cached.getArtifact(),
+                            e.getMessage());
+                }
+            }
+
+            File d = getUnpackDirectory(config, current);
             if (!d.exists()) {
                 d.mkdirs();
             }
+            for (ArtifactResult artifactResult : results) {
+                current = artifactResult;
+                extract(artifactResult, d, selector);
+            }
+            return d.toPath().toAbsolutePath();
+        } catch (final NoSuchArchiverException e) {
+            org.eclipse.aether.artifact.Artifact a = current.getRequest().getArtifact();
+            throw new ArtifactResolutionException(
+                    "Failed to retrieve valid un-archiver component: " + a.getExtension(),
+                    RepositoryUtils.toArtifact(a),
+                    e);
+        } catch (final ArchiverException e) {
+            org.eclipse.aether.artifact.Artifact a = current.getRequest().getArtifact();
+            throw new ArtifactResolutionException("Failed to unpack: " + a, RepositoryUtils.toArtifact(a), e);
+        }
+    }
 
-            try {
-                final UnArchiver unArchiver = archiverManager.getUnArchiver(a.getExtension());
+    /**
+     * @return <code>true</code> if the archive has a module descriptor, or can not be read as a zip file
+     */
+    private static boolean hasModuleDescriptor(File archive) {
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            return zipFile.getEntry("module-info.java") != null;
+        } catch (IOException e) {
+            return true;
+        }
+    }
 
-                unArchiver.setDestDirectory(d);
-                unArchiver.setSourceFile(resolvedArtifact.getFile());
+    private void extract(ArtifactResult artifactResult, File d, SourceFileSelector selector)
+            throws NoSuchArchiverException, ArchiverException {
+        final UnArchiver unArchiver = archiverManager.getUnArchiver(
+                artifactResult.getRequest().getArtifact().getExtension());
 
-                unArchiver.extract();
+        if (selector != null) {
+            unArchiver.setFileSelectors(new FileSelector[] {selector});
+        }
 
-                result.add(d.toPath().toAbsolutePath());
-            } catch (final NoSuchArchiverException e) {
-                if (propagateErrors) {
-                    throw new ArtifactResolutionException(
-                            "Failed to retrieve valid un-archiver component: " + a.getExtension(),
-                            RepositoryUtils.toArtifact(a),
-                            e);
-                }
-            } catch (final ArchiverException e) {
-                if (propagateErrors) {
-                    throw new ArtifactResolutionException("Failed to unpack: " + a, RepositoryUtils.toArtifact(a), e);
-                }
+        unArchiver.setDestDirectory(d);
+        unArchiver.setSourceFile(artifactResult.getArtifact().getFile());
+
+        unArchiver.extract();
+    }
+
+    private static Path getUnpacked(Future<Path> future) throws ArtifactResolutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while unpacking the artifacts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ArtifactResolutionException) {
+                throw (ArtifactResolutionException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
             }
+            throw (RuntimeException) e.getCause();
         }
+    }
 
-        return result;
+    private static ExecutorService newUnpackExecutor(int tasks) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(tasks, UNPACK_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "javadoc-unpack-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private static Collection<Path> resolveFromProject(
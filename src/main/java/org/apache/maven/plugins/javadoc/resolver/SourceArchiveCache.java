@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of unpacked archives shared by all the modules and builds using the same directory, by default in the
+ * local repository, so the <code>-sources</code> of a dependency are unpacked once rather than once per module and
+ * per build.
+ * <p>
+ * Entries are named after the SHA-256 digest of the archive, and of the way it is unpacked. An archive is unpacked to a
+ * temporary directory which is then renamed to its entry, so concurrent builds never see a partially unpacked entry:
+ * the first rename wins and the other builds use its entry. Using an entry updates its modification time, and when the
+ * cache grows beyond its maximum size the least recently used entries are evicted. Entries used within the last hour
+ * are never evicted, as another build may be reading them.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+final class SourceArchiveCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceArchiveCache.class);
+
+    /**
+     * The default directory of the cache, relative to the local repository.
+     */
+    static final String DIRECTORY = ".cache/maven-javadoc-plugin/sources";
+
+    private static final String SIZE_EXTENSION = ".size";
+
+    private static final String TMP_EXTENSION = ".tmp";
+
+    private static final long IN_USE_PERIOD = 60 * 60 * 1000L;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The digests of the archives by path, size and modification time.
+     */
+    private static final Map<String, String> DIGESTS = new ConcurrentHashMap<>();
+
+    /**
+     * The entries being unpacked in this JVM, so an archive is unpacked once even when modules use it concurrently.
+     */
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    /**
+     * @param directory the directory of the cache, not null
+     * @param maxSize the maximum size of the cache in bytes
+     */
+    SourceArchiveCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the directory of the cache
+     */
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the entry of an archive, unpacking it first if needed.
+     *
+     * @param archive the archive, not null
+     * @param extractor unpacks the archive to a given directory
+     * @return the directory of the unpacked archive, not to be modified
+     * @throws IOException if the cache can not be read or written
+     * @throws NoSuchArchiverException if the archive can not be unpacked
+     * @throws ArchiverException if the archive can not be unpacked
+     */
+    Path get(File archive, Extractor extractor) throws IOException, NoSuchArchiverException, ArchiverException {
+        return get(archive, null, extractor);
+    }
+
+    /**
+     * Get the entry of an archive unpacked in a given way, unpacking it first if needed.
+     *
+     * @param archive the archive, not null
+     * @param variant tells apart the entries of the same archive unpacked in different ways, may be null
+     * @param extractor unpacks the archive to a given directory, as told by the variant
+     * @return the directory of the unpacked archive, not to be modified
+     * @throws IOException if the cache can not be read or written
+     * @throws NoSuchArchiverException if the archive can not be unpacked
+     * @throws ArchiverException if the archive can not be unpacked
+     */
+    Path get(File archive, String variant, Extractor extractor)
+            throws IOException, NoSuchArchiverException, ArchiverException {
+        Path entry = directory.resolve(digest(archive) + (variant != null ? "-" + variant : ""));
+        Object lock = LOCKS.computeIfAbsent(entry, k -> new Object());
+        synchronized (lock) {
+            try {
+                if (Files.isDirectory(entry)) {
+                    touch(entry);
+                    return entry;
+                }
+                if (unpack(archive, extractor, entry)) {
+                    evict(entry);
+                }
+                return entry;
+            } finally {
+                LOCKS.remove(entry, lock);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the entry was published by this call
+     */
+    private boolean unpack(File archive, Extractor extractor, Path entry)
+            throws IOException, NoSuchArchiverException, ArchiverException {
+        Files.createDirectories(directory);
+        Path tmp = directory.resolve(entry.getFileName() + "." + UUID.randomUUID() + TMP_EXTENSION);
+        try {
+            Files.createDirectories(tmp);
+            extractor.extract(tmp.toFile());
+            long size = size(tmp);
+            try {
+                Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // another build published it meanwhile
+                LOGGER.debug("{} was unpacked concurrently to {}", archive, entry);
+                touch(entry);
+                return false;
+            } catch (IOException e) {
+                if (!Files.isDirectory(entry)) {
+                    throw e;
+                }
+                // renaming a directory over a non empty one fails with DirectoryNotEmptyException or AccessDenied
+                touch(entry);
+                return false;
+            }
+            Files.write(sizeFile(entry), Long.toString(size).getBytes(StandardCharsets.US_ASCII));
+            LOGGER.debug("Unpacked {} to {}", archive, entry);
+            return true;
+        } finally {
+            delete(tmp);
+        }
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits in its maximum size.
+     *
+     * @param published the entry just published, never evicted
+     */
+    private void evict(Path published) {
+        long now = System.currentTimeMillis();
+        List<Path> entries = new ArrayList<>();
+        Map<Path, Long> lastUses = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                if (name.endsWith(SIZE_EXTENSION) || !Files.isDirectory(child)) {
+                    continue;
+                }
+                long lastUse = Files.getLastModifiedTime(child).toMillis();
+                if (name.endsWith(TMP_EXTENSION)) {
+                    // left over by a build which was killed while unpacking
+                    if (lastUse < now - IN_USE_PERIOD) {
+                        delete(child);
+                    }
+                    continue;
+                }
+                total += readSize(child);
+                if (!child.equals(published) && lastUse < now - IN_USE_PERIOD) {
+                    entries.add(child);
+                    lastUses.put(child, lastUse);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to list the entries of {}: {}", directory, e.getMessage());
+            return;
+        }
+
+        entries.sort(Comparator.comparing(lastUses::get));
+        for (Path entry : entries) {
+            if (total <= maxSize) {
+                break;
+            }
+            long size = readSize(entry);
+            Path evicted = directory.resolve(entry.getFileName() + "." + UUID.randomUUID() + TMP_EXTENSION);
+            try {
+                // renamed first so no build sees a partially deleted entry
+                Files.move(entry, evicted, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(sizeFile(entry));
+                delete(evicted);
+                total -= size;
+                LOGGER.debug("Evicted {} from the cache", entry);
+            } catch (IOException e) {
+                // evicted concurrently, or in use on a platform locking open files
+                LOGGER.debug("Unable to evict {}: {}", entry, e.getMessage());
+            }
+        }
+    }
+
+    private static Path sizeFile(Path entry) {
+        return entry.resolveSibling(entry.getFileName() + SIZE_EXTENSION);
+    }
+
+    private static long readSize(Path entry) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(sizeFile(entry)), StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            try {
+                return size(entry);
+            } catch (IOException e1) {
+                return 0;
+            }
+        }
+    }
+
+    private static long size(Path root) throws IOException {
+        long[] size = new long[1];
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // a read-only cache is still usable
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 digest of the archive
+     */
+    static String digest(File archive) throws IOException {
+        String key = archive.getAbsolutePath() + '|' + archive.length() + '|' + archive.lastModified();
+        String digest = DIGESTS.get(key);
+        if (digest != null) {
+            return digest;
+        }
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(archive.toPath())) {
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                md.update(buffer, 0, n);
+            }
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        digest = sb.toString();
+        DIGESTS.put(key, digest);
+        return digest;
+    }
+
+    /**
+     * Unpacks an archive.
+     */
+    interface Extractor {
+        /**
+         * @param directory the existing directory to unpack to
+         * @throws NoSuchArchiverException if the archive can not be unpacked
+         * @throws ArchiverException if the archive can not be unpacked
+         */
+        void extract(File directory) throws NoSuchArchiverException, ArchiverException;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.apache.maven.plugins.javadoc.JavadocUtil;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+
+/**
+ * Selects the entries of a source archive read by the Javadoc Tool, so only those are unpacked: the Java files which
+ * are not in an excluded package, the <code>package.html</code> files and the <code>doc-files</code>. Resources and
+ * <code>META-INF</code> are skipped.
+ *
+ * @since 3.12.1
+ */
+final class SourceFileSelector implements FileSelector {
+    private static final String DOC_FILES = "doc-files";
+
+    private final List<String> excludePackageNames;
+
+    private final Predicate<String> excludedPackage;
+
+    /**
+     * @param excludePackageNames the packages to exclude, as in <code>excludePackageNames</code>, not null
+     */
+    SourceFileSelector(Collection<String> excludePackageNames) {
+        this.excludePackageNames = new ArrayList<>(new TreeSet<>(excludePackageNames));
+        this.excludedPackage = JavadocUtil.getExcludedPackageFilter(this.excludePackageNames);
+    }
+
+    /**
+     * @return a name telling apart the archives unpacked with different selectors
+     */
+    String getVariant() {
+        if (excludePackageNames.isEmpty()) {
+            return "sources";
+        }
+        return "sources-" + String.format("%08x", excludePackageNames.hashCode());
+    }
+
+    @Override
+    public boolean isSelected(FileInfo fileInfo) {
+        // directories are created when a file is unpacked to them
+        return !fileInfo.isFile() || isSelected(fileInfo.getName());
+    }
+
+    /**
+     * @param name the name of an archive entry
+     * @return <code>true</code> if the entry is to be unpacked
+     */
+    boolean isSelected(String name) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.startsWith("META-INF/")) {
+            return false;
+        }
+        if (("/" + path).contains("/" + DOC_FILES + "/")) {
+            return true;
+        }
+
+        int separator = path.lastIndexOf('/');
+        String fileName = path.substring(separator + 1);
+        if ("package.html".equals(fileName)) {
+            return true;
+        }
+        if (!fileName.endsWith(".java")) {
+            return false;
+        }
+        return separator == -1
+                || !excludedPackage.test(path.substring(0, separator).replace('/', '.'));
+    }
+}
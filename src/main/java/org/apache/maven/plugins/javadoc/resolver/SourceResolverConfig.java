@@ -19,6 +19,8 @@
 package org.apache.maven.plugins.javadoc.resolver;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.maven.project.MavenProject;
@@ -43,6 +45,14 @@ public class SourceResolverConfig {
 
     private boolean testSourceIncluded;
 
+    private SourceArchiveCache sharedCache;
+
+    private boolean archivesIncluded;
+
+    private Collection<String> excludedPackages = Collections.emptyList();
+
+    private long missingArtifactsTimeToLive;
+
     /**
      * @param project {@link MavenProject}
      * @param buildingRequest {@link ProjectBuildingRequest}
@@ -73,6 +83,68 @@ public class SourceResolverConfig {
         return this;
     }
 
+    /**
+     * Unpack the artifacts to a cache shared by the modules and the builds, rather than to the output base directory.
+     *
+     * @param directory the directory of the cache, or <code>null</code> for the default one of the local repository
+     * @param maxSize the maximum size of the cache in bytes, <code>0</code> for no cache
+     * @return {@link SourceResolverConfig}
+     * @since 3.12.1
+     */
+    public SourceResolverConfig withSharedCache(final File directory, final long maxSize) {
+        File cacheDirectory = directory;
+        if (cacheDirectory == null
+                && buildingRequest != null
+                && buildingRequest.getRepositorySession() != null
+                && buildingRequest.getRepositorySession().getLocalRepository() != null) {
+            cacheDirectory = new File(
+                    buildingRequest.getRepositorySession().getLocalRepository().getBasedir(),
+                    SourceArchiveCache.DIRECTORY);
+        }
+        if (cacheDirectory == null || maxSize <= 0) {
+            sharedCache = null;
+        } else {
+            sharedCache = new SourceArchiveCache(cacheDirectory.toPath(), maxSize);
+        }
+        return this;
+    }
+
+    /**
+     * Resolve the source artifacts to the archives themselves rather than to the directories they are unpacked to,
+     * except the archives with a module descriptor.
+     *
+     * @return {@link SourceResolverConfig}
+     * @since 3.12.1
+     */
+    public SourceResolverConfig withArchives() {
+        archivesIncluded = true;
+        return this;
+    }
+
+    /**
+     * Don't unpack the Java files of the given packages from the source artifacts.
+     *
+     * @param excludedPackages the packages to exclude, as in <code>excludePackageNames</code>, not null
+     * @return {@link SourceResolverConfig}
+     * @since 3.12.1
+     */
+    public SourceResolverConfig withExcludedPackages(final Collection<String> excludedPackages) {
+        this.excludedPackages = excludedPackages;
+        return this;
+    }
+
+    /**
+     * Don't look again for the artifacts which were not found for the given time.
+     *
+     * @param timeToLive the time in milliseconds, <code>0</code> to always look for them
+     * @return {@link SourceResolverConfig}
+     * @since 3.12.1
+     */
+    public SourceResolverConfig withMissingArtifactsTimeToLive(final long timeToLive) {
+        this.missingArtifactsTimeToLive = timeToLive;
+        return this;
+    }
+
     /**
      * @return {@link SourceResolverConfig}
      */
@@ -140,6 +212,37 @@ public class SourceResolverConfig {
         return outputBasedir;
     }
 
+    /**
+     * @return the cache to unpack the artifacts to, or <code>null</code> to unpack them to {@link #outputBasedir}
+     */
+    SourceArchiveCache sharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * @return {@link #excludedPackages}
+     * @since 3.12.1
+     */
+    public Collection<String> excludedPackages() {
+        return excludedPackages;
+    }
+
+    /**
+     * @return {@link #missingArtifactsTimeToLive}
+     * @since 3.12.1
+     */
+    public long missingArtifactsTimeToLive() {
+        return missingArtifactsTimeToLive;
+    }
+
+    /**
+     * @return {@link #archivesIncluded}
+     * @since 3.12.1
+     */
+    public boolean includeArchives() {
+        return archivesIncluded;
+    }
+
     /**
      * @return {@link #compileSourceIncluded}
      */
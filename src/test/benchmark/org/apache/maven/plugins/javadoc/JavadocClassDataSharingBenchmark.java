@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.languages.java.version.JavaVersion;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times forks of the Javadoc Tool of the running JDK with and without a {@link JavadocClassDataSharing} archive, one
+ * fork on the main sources of each integration test project in <code>src/it/projects</code>. The score is the time
+ * of one fork of every project, the archive being created before the measurements.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Djmh.args=JavadocClassDataSharingBenchmark</code> on
+ * Java 13 or later.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JavadocClassDataSharingBenchmark {
+    @Param({"false", "true"})
+    private boolean classDataSharing;
+
+    private Path tempDirectory;
+
+    private List<Commandline> forks;
+
+    @Setup
+    public void setUp() throws IOException, CommandLineException {
+        JavaVersion version = JavaVersion.parse(System.getProperty("java.specification.version"));
+        if (!JavadocClassDataSharing.isSupported(version)) {
+            throw new IllegalStateException("Class data sharing archives need Java 13 or later");
+        }
+        File executable = Paths.get(System.getProperty("java.home"), "bin", "javadoc")
+                .toFile();
+        tempDirectory = Files.createTempDirectory("javadoc-cds-benchmark");
+
+        List<Commandline> commandlines = new ArrayList<>();
+        try (Stream<Path> projects = Files.list(Paths.get("src", "it", "projects"))) {
+            for (Path project : projects.sorted().collect(Collectors.toList())) {
+                Path sources = project.resolve(Paths.get("src", "main", "java"));
+                List<String> files = getJavaFiles(sources);
+                if (!files.isEmpty()) {
+                    commandlines.add(getCommandline(
+                            executable,
+                            sources,
+                            files,
+                            tempDirectory.resolve(project.getFileName()).toFile()));
+                }
+            }
+        }
+        if (commandlines.isEmpty()) {
+            throw new IllegalStateException("No sources in src/it/projects, run from the root of the plugin");
+        }
+
+        if (!classDataSharing) {
+            forks = commandlines;
+            return;
+        }
+        JavadocClassDataSharing sharing = new JavadocClassDataSharing(tempDirectory.resolve("cds"));
+        for (Commandline cmd : commandlines) {
+            JavadocClassDataSharing.Fork fork = sharing.prepare(cmd, version);
+            if (fork == null) {
+                throw new IllegalStateException("No class data sharing for " + executable);
+            }
+            if (!fork.isCreatingArchive()) {
+                break;
+            }
+            // some projects make the Javadoc Tool fail on purpose, the archive is published after a success
+            fork.complete(execute(fork.getCommandline()) == 0);
+        }
+        forks = new ArrayList<>();
+        for (Commandline cmd : commandlines) {
+            JavadocClassDataSharing.Fork fork = sharing.prepare(cmd, version);
+            if (fork == null || fork.isCreatingArchive()) {
+                throw new IllegalStateException("No class data sharing archive was created for " + executable);
+            }
+            forks.add(fork.getCommandline());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Benchmark
+    public int forks() throws CommandLineException {
+        int exitCodes = 0;
+        for (Commandline fork : forks) {
+            exitCodes += execute(fork);
+        }
+        return exitCodes;
+    }
+
+    private static List<String> getJavaFiles(Path sources) throws IOException {
+        if (!Files.isDirectory(sources)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.walk(sources)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".java"))
+                    .map(file -> file.toAbsolutePath().toString())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Commandline getCommandline(File executable, Path sources, List<String> files, File output) {
+        Commandline cmd = new Commandline();
+        cmd.setExecutable(executable.getAbsolutePath());
+        cmd.setWorkingDirectory(output.getParentFile());
+        cmd.createArg().setValue("-quiet");
+        cmd.createArg().setValue("-Xdoclint:none");
+        cmd.createArg().setValue("-d");
+        cmd.createArg().setFile(output);
+        cmd.createArg().setValue("-sourcepath");
+        cmd.createArg().setFile(sources.toAbsolutePath().toFile());
+        for (String file : files) {
+            cmd.createArg().setValue(file);
+        }
+        return cmd;
+    }
+
+    private static int execute(Commandline cmd) throws CommandLineException {
+        return CommandLineUtils.executeCommandLine(cmd, line -> {}, line -> {});
+    }
+}
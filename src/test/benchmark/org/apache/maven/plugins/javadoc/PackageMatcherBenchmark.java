@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link PackageMatcher} trie with the regular expressions it replaced, on the file listing and the
+ * package directories of a source tree shaped like a large multi-module project.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec</code>. JMH options and the benchmarks to run can be set
+ * with <code>-Djmh.args="..."</code>, e.g. <code>-Djmh.args="PackageMatcherBenchmark -f 2"</code>.
+ * </p>
+ *
+ * @since 3.12.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackageMatcherBenchmark {
+    private static final String REGEX_FILE_SEPARATOR = File.separator.replace("\\", "\\\\");
+
+    private static final String[] MODULES = {"core", "model", "io", "cli", "plugin", "report", "util", "spi"};
+
+    private static final String[] LAYERS = {"api", "impl", "internal", "util", "generated", "test"};
+
+    /**
+     * Patterns as found in <code>excludePackageNames</code>: exact packages, leading and trailing wildcards, and a
+     * few wildcards inside a segment which stay on the regular expression path.
+     */
+    private static final String[] PATTERNS = {
+        "*.internal",
+        "*.impl",
+        "org.example.core.generated",
+        "org.example.*.test",
+        "*.internal.*",
+        "org.example.model.impl.*",
+        "com.acme.legacy",
+        "org.example.spi.util",
+        "*.generated.*",
+        "org.example.io.api.impl",
+        "org.example.cli*",
+        "*.shaded",
+        "org.example.*.api.internal",
+        "net.other.*",
+        "org.example.report.util.*",
+        "org.example.plugin.impl*"
+    };
+
+    @Param({"4", "16"})
+    private int patternCount;
+
+    private List<String> patterns;
+
+    private String[] files;
+
+    private List<String> directories;
+
+    @Setup
+    public void setUp() {
+        patterns = new ArrayList<>();
+        for (int i = 0; i < patternCount; i++) {
+            patterns.add(PATTERNS[i]);
+        }
+
+        List<String> fileList = new ArrayList<>();
+        directories = new ArrayList<>();
+        for (String module : MODULES) {
+            for (String layer : LAYERS) {
+                for (String sub : LAYERS) {
+                    String directory = String.join(File.separator, "org", "example", module, layer, sub);
+                    directories.add(directory);
+                    for (int i = 0; i < 8; i++) {
+                        fileList.add(directory + File.separator + "Type" + i + ".java");
+                    }
+                    fileList.add(directory + File.separator + "package-info.java");
+                    fileList.add(directory + File.separator + "doc-files" + File.separator + "diagram.png");
+                }
+            }
+        }
+        files = fileList.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public List<String> includedFilesTrie() {
+        return JavadocUtil.getIncludedFiles(files, PackageMatcher.forFiles(patterns));
+    }
+
+    @Benchmark
+    public List<String> includedFilesRegex() {
+        return includedFilesRegex(files, patterns);
+    }
+
+    @Benchmark
+    public Collection<String> excludedPackagesTrie() {
+        return JavadocUtil.filterExcludedPackages(directories, patterns);
+    }
+
+    @Benchmark
+    public Collection<String> excludedPackagesRegex() {
+        return excludedPackagesRegex(directories, patterns);
+    }
+
+    /**
+     * The implementation of {@link JavadocUtil#getIncludedFiles(File, String[], Collection)} before the trie.
+     */
+    private static List<String> includedFilesRegex(String[] fileList, Collection<String> excludePackages) {
+        List<String> files = new ArrayList<>();
+
+        List<Pattern> excludePackagePatterns = new ArrayList<>(excludePackages.size());
+        for (String excludePackage : excludePackages) {
+            excludePackagePatterns.add(Pattern.compile(excludePackage
+                    .replace('.', File.separatorChar)
+                    .replace("\\", "\\\\")
+                    .replace("*", ".+")
+                    .concat("[\\\\/][^\\\\/]+\\.java")));
+        }
+
+        for (String file : fileList) {
+            boolean excluded = false;
+            for (Pattern excludePackagePattern : excludePackagePatterns) {
+                if (excludePackagePattern.matcher(file).matches()) {
+                    excluded = true;
+                    break;
+                }
+            }
+
+            if (!excluded) {
+                files.add(file.replace('\\', '/'));
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * The implementation of {@link JavadocUtil#filterExcludedPackages(Collection, Collection)} before the trie.
+     */
+    private static Collection<String> excludedPackagesRegex(
+            Collection<String> packageDirectories, Collection<String> excludePackagenames) {
+        List<String> files = new ArrayList<>();
+        for (String excludePackagename : excludePackagenames) {
+            Pattern p = Pattern.compile(excludePackagename
+                    .replace(".", REGEX_FILE_SEPARATOR)
+                    .replaceFirst("^\\*", ".+")
+                    .replace("*", "[^" + REGEX_FILE_SEPARATOR + "]+"));
+
+            for (String aFileList : packageDirectories) {
+                if (p.matcher(aFileList).matches()) {
+                    files.add(aFileList.replace(File.separatorChar, '.'));
+                }
+            }
+        }
+
+        return files;
+    }
+}
@@ -19,12 +19,45 @@
 package org.apache.maven.plugins.javadoc;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.javadoc.options.DocletArtifact;
+import org.apache.maven.plugins.javadoc.options.Taglet;
+import org.apache.maven.plugins.javadoc.options.TagletArtifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
+import org.eclipse.aether.util.filter.AndDependencyFilter;
+import org.eclipse.aether.util.filter.PatternExclusionsDependencyFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
 
+import static org.apache.maven.api.plugin.testing.MojoExtension.setVariableValueToObject;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -80,4 +113,255 @@ class AbstractJavadocMojoTest {
         assertThat(mojo.isValidJavadocLink("http://commons.apache.org/proper/commons-lang/apidocs", false))
                 .isTrue();
     }
+
+    @Test
+    void testLinkFetchErrorIsNotCached(@TempDir Path tempDir) throws Exception {
+        setVariableValueToObject(mojo, "sessionCache", new JavadocSessionCache());
+        setVariableValueToObject(mojo, "repoSession", new DefaultRepositorySystemSession());
+        Log log = mock(Log.class);
+        when(log.isErrorEnabled()).thenReturn(true);
+        mojo.setLog(log);
+        String link = tempDir.toUri().toString();
+
+        assertThat(mojo.isValidJavadocLink(link, false)).isFalse();
+        verify(log).error("Error fetching link: " + link + ". Ignored it.");
+
+        Files.write(tempDir.resolve("package-list"), Collections.singletonList("p"));
+        assertThat(mojo.isValidJavadocLink(link, false)).isTrue();
+
+        // a valid link is cached for the session
+        Files.delete(tempDir.resolve("package-list"));
+        assertThat(mojo.isValidJavadocLink(link, false)).isTrue();
+    }
+
+    @Test
+    void testMergeDependency() {
+        Dependency first = dependency("g", "a", "1.0", Artifact.SCOPE_PROVIDED);
+        first.setOptional(true);
+        first.addExclusion(exclusion("x", "one"));
+        first.addExclusion(exclusion("x", "two"));
+        Dependency second = dependency("g", "a", "1.10", Artifact.SCOPE_RUNTIME);
+        second.addExclusion(exclusion("x", "two"));
+        second.addExclusion(exclusion("x", "three"));
+
+        Dependency merged = AbstractJavadocMojo.mergeDependency(first, second);
+
+        assertThat(merged.getVersion()).isEqualTo("1.10");
+        assertThat(merged.getScope()).isEqualTo(Artifact.SCOPE_PROVIDED);
+        assertThat(merged.isOptional()).isFalse();
+        assertThat(merged.getExclusions()).extracting(Exclusion::getArtifactId).containsExactly("two");
+        assertThat(first.getExclusions()).hasSize(2);
+
+        Dependency optional = dependency("g", "a", "0.9", null);
+        optional.setOptional(true);
+        merged = AbstractJavadocMojo.mergeDependency(first, optional);
+        assertThat(merged.getVersion()).isEqualTo("1.0");
+        assertThat(merged.getScope()).isNull();
+        assertThat(merged.isOptional()).isTrue();
+        assertThat(merged.getExclusions()).isEmpty();
+    }
+
+    @Test
+    void testScopeRank() {
+        assertThat(Arrays.asList(
+                        Artifact.SCOPE_TEST,
+                        Artifact.SCOPE_RUNTIME,
+                        Artifact.SCOPE_SYSTEM,
+                        Artifact.SCOPE_PROVIDED,
+                        Artifact.SCOPE_COMPILE))
+                .extracting(AbstractJavadocMojo::scopeRank)
+                .isSortedAccordingTo(Comparator.reverseOrder())
+                .doesNotHaveDuplicates();
+        assertThat(AbstractJavadocMojo.scopeRank(null)).isEqualTo(AbstractJavadocMojo.scopeRank("compile"));
+    }
+
+    @Test
+    void testResolvedArtifactsAreReused() {
+        MavenProject project = new MavenProject();
+        project.setDependencies(Arrays.asList(
+                dependency("g", "lib", "1.0", null),
+                dependency("g", "junit", "1.0", Artifact.SCOPE_TEST),
+                dependency("g", "sibling", "1.0", null)));
+        Artifact lib = artifact("g", "lib", Artifact.SCOPE_COMPILE, new File("lib.jar"));
+        Artifact transitive = artifact("g", "transitive", Artifact.SCOPE_COMPILE, new File("transitive.jar"));
+        Artifact junit = artifact("g", "junit", Artifact.SCOPE_TEST, null);
+        // a reactor project not packaged yet, filtered out
+        Artifact sibling = artifact("g", "sibling", Artifact.SCOPE_COMPILE, null);
+        project.setArtifacts(new LinkedHashSet<>(Arrays.asList(lib, transitive, junit, sibling)));
+
+        assertThat(AbstractJavadocMojo.getResolvedArtifacts(project, newFilter("g:sibling"), REGISTRY))
+                .containsExactly(lib, transitive);
+    }
+
+    @Test
+    void testResolvedArtifactsFallback() {
+        MavenProject project = new MavenProject();
+        project.setDependencies(Collections.singletonList(dependency("g", "lib", "1.0", null)));
+
+        // not resolved in the build
+        assertThat(AbstractJavadocMojo.getResolvedArtifacts(project, newFilter(), REGISTRY))
+                .isNull();
+
+        // resolved in the test scope only
+        project.setArtifacts(Collections.singleton(artifact("g", "other", Artifact.SCOPE_TEST, new File("o.jar"))));
+        assertThat(AbstractJavadocMojo.getResolvedArtifacts(project, newFilter(), REGISTRY))
+                .isNull();
+
+        // an accepted artifact without file
+        project.setArtifacts(Collections.singleton(artifact("g", "lib", Artifact.SCOPE_COMPILE, null)));
+        assertThat(AbstractJavadocMojo.getResolvedArtifacts(project, newFilter(), REGISTRY))
+                .isNull();
+
+        project.setArtifacts(Collections.singleton(artifact("g", "lib", Artifact.SCOPE_COMPILE, new File("l.jar"))));
+        assertThat(AbstractJavadocMojo.getResolvedArtifacts(project, newFilter(), REGISTRY))
+                .hasSize(1);
+    }
+
+    @Test
+    void testSubProjectsResolvedInTheirOrder() throws Exception {
+        List<MavenProject> subProjects = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            MavenProject subProject = new MavenProject();
+            subProject.setArtifactId("module" + i);
+            subProjects.add(subProject);
+        }
+        AbstractJavadocMojo mojo = new AbstractJavadocMojo(null, null, null, null, null, null, null) {
+            @Override
+            public void doExecute() {}
+
+            @Override
+            List<Artifact> resolveSubProjectDependencies(MavenProject subProject, DependencyFilter dependencyFilter) {
+                int index = subProjects.indexOf(subProject);
+                // the first projects are the slowest ones
+                sleep(5L * (subProjects.size() - index));
+                return Collections.singletonList(
+                        artifact("g", "dependency" + index, Artifact.SCOPE_COMPILE, new File("d.jar")));
+            }
+        };
+
+        List<List<Artifact>> resolved = mojo.resolveSubProjectDependencies(subProjects, newFilter());
+
+        assertThat(resolved).hasSize(subProjects.size());
+        for (int i = 0; i < subProjects.size(); i++) {
+            assertThat(resolved.get(i)).extracting(Artifact::getArtifactId).containsExactly("dependency" + i);
+        }
+    }
+
+    @Test
+    void testFirstSubProjectFailureIsReported() {
+        List<MavenProject> subProjects = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            MavenProject subProject = new MavenProject();
+            subProject.setArtifactId("module" + i);
+            subProjects.add(subProject);
+        }
+        AbstractJavadocMojo mojo = new AbstractJavadocMojo(null, null, null, null, null, null, null) {
+            @Override
+            public void doExecute() {}
+
+            @Override
+            List<Artifact> resolveSubProjectDependencies(MavenProject subProject, DependencyFilter dependencyFilter)
+                    throws DependencyResolutionException {
+                int index = subProjects.indexOf(subProject);
+                if (index == 0) {
+                    return Collections.emptyList();
+                }
+                // the second project fails after the last one
+                sleep(index == 1 ? 100 : 0);
+                throw new DependencyResolutionException(
+                        new DependencyResult(new DependencyRequest()), "Could not resolve module" + index, null);
+            }
+        };
+
+        assertThatThrownBy(() -> mojo.resolveSubProjectDependencies(subProjects, newFilter()))
+                .isInstanceOf(MavenReportException.class)
+                .hasMessage("Could not resolve module1")
+                .hasCauseInstanceOf(DependencyResolutionException.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final ArtifactTypeRegistry REGISTRY = new DefaultArtifactTypeRegistry();
+
+    private DependencyFilter newFilter(String... reactorArtifacts) {
+        return new AndDependencyFilter(
+                new PatternExclusionsDependencyFilter(reactorArtifacts), mojo.getDependencyScopeFilter());
+    }
+
+    private static Dependency dependency(String groupId, String artifactId, String version, String scope) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        dependency.setScope(scope);
+        return dependency;
+    }
+
+    private static Exclusion exclusion(String groupId, String artifactId) {
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId(groupId);
+        exclusion.setArtifactId(artifactId);
+        return exclusion;
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String scope, File file) {
+        Artifact artifact =
+                new DefaultArtifact(groupId, artifactId, "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(file);
+        return artifact;
+    }
+
+    @Test
+    void testSnapshotPathArtifact() throws Exception {
+        assertThat(mojo.hasSnapshotPathArtifact()).isFalse();
+
+        TagletArtifact release = new TagletArtifact();
+        release.setVersion("1.0");
+        Taglet taglet = new Taglet();
+        taglet.setTagletArtifact(release);
+        setVariableValueToObject(mojo, "taglets", new Taglet[] {taglet});
+        assertThat(mojo.hasSnapshotPathArtifact()).isFalse();
+
+        DocletArtifact snapshot = new DocletArtifact();
+        snapshot.setVersion("1.1-SNAPSHOT");
+        setVariableValueToObject(mojo, "docletArtifacts", new DocletArtifact[] {snapshot});
+        assertThat(mojo.hasSnapshotPathArtifact()).isTrue();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testAbortedCommandLine(@TempDir Path tempDir) throws Exception {
+        mojo.project = new MavenProject();
+        mojo.setLog(mock(Log.class));
+        JavadocOutputConsumer err = new JavadocOutputConsumer(line -> false, line -> {}, line -> {}, null);
+        err.consumeLine("/src/p/A.java:4: warning: no comment");
+
+        JavadocProcessWatchdog otherModule = abortedWatchdog(AbstractJavadocMojo.OTHER_MODULE_FAILURE);
+        assertThatThrownBy(() -> mojo.handleAbortedCommandLine(otherModule, err, tempDir.toFile()))
+                .isInstanceOf(MavenReportException.class)
+                .hasMessageContaining("Stopped the Javadoc Tool at the failure of another module")
+                .hasMessageContaining("/src/p/A.java:4: warning: no comment");
+
+        JavadocProcessWatchdog firstWarning = abortedWatchdog(AbstractJavadocMojo.FIRST_WARNING);
+        assertThatThrownBy(() -> mojo.handleAbortedCommandLine(firstWarning, err, tempDir.toFile()))
+                .isInstanceOf(MavenReportException.class)
+                .hasMessage("Project contains Javadoc Warnings");
+    }
+
+    private static JavadocProcessWatchdog abortedWatchdog(String reason) throws Exception {
+        JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> reason);
+        Commandline cmd = new Commandline();
+        cmd.setExecutable("/bin/sh");
+        cmd.createArg().setValue("-c");
+        cmd.createArg().setValue("sleep 60");
+        watchdog.execute(cmd, line -> {}, line -> {});
+        assertThat(watchdog.getAbortReason()).isEqualTo(reason);
+        return watchdog;
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiFingerprintTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMethodBodyIsIgnored() throws Exception {
+        byte[] before = ApiFingerprint.of(compile("public class A { public int a() { return 1; } }"));
+        byte[] after = ApiFingerprint.of(compile("public class A { public int a() { return 2; } }"));
+
+        assertThat(after).isEqualTo(before);
+    }
+
+    @Test
+    void testPrivateMemberIsIgnored() throws Exception {
+        byte[] before = ApiFingerprint.of(compile("public class A { }"));
+        byte[] after = ApiFingerprint.of(compile("public class A { private int b; private void c() { } }"));
+
+        assertThat(after).isEqualTo(before);
+    }
+
+    @Test
+    void testSignatureChange() throws Exception {
+        byte[] before = ApiFingerprint.of(compile("public class A { public int a() { return 1; } }"));
+        byte[] after = ApiFingerprint.of(compile("public class A { public long a() { return 1; } }"));
+
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void testAnnotationChange() throws Exception {
+        byte[] before = ApiFingerprint.of(compile("public class A { public void a() { } }"));
+        byte[] after = ApiFingerprint.of(compile("public class A { @Deprecated public void a() { } }"));
+
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void testJarAndDirectory() throws Exception {
+        Path classes = compile("public class A { public void a() { } }");
+        Path jar = tempDir.resolve("a.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("A.class"));
+            Files.copy(classes.resolve("A.class"), out);
+            out.closeEntry();
+        }
+
+        assertThat(ApiFingerprint.of(jar)).isEqualTo(ApiFingerprint.of(classes));
+    }
+
+    @Test
+    void testSnapshotFallsBackToContent() throws Exception {
+        Path file = tempDir.resolve("file.txt");
+        Files.write(file, "not a jar".getBytes(StandardCharsets.UTF_8));
+        ContentSnapshot snapshot = ContentSnapshot.empty();
+
+        assertThat(snapshot.apiDigest(file)).isEqualTo(snapshot.digest(file));
+        assertThat(snapshot.apiDigest(tempDir.resolve("missing.jar"))).isEqualTo("missing");
+    }
+
+    @Test
+    void testSnapshotCachesByContent() throws Exception {
+        Path classes = compile("public class A { public void a() { } }");
+        // older than the snapshot, so trusted without being read again
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+            }
+        }
+        Path stored = tempDir.resolve("snapshot");
+        ContentSnapshot first = ContentSnapshot.empty();
+        String before = first.apiDigest(classes);
+        first.write(stored);
+
+        ContentSnapshot second = ContentSnapshot.read(stored);
+        assertThat(second.apiDigest(classes)).isEqualTo(before);
+        assertThat(second.isHashed()).isFalse();
+    }
+
+    private Path compile(String source) throws Exception {
+        Path dir = Files.createTempDirectory(tempDir, "classes");
+        Path file = dir.resolve("A.java");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, err, "-d", dir.toString(), file.toString());
+        assertThat(result).as(err.toString()).isZero();
+        Files.delete(file);
+        return dir;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        root = tempDir.resolve("src");
+        write("a/A.java", "class A {}");
+        write("a/b/c/C.java", "class C {}");
+        write("d/D.java", "class D {}");
+    }
+
+    @Test
+    void testDeepChange() throws Exception {
+        String before = ContentSnapshot.empty().digest(root);
+
+        write("a/b/c/C.java", "class C { }");
+
+        assertThat(ContentSnapshot.empty().digest(root)).isNotEqualTo(before);
+    }
+
+    @Test
+    void testAddedAndDeletedFiles() throws Exception {
+        String before = ContentSnapshot.empty().digest(root);
+
+        write("a/b/c/E.java", "class E {}");
+        String added = ContentSnapshot.empty().digest(root);
+        assertThat(added).isNotEqualTo(before);
+
+        Files.delete(root.resolve("a/b/c/E.java"));
+        assertThat(ContentSnapshot.empty().digest(root)).isEqualTo(before);
+    }
+
+    @Test
+    void testModificationTimeIsIgnored() throws Exception {
+        String before = ContentSnapshot.empty().digest(root);
+
+        Files.setLastModifiedTime(root.resolve("d/D.java"), FileTime.fromMillis(0));
+
+        assertThat(ContentSnapshot.empty().digest(root)).isEqualTo(before);
+    }
+
+    @Test
+    void testUnchangedFilesAreNotRead() throws Exception {
+        setLastModifiedTime(System.currentTimeMillis() - 60_000);
+        Path file = tempDir.resolve("snapshot");
+        ContentSnapshot first = ContentSnapshot.empty();
+        String before = first.digest(root);
+        assertThat(first.isHashed()).isTrue();
+        first.write(file);
+
+        ContentSnapshot second = ContentSnapshot.read(file);
+        assertThat(second.digest(root)).isEqualTo(before);
+        assertThat(second.isHashed()).isFalse();
+
+        // same size and modification time: trusted without reading
+        Path d = root.resolve("d/D.java");
+        FileTime modified = Files.getLastModifiedTime(d);
+        write("d/D.java", "class X {}");
+        Files.setLastModifiedTime(d, modified);
+        ContentSnapshot third = second.next();
+        assertThat(third.digest(root)).isEqualTo(before);
+
+        Files.setLastModifiedTime(d, FileTime.fromMillis(modified.toMillis() + 1000));
+        ContentSnapshot fourth = third.next();
+        assertThat(fourth.digest(root)).isNotEqualTo(before);
+        assertThat(fourth.isHashed()).isTrue();
+    }
+
+    @Test
+    void testRecentlyModifiedFilesAreReadAgain() throws Exception {
+        ContentSnapshot first = ContentSnapshot.empty();
+        String before = first.digest(root);
+
+        // written again in the same tick as the snapshot, with the same size
+        Path d = root.resolve("d/D.java");
+        FileTime modified = Files.getLastModifiedTime(d);
+        write("d/D.java", "class X {}");
+        Files.setLastModifiedTime(d, modified);
+
+        ContentSnapshot second = first.next();
+        assertThat(second.digest(root)).isNotEqualTo(before);
+        assertThat(second.isHashed()).isTrue();
+    }
+
+    @Test
+    void testDirectoryDigests() throws Exception {
+        ContentSnapshot snapshot = ContentSnapshot.empty();
+        snapshot.digest(root);
+        String a = snapshot.getDirectoryDigests(root).get(root.resolve("a").toString());
+        String d = snapshot.getDirectoryDigests(root).get(root.resolve("d").toString());
+
+        write("a/b/c/C.java", "class C { }");
+        ContentSnapshot next = snapshot.next();
+        next.digest(root);
+
+        assertThat(next.getDirectoryDigests(root))
+                .hasSize(5)
+                .doesNotContainEntry(root.resolve("a").toString(), a)
+                .containsEntry(root.resolve("d").toString(), d);
+    }
+
+    @Test
+    void testDigestFromListing() throws Exception {
+        write("a/doc-files/a.png", "png");
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.emptyList());
+        String listed = ContentSnapshot.empty().digest(root, index.getAllFiles(root));
+        assertThat(listed).isEqualTo(ContentSnapshot.empty().digest(root));
+
+        write("a/doc-files/a.png", "png!");
+        SourceTreeIndex next = new SourceTreeIndex(null, null, Collections.emptyList());
+        assertThat(ContentSnapshot.empty().digest(root, next.getAllFiles(root)))
+                .isNotEqualTo(listed)
+                .isEqualTo(ContentSnapshot.empty().digest(root));
+    }
+
+    @Test
+    void testFiles() throws Exception {
+        assertThat(ContentSnapshot.empty().digest(root.resolve("a/A.java")))
+                .isEqualTo(
+                        ContentSnapshot.empty().digest(root.resolve("d/D.java").resolveSibling("../a/A.java")))
+                .hasSize(64);
+        assertThat(ContentSnapshot.empty().digest(root.resolve("missing"))).isEqualTo("missing");
+    }
+
+    @Test
+    void testCorruptFile() throws Exception {
+        Path file = tempDir.resolve("snapshot");
+        Files.write(file, new byte[] {1, 2, 3});
+        ContentSnapshot snapshot = ContentSnapshot.read(file);
+        snapshot.digest(root);
+        assertThat(snapshot.isHashed()).isTrue();
+    }
+
+    private void setLastModifiedTime(long millis) throws Exception {
+        for (String name : new String[] {"a/A.java", "a/b/c/C.java", "d/D.java"}) {
+            Files.setLastModifiedTime(root.resolve(name), FileTime.fromMillis(millis));
+        }
+    }
+
+    private void write(String name, String content) throws Exception {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.plexus.util.cli.Commandline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InProcessJavadocTest {
+    @Test
+    void testTokenize() {
+        assertThat(InProcessJavadoc.tokenize("")).isEmpty();
+        assertThat(InProcessJavadoc.tokenize("-d 'C:/my docs/apidocs'\n-quiet"))
+                .containsExactly("-d", "C:/my docs/apidocs", "-quiet");
+        assertThat(InProcessJavadoc.tokenize("-doctitle \"A 'B' \\\"C\\\"\"\r\n"))
+                .containsExactly("-doctitle", "A 'B' \"C\"");
+        assertThat(InProcessJavadoc.tokenize("'/path/it\\'s'")).containsExactly("/path/it's");
+        assertThat(InProcessJavadoc.tokenize("# comment\norg.foo\n  org.bar # trailing\n"))
+                .containsExactly("org.foo", "org.bar");
+        assertThat(InProcessJavadoc.tokenize("-header ''")).containsExactly("-header", "");
+    }
+
+    @Test
+    void testUnsupportedReason() {
+        Commandline cmd = new Commandline();
+        cmd.createArg().setValue("-J-Duser.language=");
+        cmd.createArg().setValue("-J-Duser.country=");
+        assertThat(InProcessJavadoc.getUnsupportedReason(cmd)).isNull();
+
+        cmd.createArg().setValue("-J-Xmx512m");
+        assertThat(InProcessJavadoc.getUnsupportedReason(cmd)).contains("-Xmx512m");
+    }
+
+    @Test
+    void testResolveArguments(@TempDir Path tempDir) throws Exception {
+        File workingDirectory = tempDir.toFile();
+        Files.createDirectories(tempDir.resolve("src/p"));
+        Files.write(tempDir.resolve("src/p/A.java"), Collections.singletonList("package p;"));
+        String absolute = tempDir.resolve("lib.jar").toString();
+
+        List<String> arguments = InProcessJavadoc.resolveArguments(
+                Arrays.asList(
+                        "-d",
+                        "apidocs",
+                        "-classpath",
+                        "classes" + File.pathSeparator + absolute,
+                        "-linkoffline",
+                        "https://example.org/api",
+                        "package-list",
+                        "-doctitle",
+                        "Missing.java",
+                        "-quiet",
+                        "src/p/A.java"),
+                workingDirectory);
+
+        assertThat(arguments)
+                .containsExactly(
+                        "-d",
+                        new File(workingDirectory, "apidocs").getPath(),
+                        "-classpath",
+                        new File(workingDirectory, "classes").getPath() + File.pathSeparator + absolute,
+                        "-linkoffline",
+                        "https://example.org/api",
+                        new File(workingDirectory, "package-list").getPath(),
+                        "-doctitle",
+                        "Missing.java",
+                        "-quiet",
+                        new File(workingDirectory, "src/p/A.java").getPath());
+    }
+
+    @Test
+    void testExecute(@TempDir Path tempDir) throws Exception {
+        Path sources = Files.createDirectories(tempDir.resolve("src/p"));
+        Files.write(
+                sources.resolve("A.java"),
+                Arrays.asList("package p;", "/** A. */", "public class A {", "    public void m() {}", "}"),
+                StandardCharsets.UTF_8);
+        File outputDirectory =
+                Files.createDirectories(tempDir.resolve("apidocs")).toFile();
+        Files.write(
+                outputDirectory.toPath().resolve("options"),
+                Arrays.asList("-Xdoclint:all", "-d", "'" + outputDirectory.getAbsolutePath() + "'"),
+                EncodingUtils.getExpectedEncoding());
+        Files.write(
+                outputDirectory.toPath().resolve("argfile"),
+                Collections.singletonList("'" + sources.resolve("A.java").toAbsolutePath() + "'"),
+                EncodingUtils.getExpectedEncoding());
+
+        Commandline cmd = new Commandline();
+        cmd.setWorkingDirectory(outputDirectory);
+        cmd.createArg().setValue("-J-Duser.language=");
+        cmd.createArg().setValue("-J-Duser.country=");
+        cmd.createArg().setValue("@options");
+        cmd.createArg().setValue("@argfile");
+
+        List<String> out = new ArrayList<>();
+        List<String> err = new ArrayList<>();
+        assertThat(InProcessJavadoc.execute(cmd, out::add, err::add)).isEqualTo(0);
+
+        assertThat(new File(outputDirectory, "p/A.html")).exists();
+        assertThat(out).anyMatch(line -> line.startsWith("Generating "));
+        assertThat(err).anyMatch(line -> line.contains("A.java:4: warning: "));
+        assertThat(err).last().isEqualTo("1 warning");
+    }
+
+    @Test
+    void testStoppedByWatchdog(@TempDir Path tempDir) throws Exception {
+        Path sources = Files.createDirectories(tempDir.resolve("src/p"));
+        Files.write(sources.resolve("A.java"), Arrays.asList("package p;", "/** A. */", "public class A {}"));
+        Commandline cmd = new Commandline();
+        cmd.createArg().setValue("-d");
+        cmd.createArg().setValue(tempDir.resolve("apidocs").toString());
+        cmd.createArg().setValue(sources.resolve("A.java").toString());
+
+        JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> "the first warning");
+        int exitCode = watchdog.execute(() -> InProcessJavadoc.execute(cmd, line -> {}, line -> {}));
+
+        assertThat(exitCode).isEqualTo(-1);
+        assertThat(watchdog.getAbortReason()).isEqualTo("the first warning");
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(tempDir.resolve("apidocs/p/A.html")).doesNotExist();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalJavadocTest {
+    private static final List<String> OPTIONS = Collections.singletonList("-quiet");
+
+    private static final List<String> PACKAGES = Arrays.asList("a", "b", "c");
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        root = tempDir.resolve("src");
+        write("a/A.java", "package a;\npublic class A {}");
+        write("b/B.java", "package b;\nimport a.A;\npublic class B extends A {}");
+        write("c/C.java", "package c;\npublic class C {}");
+    }
+
+    @Test
+    void testChangedPackageAndImporters() throws Exception {
+        IncrementalJavadoc previous = state(null);
+
+        write("a/A.java", "package a;\npublic class A { public void a() {} }");
+
+        assertThat(state(previous).getStalePackages(previous)).containsExactly("a", "b");
+    }
+
+    @Test
+    void testDocFiles() throws Exception {
+        IncrementalJavadoc previous = state(null);
+
+        write("c/doc-files/image.svg", "<svg/>");
+
+        assertThat(state(previous).getStalePackages(previous)).containsExactly("c");
+    }
+
+    @Test
+    void testCompleteRun() throws Exception {
+        IncrementalJavadoc previous = state(null);
+        assertThat(state(previous).getStalePackages(previous)).isNull();
+        assertThat(state(null).getStalePackages(null)).isNull();
+
+        write("c/C.java", "package c;\npublic class C { }");
+        IncrementalJavadoc current = IncrementalJavadoc.of(
+                Collections.singletonList("-verbose"),
+                Collections.singletonList(root),
+                PACKAGES,
+                ContentSnapshot.empty(),
+                previous);
+        assertThat(current.getStalePackages(previous)).isNull();
+    }
+
+    @Test
+    void testChangedTypeDeclarations() throws Exception {
+        IncrementalJavadoc previous = state(null);
+
+        // listed by the element list, the trees and the index pages, which are not patched
+        write("c/D.java", "package c;\npublic class D {}");
+        assertThat(state(previous).getStalePackages(previous)).isNull();
+
+        write("c/D.java", "package c;\n/** a class of c */\npublic class D {}");
+        IncrementalJavadoc withD = state(null);
+        write("c/D.java", "package c;\n/** the class of c */\npublic class D { // class E\n}");
+        assertThat(state(withD).getStalePackages(withD)).containsExactly("c");
+
+        write("c/D.java", "package c;\npublic class D extends C {}");
+        assertThat(state(withD).getStalePackages(withD)).isNull();
+    }
+
+    @Test
+    void testReadWrite() throws Exception {
+        Path file = tempDir.resolve("state");
+        state(null).write(file);
+        IncrementalJavadoc previous = IncrementalJavadoc.read(file);
+
+        write("c/C.java", "package c;\npublic class C { }");
+
+        assertThat(state(previous).getStalePackages(previous)).containsExactly("c");
+    }
+
+    @Test
+    void testReferencesOfThePages() throws Exception {
+        List<String> packages = Arrays.asList("a", "b", "c", "d");
+        write("d/D.java", "package d;\npublic class D {}");
+        Path output = tempDir.resolve("apidocs");
+        // a qualified name, without import
+        writeFile(output.resolve("c/C.html"), "<a href=\"../a/A.html#m()\" title=\"class in a\">A</a>");
+        writeFile(output.resolve("c/class-use/C.html"), "<a href=\"../../d/D.html\">D</a>");
+        writeFile(output.resolve("d/D.html"), "<a href=\"https://example.org/d/D.html\">D</a>");
+        Path file = tempDir.resolve("state");
+        IncrementalJavadoc state = IncrementalJavadoc.of(
+                OPTIONS, Collections.singletonList(root), packages, ContentSnapshot.empty(), null);
+        state.readReferences(output, null);
+        state.write(file);
+        IncrementalJavadoc previous = IncrementalJavadoc.read(file);
+
+        write("a/A.java", "package a;\npublic class A { public void m() {} }");
+        IncrementalJavadoc current = IncrementalJavadoc.of(
+                OPTIONS, Collections.singletonList(root), packages, ContentSnapshot.empty(), previous);
+        assertThat(current.getStalePackages(previous)).containsExactly("a", "b", "c");
+
+        // the pages of the packages not documented again keep their references
+        current.readReferences(output, Collections.singleton("a"));
+        write("d/D.java", "package d;\npublic class D { }");
+        assertThat(IncrementalJavadoc.of(
+                                OPTIONS, Collections.singletonList(root), packages, ContentSnapshot.empty(), current)
+                        .getStalePackages(current))
+                .containsExactly("c", "d");
+    }
+
+    @Test
+    void testMergeSearchIndex() {
+        String previous = "typeSearchIndex = [{\"p\":\"a\",\"l\":\"A\"},{\"p\":\"c\",\"l\":\"C\"},"
+                + "{\"l\":\"All Classes\",\"u\":\"allclasses-index.html\"}];updateSearchResults();";
+        String current = "typeSearchIndex = [{\"p\":\"c\",\"l\":\"C\"},{\"p\":\"c\",\"l\":\"D\"},"
+                + "{\"l\":\"All Classes\",\"u\":\"allclasses-index.html\"}];updateSearchResults();";
+
+        assertThat(IncrementalJavadoc.mergeSearchIndex(previous, current, Collections.singleton("c")))
+                .isEqualTo("typeSearchIndex = [{\"p\":\"a\",\"l\":\"A\"},"
+                        + "{\"l\":\"All Classes\",\"u\":\"allclasses-index.html\"},"
+                        + "{\"p\":\"c\",\"l\":\"C\"},{\"p\":\"c\",\"l\":\"D\"}];updateSearchResults();");
+    }
+
+    @Test
+    void testPatchSharedPages() throws Exception {
+        Path output = Files.createDirectories(tempDir.resolve("apidocs"));
+        Path backup = Files.createDirectories(tempDir.resolve("backup"));
+        writeFile(output.resolve("element-list"), "a\nb\nc");
+        writeFile(
+                output.resolve("package-search-index.js"),
+                "packageSearchIndex = [{\"l\":\"a\",\"u\":\"a/package-summary.html\"},"
+                        + "{\"l\":\"c\",\"u\":\"c/package-summary.html\"}];updateSearchResults();");
+        assertThat(IncrementalJavadoc.canPatch(output)).isTrue();
+
+        IncrementalJavadoc.backupSharedPages(output, backup);
+        writeFile(output.resolve("element-list"), "c");
+        writeFile(
+                output.resolve("package-search-index.js"),
+                "packageSearchIndex = [{\"l\":\"c\",\"u\":\"c/package-summary.html\"}];updateSearchResults();");
+        IncrementalJavadoc.patchSharedPages(output, backup, Collections.singleton("c"));
+
+        assertThat(output.resolve("element-list")).hasContent("a\nb\nc");
+        assertThat(output.resolve("package-search-index.js"))
+                .hasContent("packageSearchIndex = [{\"l\":\"a\",\"u\":\"a/package-summary.html\"},"
+                        + "{\"l\":\"c\",\"u\":\"c/package-summary.html\"}];updateSearchResults();");
+    }
+
+    private IncrementalJavadoc state(IncrementalJavadoc previous) throws Exception {
+        return IncrementalJavadoc.of(
+                OPTIONS, Collections.singletonList(root), PACKAGES, ContentSnapshot.empty(), previous);
+    }
+
+    private void write(String path, String content) throws Exception {
+        writeFile(root.resolve(path), content);
+    }
+
+    private static void writeFile(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codehaus.plexus.languages.java.version.JavaVersion;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocClassDataSharingTest {
+    private static final JavaVersion VERSION = JavaVersion.parse("17.0.9");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIsSupported() {
+        assertThat(JavadocClassDataSharing.isSupported(JavaVersion.parse("11.0.2")))
+                .isFalse();
+        assertThat(JavadocClassDataSharing.isSupported(JavaVersion.parse("13"))).isTrue();
+    }
+
+    @Test
+    void testCreateThenUse() throws Exception {
+        File executable = createJdk("17.0.9");
+        JavadocClassDataSharing cds = new JavadocClassDataSharing(tempDir.resolve("cds"));
+
+        JavadocClassDataSharing.Fork creating = cds.prepare(commandline(executable), VERSION);
+        assertThat(creating.isCreatingArchive()).isTrue();
+        String option = creating.getCommandline().getArguments()[0];
+        assertThat(option).startsWith("-J-XX:ArchiveClassesAtExit=");
+        assertThat(creating.getCommandline().getArguments()).endsWith("-J-Xmx512m", "@options");
+
+        // only one fork creates the archive
+        assertThat(cds.prepare(commandline(executable), VERSION)).isNull();
+
+        // like the JVM at exit
+        Files.write(tempDir.resolve(option.substring(option.indexOf('=') + 1)), new byte[] {1});
+        creating.complete(true);
+        assertThat(creating.getArchive()).isRegularFile();
+
+        JavadocClassDataSharing.Fork using = cds.prepare(commandline(executable), VERSION);
+        assertThat(using.isCreatingArchive()).isFalse();
+        assertThat(using.getCommandline().getArguments()[0])
+                .isEqualTo("-J-XX:SharedArchiveFile=" + creating.getArchive());
+    }
+
+    @Test
+    void testFailedForkDiscardsArchive() throws Exception {
+        File executable = createJdk("17.0.9");
+        JavadocClassDataSharing cds = new JavadocClassDataSharing(tempDir.resolve("cds"));
+
+        JavadocClassDataSharing.Fork creating = cds.prepare(commandline(executable), VERSION);
+        String option = creating.getCommandline().getArguments()[0];
+        Files.write(tempDir.resolve(option.substring(option.indexOf('=') + 1)), new byte[] {1});
+        creating.complete(false);
+
+        assertThat(creating.getArchive()).doesNotExist();
+        assertThat(tempDir.resolve("cds")).isEmptyDirectory();
+        assertThat(cds.prepare(commandline(executable), VERSION).isCreatingArchive())
+                .isTrue();
+    }
+
+    @Test
+    void testUpdatedJdkReplacesArchive() throws Exception {
+        File executable = createJdk("17.0.9");
+        JavadocClassDataSharing cds = new JavadocClassDataSharing(tempDir.resolve("cds"));
+        Path previous = createArchive(cds, executable);
+
+        Files.write(
+                new File(executable.getParentFile().getParentFile(), "release").toPath(),
+                "JAVA_VERSION=\"17.0.9\"\nIMPLEMENTOR=\"other\"".getBytes(StandardCharsets.UTF_8));
+        Path current = createArchive(cds, executable);
+
+        assertThat(current).isNotEqualTo(previous).isRegularFile();
+        assertThat(previous).doesNotExist();
+    }
+
+    @Test
+    void testJdkWithoutReleaseFile() throws Exception {
+        File executable = createJdk(null);
+        assertThat(new JavadocClassDataSharing(tempDir.resolve("cds")).prepare(commandline(executable), VERSION))
+                .isNull();
+    }
+
+    private Path createArchive(JavadocClassDataSharing cds, File executable) throws Exception {
+        JavadocClassDataSharing.Fork creating = cds.prepare(commandline(executable), VERSION);
+        String option = creating.getCommandline().getArguments()[0];
+        Files.write(tempDir.resolve(option.substring(option.indexOf('=') + 1)), new byte[] {1});
+        creating.complete(true);
+        return creating.getArchive();
+    }
+
+    private File createJdk(String version) throws Exception {
+        Path bin = Files.createDirectories(tempDir.resolve("jdk").resolve("bin"));
+        if (version != null) {
+            Files.write(
+                    bin.getParent().resolve("release"),
+                    ("JAVA_VERSION=\"" + version + "\"").getBytes(StandardCharsets.UTF_8));
+        }
+        return Files.createFile(bin.resolve("javadoc")).toFile();
+    }
+
+    private static Commandline commandline(File executable) {
+        Commandline cmd = new Commandline();
+        cmd.getShell().setQuotedArgumentsEnabled(false);
+        cmd.setExecutable(executable.getAbsolutePath());
+        cmd.createArg().setValue("-J-Xmx512m");
+        cmd.createArg().setValue("@options");
+        return cmd;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocForkSchedulerTest {
+    @Test
+    void testSessionInstance() {
+        JavadocSessionCache sessionCache = new JavadocSessionCache();
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        JavadocForkScheduler scheduler = JavadocForkScheduler.getInstance(sessionCache, session, 2, 0);
+        assertThat(JavadocForkScheduler.getInstance(sessionCache, session, 4, 1024))
+                .isSameAs(scheduler);
+        assertThat(scheduler.getMaxConcurrentForks()).isEqualTo(2);
+        assertThat(scheduler.getHeapBudget()).isZero();
+    }
+
+    @Test
+    void testLargestFirst() throws Exception {
+        JavadocForkScheduler scheduler = new JavadocForkScheduler(1, 0);
+        List<Long> started = Collections.synchronizedList(new ArrayList<>());
+
+        JavadocForkScheduler.Permit first = scheduler.acquire(1, 0);
+        List<Thread> threads = new ArrayList<>();
+        for (long size : new long[] {10, 30, 20}) {
+            Thread thread = new Thread(() -> {
+                try (JavadocForkScheduler.Permit permit = scheduler.acquire(size, 0)) {
+                    started.add(size);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        // give all threads the time to queue up
+        Thread.sleep(200);
+        first.close();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertThat(started).containsExactly(30L, 20L, 10L);
+    }
+
+    @Test
+    void testHeapBudget() throws Exception {
+        JavadocForkScheduler scheduler = new JavadocForkScheduler(0, 1000);
+
+        JavadocForkScheduler.Permit first = scheduler.acquire(1, 600);
+        JavadocForkScheduler.Permit second = scheduler.acquire(1, 400);
+        assertThat(second.getRunning()).isEqualTo(2);
+        assertThat(second.getHeapInUse()).isEqualTo(1000);
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (JavadocForkScheduler.Permit permit = scheduler.acquire(1, 500)) {
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        assertThat(admitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        second.close();
+        assertThat(admitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        first.close();
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        thread.join(5000);
+
+        // more than the whole budget, but alone
+        try (JavadocForkScheduler.Permit permit = scheduler.acquire(1, 5000)) {
+            assertThat(permit.getRunning()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testSmallerExecutionsFillTheHeapBudget() throws Exception {
+        JavadocForkScheduler scheduler = new JavadocForkScheduler(0, 1000);
+        JavadocForkScheduler.Permit first = scheduler.acquire(1, 600);
+
+        // waits for the first one, since it does not fit
+        List<Long> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        Thread large = start(scheduler, 30, 800, started, release);
+        Thread.sleep(200);
+        assertThat(started).isEmpty();
+
+        // fits besides the first one
+        Thread small = start(scheduler, 10, 300, started, release);
+        small.join(200);
+        assertThat(started).containsExactly(10L);
+
+        release.countDown();
+        small.join(5000);
+        first.close();
+        large.join(5000);
+        assertThat(started).containsExactly(10L, 30L);
+    }
+
+    @Test
+    void testLargestIsNotStarved() throws Exception {
+        JavadocForkScheduler scheduler = new JavadocForkScheduler(0, 1000);
+        JavadocForkScheduler.Permit first = scheduler.acquire(1, 600);
+
+        List<Long> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        Thread large = start(scheduler, 30, 800, started, release);
+        Thread.sleep(200);
+        for (int i = 0; i < JavadocForkScheduler.MAX_OVERTAKES; i++) {
+            try (JavadocForkScheduler.Permit permit = scheduler.acquire(10, 300)) {
+                started.add(10L);
+            }
+        }
+
+        // overtaken too often, nothing starts before it any more
+        Thread small = start(scheduler, 10, 300, started, release);
+        small.join(200);
+        assertThat(started).hasSize(JavadocForkScheduler.MAX_OVERTAKES);
+
+        first.close();
+        release.countDown();
+        large.join(5000);
+        small.join(5000);
+        assertThat(started).hasSize(JavadocForkScheduler.MAX_OVERTAKES + 2);
+        assertThat(started.get(JavadocForkScheduler.MAX_OVERTAKES)).isEqualTo(30L);
+    }
+
+    /**
+     * Start a thread holding a permit until released.
+     */
+    private static Thread start(
+            JavadocForkScheduler scheduler, long size, long heap, List<Long> started, CountDownLatch release) {
+        Thread thread = new Thread(() -> {
+            try (JavadocForkScheduler.Permit permit = scheduler.acquire(size, heap)) {
+                started.add(size);
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
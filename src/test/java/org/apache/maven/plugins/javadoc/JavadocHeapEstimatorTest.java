@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocHeapEstimatorTest {
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void testEstimate() {
+        assertThat(JavadocHeapEstimator.estimate(0, 0, 0, false, 0)).isEqualTo(JavadocHeapEstimator.MIN_HEAP);
+        // 256m + 1000 * 64k + 8 * 10m + 100m / 2
+        assertThat(JavadocHeapEstimator.estimate(1000, 10 * MB, 100 * MB, false, 0))
+                .isEqualTo(512 * MB);
+        assertThat(JavadocHeapEstimator.estimate(1000, 10 * MB, 100 * MB, true, 0))
+                .isEqualTo(576 * MB);
+        assertThat(JavadocHeapEstimator.estimate(30000, 300 * MB, 500 * MB, false, 0))
+                .isGreaterThan(4096 * MB);
+    }
+
+    @Test
+    void testLimit() {
+        assertThat(JavadocHeapEstimator.estimate(30000, 300 * MB, 500 * MB, false, 2000 * MB))
+                .isEqualTo(1984 * MB);
+        assertThat(JavadocHeapEstimator.estimate(30000, 300 * MB, 500 * MB, false, 100 * MB))
+                .isEqualTo(JavadocHeapEstimator.MIN_HEAP);
+    }
+
+    @Test
+    void testGrow() {
+        assertThat(JavadocHeapEstimator.grow(512 * MB, 0)).isEqualTo(1024 * MB);
+        assertThat(JavadocHeapEstimator.grow(512 * MB, 768 * MB)).isEqualTo(768 * MB);
+        assertThat(JavadocHeapEstimator.grow(768 * MB, 768 * MB)).isZero();
+    }
+
+    @Test
+    void testUseLearned() {
+        assertThat(JavadocHeapEstimator.useLearned(512 * MB, -1, -1)).isFalse();
+        assertThat(JavadocHeapEstimator.useLearned(512 * MB, 1024 * MB, -1)).isTrue();
+        assertThat(JavadocHeapEstimator.useLearned(512 * MB, 1024 * MB, 512 * MB))
+                .isTrue();
+        // the estimate caught up with the learned heap
+        assertThat(JavadocHeapEstimator.useLearned(1024 * MB, 1024 * MB, 512 * MB))
+                .isFalse();
+        // the sources shrank well below the ones of the run that ran out of memory
+        assertThat(JavadocHeapEstimator.useLearned(256 * MB, 1024 * MB, 512 * MB))
+                .isFalse();
+    }
+
+    @Test
+    void testToMemoryArg() {
+        assertThat(JavadocHeapEstimator.toMemoryArg(1024 * MB)).isEqualTo("1024m");
+    }
+}
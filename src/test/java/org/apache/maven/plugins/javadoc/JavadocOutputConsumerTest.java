@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocOutputConsumerTest {
+    @Test
+    void testClassify() {
+        List<String> info = new ArrayList<>();
+        List<String> log = new ArrayList<>();
+        JavadocOutputConsumer consumer =
+                new JavadocOutputConsumer(line -> line.startsWith("Generating "), info::add, log::add, "Heading");
+        assertThat(consumer.isEmpty()).isTrue();
+
+        consumer.consumeLine("Picked up JAVA_TOOL_OPTIONS: -Xmx1g");
+        assertThat(consumer.isEmpty()).isTrue();
+
+        consumer.consumeLine("Generating /target/apidocs/p/A.html...");
+        consumer.consumeLine("/src/p/A.java:4: warning: no comment");
+        consumer.consumeLine("    public void m() {}");
+        consumer.consumeLine("/src/p/A.java:5: error: unknown tag: foo");
+        consumer.consumeLine("1 error");
+        consumer.consumeLine("2 warnings");
+
+        assertThat(consumer.isEmpty()).isFalse();
+        assertThat(info).containsExactly("Generating /target/apidocs/p/A.html...");
+        assertThat(log)
+                .containsExactly(
+                        "Heading",
+                        "/src/p/A.java:4: warning: no comment",
+                        "public void m() {}",
+                        "/src/p/A.java:5: error: unknown tag: foo",
+                        "1 error",
+                        "2 warnings");
+        assertThat(consumer.getWarningCount()).isEqualTo(2);
+        assertThat(consumer.getErrorCount()).isEqualTo(1);
+        assertThat(consumer.endsWithWarningsTrailer()).isTrue();
+
+        consumer.consumeLine("note: something");
+        assertThat(consumer.endsWithWarningsTrailer()).isFalse();
+    }
+
+    @Test
+    void testOutputBeforeDiagnosticsIsLoggedApart() {
+        List<String> log = new ArrayList<>();
+        List<String> other = new ArrayList<>();
+        JavadocOutputConsumer consumer =
+                new JavadocOutputConsumer(line -> false, line -> {}, log::add, other::add, "Heading");
+
+        consumer.consumeLine("Note: Some input files use unchecked or unsafe operations.");
+        assertThat(log).isEmpty();
+
+        consumer.consumeLine("/src/p/A.java:4: warning: no comment");
+        consumer.consumeLine("    public void m() {}");
+        consumer.consumeLine("1 warning");
+
+        assertThat(other).containsExactly("Note: Some input files use unchecked or unsafe operations.");
+        assertThat(log)
+                .containsExactly("Heading", "/src/p/A.java:4: warning: no comment", "public void m() {}", "1 warning");
+    }
+
+    @Test
+    void testOnlyDiagnosticHeadersAreCounted() {
+        JavadocOutputConsumer consumer = new JavadocOutputConsumer(line -> false, line -> {}, line -> {}, null);
+        consumer.consumeLine("/src/p/A.java:4: warning: no comment");
+        consumer.consumeLine("    // on error: retry");
+        consumer.consumeLine("       ^");
+        consumer.consumeLine("javadoc: warning - Multiple sources of package comments found for package \"p\"");
+        consumer.consumeLine("error: file not found: B.java");
+        consumer.consumeLine("javadoc: error - invalid flag: -foo");
+
+        assertThat(consumer.getWarningCount()).isEqualTo(2);
+        assertThat(consumer.getErrorCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testRetainedOutputIsBounded() {
+        JavadocOutputConsumer consumer = new JavadocOutputConsumer(line -> false, line -> {}, line -> {}, null);
+        int count = JavadocOutputConsumer.RETAINED_LINES * 10;
+        for (int i = 0; i < count; i++) {
+            consumer.consumeLine("A.java:" + i + ": warning: no comment");
+        }
+
+        String[] lines = consumer.getRetainedOutput().split("\n");
+        assertThat(lines).hasSize(2 * JavadocOutputConsumer.RETAINED_LINES + 1);
+        assertThat(lines[0]).isEqualTo("A.java:0: warning: no comment");
+        assertThat(lines[JavadocOutputConsumer.RETAINED_LINES])
+                .isEqualTo("[... " + (count - 2 * JavadocOutputConsumer.RETAINED_LINES) + " more lines ...]");
+        assertThat(lines[lines.length - 1]).isEqualTo("A.java:" + (count - 1) + ": warning: no comment");
+        assertThat(consumer.getWarningCount()).isEqualTo(count);
+    }
+
+    @Test
+    void testOutOfMemoryError() {
+        JavadocOutputConsumer consumer = new JavadocOutputConsumer(line -> false, line -> {}, line -> {}, null);
+        consumer.consumeLine("Generating /target/apidocs/p/A.html...");
+        assertThat(consumer.hasOutOfMemoryError()).isFalse();
+
+        consumer.consumeLine("error: fatal error encountered: java.lang.OutOfMemoryError: Java heap space");
+        assertThat(consumer.hasOutOfMemoryError()).isTrue();
+    }
+}
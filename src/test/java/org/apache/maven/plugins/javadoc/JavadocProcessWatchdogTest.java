@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.codehaus.plexus.util.cli.Commandline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+class JavadocProcessWatchdogTest {
+    @Test
+    void testCompletes() throws Exception {
+        JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> null);
+        assertThat(watchdog.getElapsedMillis()).isEqualTo(-1);
+
+        int exitCode = watchdog.execute(shell("exit 3"), line -> {}, line -> {});
+
+        assertThat(exitCode).isEqualTo(3);
+        assertThat(watchdog.getAbortReason()).isNull();
+        assertThat(watchdog.getElapsedMillis()).isNotNegative();
+    }
+
+    @Test
+    void testAborts() throws Exception {
+        AtomicBoolean warned = new AtomicBoolean();
+        JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> warned.get() ? "the first warning" : null);
+
+        watchdog.execute(shell("echo 'warning: x' >&2; sleep 60"), line -> {}, line -> warned.set(true));
+
+        assertThat(watchdog.getAbortReason()).isEqualTo("the first warning");
+        assertThat(watchdog.getElapsedMillis()).isLessThan(30000);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    void testStopsRun() throws Exception {
+        JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> "the first error");
+
+        int exitCode = watchdog.execute(() -> {
+            try {
+                Thread.sleep(60000);
+                return 0;
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted", e);
+            }
+        });
+
+        assertThat(exitCode).isEqualTo(-1);
+        assertThat(watchdog.getAbortReason()).isEqualTo("the first error");
+        assertThat(watchdog.getElapsedMillis()).isLessThan(30000);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    private static Commandline shell(String script) {
+        Commandline cmd = new Commandline();
+        cmd.setExecutable("/bin/sh");
+        cmd.createArg().setValue("-c");
+        cmd.createArg().setValue(script);
+        return cmd;
+    }
+}
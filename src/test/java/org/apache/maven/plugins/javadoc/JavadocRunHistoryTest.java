@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocRunHistoryTest {
+    @Test
+    void testMaxMemory(@TempDir Path tempDir) throws Exception {
+        File buildDirectory = tempDir.toFile();
+        File apidocs = new File(buildDirectory, "reports/apidocs");
+        File testApidocs = new File(buildDirectory, "reports/testapidocs");
+
+        JavadocRunHistory history = JavadocRunHistory.load(buildDirectory);
+        assertThat(history.getMaxMemory(apidocs)).isEqualTo(-1);
+        assertThat(history.getMaxMemoryEstimate(apidocs)).isEqualTo(-1);
+
+        history.setMaxMemory(apidocs, 1024, 256);
+        history.setDuration(apidocs, 1000);
+        history.store();
+
+        history = JavadocRunHistory.load(buildDirectory);
+        assertThat(history.getMaxMemory(apidocs)).isEqualTo(1024);
+        assertThat(history.getMaxMemoryEstimate(apidocs)).isEqualTo(256);
+        assertThat(history.getMaxMemory(testApidocs)).isEqualTo(-1);
+
+        history.removeMaxMemory(apidocs);
+        history.store();
+
+        history = JavadocRunHistory.load(buildDirectory);
+        assertThat(history.getMaxMemory(apidocs)).isEqualTo(-1);
+        assertThat(history.getMaxMemoryEstimate(apidocs)).isEqualTo(-1);
+        assertThat(history.getDuration(apidocs)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JavadocSessionCacheTest {
+    private final JavadocSessionCache cache = new JavadocSessionCache();
+
+    @Test
+    void testEntryComputedOncePerSession() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(session, "link", "https://example.org", () -> loads.incrementAndGet()))
+                .isEqualTo(1);
+        assertThat(cache.get(session, "link", "https://example.org", () -> loads.incrementAndGet()))
+                .isEqualTo(1);
+        assertThat(cache.get(session, "link", "https://example.com", () -> loads.incrementAndGet()))
+                .isEqualTo(2);
+        assertThat(cache.get(session, "other", "https://example.org", () -> loads.incrementAndGet()))
+                .isEqualTo(3);
+
+        assertThat(cache.get(new DefaultRepositorySystemSession(), "link", "https://example.org", () -> "new session"))
+                .isEqualTo("new session");
+    }
+
+    @Test
+    void testInstanceSharedPerSession() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        AtomicInteger creations = new AtomicInteger();
+
+        StringBuilder instance = cache.getInstance(session, StringBuilder.class, () -> {
+            creations.incrementAndGet();
+            return new StringBuilder();
+        });
+        assertThat(new JavadocSessionCache().getInstance(session, StringBuilder.class, StringBuilder::new))
+                .isSameAs(instance);
+        assertThat(creations).hasValue(1);
+
+        assertThat(cache.getInstance(new DefaultRepositorySystemSession(), StringBuilder.class, StringBuilder::new))
+                .isNotSameAs(instance);
+        assertThat(cache.getInstance(null, StringBuilder.class, StringBuilder::new))
+                .isNotSameAs(instance);
+    }
+
+    @Test
+    void testNullEntryIsCached() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(cache.<String, RuntimeException>get(session, "resource", "missing", () -> {
+                        loads.incrementAndGet();
+                        return null;
+                    }))
+                    .isNull();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void testFailureIsNotCached() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+
+        assertThatThrownBy(() -> cache.get(session, "artifact path", "g:a:v", () -> {
+                    throw new IOException("offline");
+                }))
+                .isInstanceOf(IOException.class)
+                .hasMessage("offline");
+        assertThat(cache.get(session, "artifact path", "g:a:v", () -> "resolved"))
+                .isEqualTo("resolved");
+    }
+
+    @Test
+    void testWithoutSessionNothingIsCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(null, "link", "https://example.org", () -> loads.incrementAndGet());
+        cache.get(null, "link", "https://example.org", () -> loads.incrementAndGet());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testConcurrentRequestsComputeOnce() throws Exception {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> cache.get(session, "link", "https://example.org", () -> {
+                    Thread.sleep(10);
+                    return loads.incrementAndGet();
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                assertThat(future.get()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codehaus.plexus.languages.java.version.JavaVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocToolCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExecutables() {
+        JavadocToolCache cache = new JavadocToolCache(null);
+        assertThat(cache.getExecutable("JDK[/opt/jdk]|null")).isNull();
+        cache.putExecutable("JDK[/opt/jdk]|null", "/opt/jdk/bin/javadoc");
+        assertThat(cache.getExecutable("JDK[/opt/jdk]|null")).isEqualTo("/opt/jdk/bin/javadoc");
+    }
+
+    @Test
+    void testPersistedVersion() throws Exception {
+        File executable = createJdk("jdk", "JAVA_VERSION=\"17.0.9\"");
+        Path file = tempDir.resolve("repo").resolve(JavadocToolCache.FILE_NAME);
+
+        new JavadocToolCache(file).putVersion(executable, JavaVersion.parse("17.0.9"));
+        assertThat(file).isRegularFile();
+
+        JavadocToolCache cache = new JavadocToolCache(file);
+        assertThat(cache.getVersion(executable)).hasToString("17.0.9");
+
+        // the JDK was updated in place
+        Files.write(
+                new File(executable.getParentFile().getParentFile(), "release").toPath(),
+                "JAVA_VERSION=\"17.0.10\"".getBytes(StandardCharsets.UTF_8));
+        assertThat(new JavadocToolCache(file).getVersion(executable)).isNull();
+    }
+
+    @Test
+    void testVersionWithoutReleaseFile() throws Exception {
+        File executable = createJdk("jdk", null);
+        Path file = tempDir.resolve("repo").resolve(JavadocToolCache.FILE_NAME);
+
+        JavadocToolCache cache = new JavadocToolCache(file);
+        cache.putVersion(executable, JavaVersion.parse("1.8.0_392"));
+
+        assertThat(cache.getVersion(executable)).hasToString("1.8.0_392");
+        assertThat(file).doesNotExist();
+        assertThat(new JavadocToolCache(file).getVersion(executable)).isNull();
+    }
+
+    private File createJdk(String name, String release) throws Exception {
+        Path bin = Files.createDirectories(tempDir.resolve(name).resolve("bin"));
+        if (release != null) {
+            Files.write(bin.getParent().resolve("release"), release.getBytes(StandardCharsets.UTF_8));
+        }
+        return Files.createFile(bin.resolve("javadoc")).toFile();
+    }
+}
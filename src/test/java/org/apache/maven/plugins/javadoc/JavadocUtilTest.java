@@ -245,6 +245,13 @@ class JavadocUtilTest {
         }
     }
 
+    @Test
+    void testParseJavadocMemoryInBytes() {
+        assertEquals(128L * 1024 * 1024, JavadocUtil.parseJavadocMemoryInBytes("128"));
+        assertEquals(128L * 1024, JavadocUtil.parseJavadocMemoryInBytes("128kb"));
+        assertEquals(2L * 1024 * 1024 * 1024, JavadocUtil.parseJavadocMemoryInBytes("2g"));
+    }
+
     /**
      * Method to test the validate encoding parsing.
      */
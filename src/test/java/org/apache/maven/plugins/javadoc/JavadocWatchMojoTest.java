@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.apache.maven.api.plugin.testing.MojoExtension.setVariableValueToObject;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocWatchMojoTest {
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger regenerations = new AtomicInteger();
+
+    private JavadocWatchMojo mojo;
+
+    private Path sources;
+
+    private Path javadocDirectory;
+
+    private Path apidocs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sources = Files.createDirectories(tempDir.resolve("src/main/java"));
+        javadocDirectory = Files.createDirectories(tempDir.resolve("src/main/javadoc"));
+        apidocs = tempDir.resolve("target/reports/apidocs");
+        mojo = new JavadocWatchMojo(null, null, null, null, null, null, null) {
+            @Override
+            void executeReportAgain() {
+                regenerations.incrementAndGet();
+            }
+        };
+        mojo.setReportOutputDirectory(apidocs.getParent().toFile());
+        setVariableValueToObject(mojo, "javadocDirectory", javadocDirectory.toFile());
+    }
+
+    @Test
+    void testDocFileIsCopiedWithoutRegeneration() throws Exception {
+        Path image = write(sources.resolve("p/doc-files/image.png"));
+        Path resource = write(javadocDirectory.resolve("resources/logo.png"));
+
+        assertThat(copyOrRegenerate(image, resource)).isTrue();
+
+        assertThat(regenerations).hasValue(0);
+        assertThat(apidocs.resolve("p/doc-files/image.png")).hasContent("image.png");
+        assertThat(apidocs.resolve("logo.png")).doesNotExist();
+        assertThat(apidocs.resolve("resources/logo.png")).hasContent("logo.png");
+
+        Files.delete(image);
+        assertThat(copyOrRegenerate(image)).isTrue();
+        assertThat(apidocs.resolve("p/doc-files/image.png")).doesNotExist();
+        assertThat(regenerations).hasValue(0);
+    }
+
+    @Test
+    void testDocFilesSubdirectories() throws Exception {
+        Path nested = write(sources.resolve("p/doc-files/images/image.png"));
+        Path excluded = write(sources.resolve("p/doc-files/drafts/draft.html"));
+
+        // not copied by the Javadoc Tool without docfilessubdirs
+        assertThat(copyOrRegenerate(nested)).isTrue();
+        assertThat(apidocs.resolve("p/doc-files/images/image.png")).doesNotExist();
+
+        setVariableValueToObject(mojo, "docfilessubdirs", true);
+        setVariableValueToObject(mojo, "excludedocfilessubdir", "drafts");
+        assertThat(copyOrRegenerate(nested, excluded)).isTrue();
+        assertThat(apidocs.resolve("p/doc-files/images/image.png")).exists();
+        assertThat(apidocs.resolve("p/doc-files/drafts/draft.html")).doesNotExist();
+        assertThat(regenerations).hasValue(0);
+    }
+
+    @Test
+    void testSourceChangeRegenerates() throws Exception {
+        Path source = write(sources.resolve("p/A.java"));
+        Path image = write(sources.resolve("p/doc-files/image.png"));
+
+        assertThat(copyOrRegenerate(source, image)).isTrue();
+
+        assertThat(regenerations).hasValue(1);
+        assertThat(apidocs.resolve("p/doc-files/image.png")).exists();
+    }
+
+    @Test
+    void testEditorTemporaryFileIsIgnored() throws Exception {
+        Path backup = write(sources.resolve("p/A.java~"));
+        Path swap = write(sources.resolve("p/doc-files/.#image.png"));
+        Path outside = write(tempDir.resolve("pom.xml"));
+
+        assertThat(copyOrRegenerate(backup, swap, outside)).isFalse();
+
+        assertThat(regenerations).hasValue(0);
+        assertThat(apidocs).doesNotExist();
+    }
+
+    @Test
+    void testIsDefaultExcluded() {
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", "A.java~")))
+                .isTrue();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", "#A.java#")))
+                .isTrue();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", ".#A.java")))
+                .isTrue();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", ".DS_Store")))
+                .isTrue();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get(".git", "index")))
+                .isTrue();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", "A.java"))).isFalse();
+        assertThat(JavadocWatchMojo.isDefaultExcluded(Paths.get("p", "doc-files", "image.png")))
+                .isFalse();
+    }
+
+    private boolean copyOrRegenerate(Path... changed) {
+        List<Path> roots = Arrays.asList(sources, javadocDirectory);
+        return mojo.copyOrRegenerate(roots, new HashSet<>(Arrays.asList(changed)));
+    }
+
+    private static Path write(Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, Collections.singletonList(file.getFileName().toString()));
+    }
+}
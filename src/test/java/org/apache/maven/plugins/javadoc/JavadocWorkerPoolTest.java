@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.maven.execution.AbstractExecutionListener;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JavadocWorkerPoolTest {
+    @Test
+    void testExecute(@TempDir Path tempDir) throws Exception {
+        Path sources = Files.createDirectories(tempDir.resolve("src/p"));
+        Files.write(
+                sources.resolve("A.java"),
+                Arrays.asList("package p;", "/** A. */", "public class A {", "    public void m() {}", "}"),
+                StandardCharsets.UTF_8);
+        File java = new File(SystemUtils.getJavaHome(), "bin/" + (SystemUtils.IS_OS_WINDOWS ? "java.exe" : "java"));
+
+        MavenSession session = newSession();
+        JavadocSessionCache sessionCache = new JavadocSessionCache();
+        JavadocWorkerPool pool = JavadocWorkerPool.getInstance(sessionCache, session);
+        assertThat(JavadocWorkerPool.getInstance(sessionCache, session)).isSameAs(pool);
+        try {
+            for (int i = 0; i < 3; i++) {
+                Path apidocs = tempDir.resolve("apidocs" + i);
+                List<String> out = new ArrayList<>();
+                List<String> err = new ArrayList<>();
+                int exitCode = pool.execute(
+                        java,
+                        Collections.singletonList("-Duser.language="),
+                        Arrays.asList(
+                                "-Xdoclint:all",
+                                "-d",
+                                apidocs.toString(),
+                                sources.resolve("A.java").toString()),
+                        2,
+                        100,
+                        out::add,
+                        err::add);
+
+                assertThat(exitCode).isEqualTo(0);
+                assertThat(apidocs.resolve("p/A.html")).exists();
+                assertThat(out).anyMatch(line -> line.startsWith("Generating "));
+                assertThat(err).anyMatch(line -> line.contains("A.java:4: warning: "));
+                assertThat(err).last().isEqualTo("1 warning");
+            }
+
+            List<String> err = new ArrayList<>();
+            int exitCode = pool.execute(
+                    java,
+                    Collections.emptyList(),
+                    Collections.singletonList("-unknownoption"),
+                    2,
+                    100,
+                    line -> {},
+                    err::add);
+            assertThat(exitCode).isNotEqualTo(0);
+            assertThat(err).anyMatch(line -> line.contains("error"));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testStoppedByWatchdog(@TempDir Path tempDir) throws Exception {
+        Path sources = Files.createDirectories(tempDir.resolve("src/p"));
+        Files.write(sources.resolve("A.java"), Arrays.asList("package p;", "/** A. */", "public class A {}"));
+        File java = new File(SystemUtils.getJavaHome(), "bin/" + (SystemUtils.IS_OS_WINDOWS ? "java.exe" : "java"));
+        List<String> arguments = Arrays.asList(
+                "-d",
+                tempDir.resolve("apidocs").toString(),
+                sources.resolve("A.java").toString());
+
+        JavadocWorkerPool pool = JavadocWorkerPool.getInstance(new JavadocSessionCache(), newSession());
+        try {
+            JavadocProcessWatchdog watchdog = new JavadocProcessWatchdog(() -> "the first warning");
+            int exitCode = watchdog.execute(
+                    () -> pool.execute(java, Collections.emptyList(), arguments, 10, 100, line -> {}, line -> {}));
+
+            assertThat(exitCode).isEqualTo(-1);
+            assertThat(watchdog.getAbortReason()).isEqualTo("the first warning");
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+
+            // the stopped worker is replaced
+            assertThat(pool.execute(java, Collections.emptyList(), arguments, 10, 100, line -> {}, line -> {}))
+                    .isEqualTo(0);
+            assertThat(tempDir.resolve("apidocs/p/A.html")).exists();
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testClosedWhenSessionEnds() {
+        MavenSession session = newSession();
+        List<String> events = new ArrayList<>();
+        session.getRequest().setExecutionListener(new AbstractExecutionListener() {
+            @Override
+            public void sessionEnded(ExecutionEvent event) {
+                events.add("sessionEnded");
+            }
+        });
+        JavadocWorkerPool pool = JavadocWorkerPool.getInstance(new JavadocSessionCache(), session);
+
+        session.getRequest().getExecutionListener().sessionEnded(null);
+
+        assertThat(events).containsExactly("sessionEnded");
+        assertThatThrownBy(() -> pool.execute(
+                        new File("java"),
+                        Collections.emptyList(),
+                        Collections.emptyList(),
+                        1,
+                        100,
+                        line -> {},
+                        line -> {}))
+                .isInstanceOf(JavadocWorkerPool.WorkerStartException.class)
+                .hasMessage("The javadoc worker pool is closed");
+    }
+
+    @SuppressWarnings("deprecation")
+    private static MavenSession newSession() {
+        return new MavenSession(
+                null,
+                new DefaultRepositorySystemSession(),
+                new DefaultMavenExecutionRequest(),
+                new DefaultMavenExecutionResult());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackageMatcherTest {
+    private static final String REGEX_FILE_SEPARATOR = File.separator.replace("\\", "\\\\");
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "a", "a.b", "a.*", "*.internal", "*.internal.*", "*", "a.*.c", "*.b.*.d", "a.b*", "*b", "x.y.z");
+
+    private static final List<String> DIRECTORIES = Arrays.asList(
+            "",
+            "a",
+            "a/b",
+            "a/bc",
+            "a/b/c",
+            "a/x/c",
+            "a/x/y/c",
+            "a/b/c/d",
+            "x/b/y/d",
+            "internal",
+            "x/internal",
+            "x/y/internal",
+            "x/internal/y",
+            "x/internal/y/z",
+            "xb",
+            "x/y/z",
+            "x/y/z/w");
+
+    @Test
+    void testSameAsRegexForFiles() {
+        for (String pattern : PATTERNS) {
+            PackageMatcher matcher = PackageMatcher.forFiles(Collections.singletonList(pattern));
+            Pattern regex = Pattern.compile(pattern.replace('.', File.separatorChar)
+                    .replace("\\", "\\\\")
+                    .replace("*", ".+")
+                    .concat("[\\\\/][^\\\\/]+\\.java"));
+            for (String directory : DIRECTORIES) {
+                String file = (directory.isEmpty() ? "" : platform(directory) + File.separator) + "A.java";
+                assertThat(JavadocUtil.getIncludedFiles(new String[] {file}, matcher))
+                        .as("%s in %s", pattern, file)
+                        .hasSize(regex.matcher(file).matches() ? 0 : 1);
+            }
+        }
+    }
+
+    @Test
+    void testSameAsRegexForPackages() {
+        for (String pattern : PATTERNS) {
+            PackageMatcher matcher = PackageMatcher.forPackages(Collections.singletonList(pattern));
+            Pattern regex = Pattern.compile(pattern.replace(".", REGEX_FILE_SEPARATOR)
+                    .replaceFirst("^\\*", ".+")
+                    .replace("*", "[^" + REGEX_FILE_SEPARATOR + "]+"));
+            for (String directory : DIRECTORIES) {
+                assertThat(matcher.matches(platform(directory)))
+                        .as("%s on %s", pattern, directory)
+                        .isEqualTo(regex.matcher(platform(directory)).matches());
+            }
+        }
+    }
+
+    @Test
+    void testOrderOfExcludedPackages() {
+        List<String> directories = new ArrayList<>();
+        for (String directory : DIRECTORIES) {
+            directories.add(platform(directory));
+        }
+
+        assertThat(JavadocUtil.filterExcludedPackages(directories, Arrays.asList("*.internal", "a.*", "*.b.*.d")))
+                .containsExactly("x.internal", "x.y.internal", "a.b", "a.bc", "a.b.c.d", "x.b.y.d");
+    }
+
+    @Test
+    void testNonJavaFilesAndRootFiles() {
+        PackageMatcher matcher = PackageMatcher.forFiles(Collections.singletonList("*"));
+
+        assertThat(JavadocUtil.getIncludedFiles(
+                        new String[] {"A.java", platform("a/doc-files/A.html"), platform("a/.java")}, matcher))
+                .containsExactly("A.java", "a/doc-files/A.html", "a/.java");
+    }
+
+    private static String platform(String path) {
+        return path.replace('/', File.separatorChar);
+    }
+}
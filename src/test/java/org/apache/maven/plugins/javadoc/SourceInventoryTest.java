@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceInventoryTest {
+    private static final FileTime YESTERDAY = FileTime.fromMillis(System.currentTimeMillis() - 86_400_000L);
+
+    private static final FileTime HOUR_AGO = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L);
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private File buildDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        root = tempDir.resolve("src");
+        buildDirectory = tempDir.resolve("target").toFile();
+        touch("a/A.java");
+        touch("a/b/B.java");
+        touch("c/C.java");
+        age(YESTERDAY, "", "a", "a/b", "c");
+    }
+
+    @Test
+    void testUnmodifiedDirectoriesAreNotListed() throws Exception {
+        assertThat(walk().getListedDirectories()).isEqualTo(4);
+        assertThat(buildDirectory.toPath().resolve(SourceInventory.FILE_NAME)).isRegularFile();
+
+        SourceTreeIndex index = walk();
+        assertThat(index.getListedDirectories()).isZero();
+        assertThat(index.getFiles(root)).containsExactly("a/A.java", "a/b/B.java", "c/C.java");
+    }
+
+    @Test
+    void testModifiedDirectoryIsListed() throws Exception {
+        walk();
+        touch("a/b/D.java");
+        age(HOUR_AGO, "a/b");
+
+        SourceTreeIndex index = walk();
+        assertThat(index.getListedDirectories()).isEqualTo(1);
+        assertThat(index.getFiles(root)).containsExactly("a/A.java", "a/b/B.java", "a/b/D.java", "c/C.java");
+    }
+
+    @Test
+    void testRemovedDirectoryIsDropped() throws Exception {
+        walk();
+        Files.delete(root.resolve("c/C.java"));
+        Files.delete(root.resolve("c"));
+        age(HOUR_AGO, "");
+
+        SourceTreeIndex index = walk();
+        assertThat(index.getListedDirectories()).isEqualTo(1);
+        assertThat(index.getPackages(root)).containsExactly("a", "a.b");
+        assertThat(SourceInventory.load(buildDirectory).get(root))
+                .containsOnlyKeys("", "a", "a" + File.separator + "b");
+    }
+
+    @Test
+    void testRecentlyModifiedDirectoryIsListedAgain() throws Exception {
+        touch("e/E.java");
+        walk();
+
+        SourceTreeIndex index = walk();
+        assertThat(index.getListedDirectories()).isEqualTo(2);
+        assertThat(index.getFiles(root)).contains("e/E.java");
+    }
+
+    private SourceTreeIndex walk() throws Exception {
+        SourceTreeIndex index =
+                new SourceTreeIndex(null, null, Collections.emptyList(), SourceInventory.load(buildDirectory));
+        List<Path> roots = Collections.singletonList(root);
+        index.walk(roots);
+        index.storeInventory();
+        return index;
+    }
+
+    private void touch(String path) throws Exception {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.createFile(file);
+    }
+
+    private void age(FileTime time, String... directories) throws Exception {
+        for (String directory : directories) {
+            Files.setLastModifiedTime(root.resolve(directory), time);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceTreeIndexTest {
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path archives;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        touch("module-info.java");
+        touch("a/A.java");
+        touch("a/doc-files/A.html");
+        touch("a/b/B.java");
+        touch("a/internal/I.java");
+        touch("c/C.txt");
+    }
+
+    @Test
+    void testSameFilesAsDirectoryScanner() {
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.emptyList());
+
+        assertThat(index.getFiles(root))
+                .containsExactlyInAnyOrderElementsOf(
+                        JavadocUtil.getFilesFromSource(root.toFile(), null, null, Collections.emptyList()));
+        assertThat(index.getFiles(root)).hasSize(4);
+    }
+
+    @Test
+    void testPatternsAndExcludedPackages() {
+        SourceTreeIndex index = new SourceTreeIndex(
+                Collections.singletonList("a/**"),
+                Collections.singletonList("**/doc-files/"),
+                Collections.singletonList("a.internal"));
+
+        assertThat(index.getFiles(root)).containsExactlyInAnyOrder("a/A.java", "a/b/B.java");
+        assertThat(index.getPackages(root)).containsExactlyInAnyOrder("a", "a.b");
+        assertThat(index.hasModuleDescriptor(root)).isFalse();
+    }
+
+    @Test
+    void testPackagesAndModuleDescriptor() {
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.emptyList());
+
+        assertThat(index.getPackages(root)).containsExactlyInAnyOrder("a", "a.b", "a.internal");
+        assertThat(index.hasModuleDescriptor(root)).isTrue();
+        assertThat(index.containsFile(root, "a/b/B.java")).isTrue();
+    }
+
+    @Test
+    void testJavaDirectories() {
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.emptyList());
+
+        assertThat(index.getJavaDirectories(root))
+                .containsExactlyInAnyOrder("", "a", "a" + File.separator + "b", "a" + File.separator + "internal");
+        assertThat(JavadocUtil.filterExcludedPackages(index.getJavaDirectories(root), Collections.singletonList("a.*")))
+                .containsExactlyInAnyOrder("a.b", "a.internal");
+    }
+
+    @Test
+    void testWalkSortsFilesOfEachRoot() throws Exception {
+        Path other = Files.createDirectories(root.resolve("other"));
+        touch("other/z/Z.java");
+        touch("other/m/M.java");
+        touch("other/m/a/A.java");
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.emptyList());
+
+        assertThat(index.walk(Arrays.asList(root, other, root))).isEqualTo(2);
+        assertThat(index.walk(Collections.singletonList(other))).isZero();
+        assertThat(index.getFiles(other)).containsExactly("m/M.java", "m/a/A.java", "z/Z.java");
+        assertThat(index.getPackages(other)).containsExactly("m", "m.a", "z");
+    }
+
+    @Test
+    void testArchiveListedLikeDirectory() throws Exception {
+        Path archive = archives.resolve("sources.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String entry : Arrays.asList(
+                    "c/C.txt", "a/b/", "a/b/B.java", "module-info.java", "a/internal/I.java", "a/A.java")) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.closeEntry();
+            }
+        }
+        SourceTreeIndex index = new SourceTreeIndex(null, null, Collections.singletonList("a.internal"));
+
+        assertThat(SourceTreeIndex.isArchive(archive)).isTrue();
+        assertThat(SourceTreeIndex.isArchive(root)).isFalse();
+        assertThat(index.walk(Arrays.asList(root, archive))).isEqualTo(2);
+        assertThat(index.getFiles(archive))
+                .containsExactly("a/A.java", "a/b/B.java", "module-info.java")
+                .containsExactlyElementsOf(index.getFiles(root));
+        assertThat(index.getPackages(archive)).containsExactly("a", "a.b");
+        assertThat(index.getJavaDirectories(archive)).isEqualTo(index.getJavaDirectories(root));
+    }
+
+    private void touch(String path) throws Exception {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.createFile(file);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceWatcherTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void testChangesInNewDirectories() throws Exception {
+        Path existing = Files.createDirectories(root.resolve("a"));
+        try (SourceWatcher watcher = new SourceWatcher(Arrays.asList(root, root.resolve("missing")))) {
+            assertThat(watcher.getDirectoryCount()).isEqualTo(2);
+
+            Path directory = Files.createDirectory(root.resolve("b"));
+            Files.createFile(existing.resolve("A.java"));
+            assertThat(watcher.awaitChanges(200)).contains(directory, existing.resolve("A.java"));
+
+            Path file = Files.createFile(directory.resolve("B.java"));
+            assertThat(watcher.awaitChanges(200)).containsExactly(file);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MissingArtifactCacheTest {
+    private static final long DAY = 86_400_000L;
+
+    private static final RemoteRepository CENTRAL =
+            new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2").build();
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    private DefaultRepositorySystemSession session;
+
+    private ArtifactRequest request;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("missing-artifacts.properties");
+        session = new DefaultRepositorySystemSession();
+        request = new ArtifactRequest(
+                new DefaultArtifact("org.example", "lib", "sources", "jar", "1.0"),
+                Collections.singletonList(CENTRAL),
+                null);
+    }
+
+    @Test
+    void testMissIsRememberedAcrossBuilds() {
+        new MissingArtifactCache(file).update(session, Collections.singletonList(notFound(request)), DAY);
+
+        MissingArtifactCache cache = new MissingArtifactCache(file);
+        assertThat(cache.isMissing(session, request, DAY)).isTrue();
+        assertThat(cache.isMissing(session, inOtherRepository(request), DAY)).isFalse();
+    }
+
+    @Test
+    void testTransferErrorIsNotAMiss() {
+        ArtifactResult result = new ArtifactResult(request);
+        result.addException(new ArtifactTransferException(request.getArtifact(), CENTRAL, "timeout"));
+        new MissingArtifactCache(file).update(session, Collections.singletonList(result), DAY);
+
+        assertThat(new MissingArtifactCache(file).isMissing(session, request, DAY))
+                .isFalse();
+    }
+
+    @Test
+    void testExpiredMissIsTrustedOffline() throws Exception {
+        persist(request, System.currentTimeMillis() - 2 * DAY);
+
+        assertThat(new MissingArtifactCache(file).isMissing(session, request, DAY))
+                .isFalse();
+        session.setOffline(true);
+        assertThat(new MissingArtifactCache(file).isMissing(session, request, DAY))
+                .isTrue();
+    }
+
+    @Test
+    void testOfflineMissIsNotRecorded() {
+        session.setOffline(true);
+        new MissingArtifactCache(file).update(session, Collections.singletonList(notFound(request)), DAY);
+
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void testForcedUpdateLooksAgain() {
+        new MissingArtifactCache(file).update(session, Collections.singletonList(notFound(request)), DAY);
+        session.setUpdatePolicy("always");
+
+        assertThat(new MissingArtifactCache(file).isMissing(session, request, DAY))
+                .isFalse();
+    }
+
+    @Test
+    void testFoundArtifactIsForgotten() {
+        MissingArtifactCache cache = new MissingArtifactCache(file);
+        cache.update(session, Collections.singletonList(notFound(request)), DAY);
+        ArtifactResult found = new ArtifactResult(request);
+        found.setArtifact(request.getArtifact().setFile(tempDir.toFile()));
+        cache.update(session, Collections.singletonList(found), DAY);
+
+        assertThat(new MissingArtifactCache(file).isMissing(session, request, DAY))
+                .isFalse();
+    }
+
+    private static ArtifactResult notFound(ArtifactRequest request) {
+        ArtifactResult result = new ArtifactResult(request);
+        result.addException(new ArtifactNotFoundException(request.getArtifact(), CENTRAL));
+        return result;
+    }
+
+    private static ArtifactRequest inOtherRepository(ArtifactRequest request) {
+        RemoteRepository mirror =
+                new RemoteRepository.Builder("mirror", "default", "https://mirror.example.org/maven2").build();
+        return new ArtifactRequest(request.getArtifact(), Collections.singletonList(mirror), null);
+    }
+
+    private void persist(ArtifactRequest request, long time) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(MissingArtifactCache.getKey(request), Long.toString(time));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, null);
+        }
+    }
+}
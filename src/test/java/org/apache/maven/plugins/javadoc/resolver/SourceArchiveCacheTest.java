@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceArchiveCacheTest {
+    private static final FileTime YESTERDAY = FileTime.fromMillis(System.currentTimeMillis() - 86_400_000L);
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger extractions = new AtomicInteger();
+
+    @Test
+    void testArchiveIsUnpackedOnce() throws Exception {
+        SourceArchiveCache cache = new SourceArchiveCache(tempDir.resolve("cache"), Long.MAX_VALUE);
+        File archive = archive("a.jar", "class A {}");
+
+        Path entry = cache.get(archive, d -> extract(archive, d));
+        assertThat(entry.resolve("Source.java")).hasContent("class A {}");
+        assertThat(cache.get(archive, d -> extract(archive, d))).isEqualTo(entry);
+        assertThat(extractions).hasValue(1);
+    }
+
+    @Test
+    void testEntriesAreKeyedByContent() throws Exception {
+        SourceArchiveCache cache = new SourceArchiveCache(tempDir.resolve("cache"), Long.MAX_VALUE);
+        File first = archive("a.jar", "class A {}");
+        File copy = archive("b.jar", "class A {}");
+        File other = archive("c.jar", "class C {}");
+
+        Path entry = cache.get(first, d -> extract(first, d));
+        assertThat(cache.get(copy, d -> extract(copy, d))).isEqualTo(entry);
+        assertThat(cache.get(other, d -> extract(other, d))).isNotEqualTo(entry);
+        assertThat(extractions).hasValue(2);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        SourceArchiveCache cache = new SourceArchiveCache(tempDir.resolve("cache"), 15);
+        File a = archive("a.jar", "class A {}");
+        File b = archive("b.jar", "class B {}");
+        File c = archive("c.jar", "class C {}");
+
+        Path entryA = cache.get(a, d -> extract(a, d));
+        Files.setLastModifiedTime(entryA, FileTime.fromMillis(YESTERDAY.toMillis() - 1000));
+        Path entryB = cache.get(b, d -> extract(b, d));
+        Files.setLastModifiedTime(entryB, YESTERDAY);
+        Path entryC = cache.get(c, d -> extract(c, d));
+
+        assertThat(entryA).doesNotExist();
+        assertThat(entryB).doesNotExist();
+        assertThat(entryC).isDirectory();
+    }
+
+    @Test
+    void testRecentlyUsedEntriesAreNotEvicted() throws Exception {
+        SourceArchiveCache cache = new SourceArchiveCache(tempDir.resolve("cache"), 1);
+        File a = archive("a.jar", "class A {}");
+        File b = archive("b.jar", "class B {}");
+
+        Path entryA = cache.get(a, d -> extract(a, d));
+        Path entryB = cache.get(b, d -> extract(b, d));
+
+        assertThat(entryA).isDirectory();
+        assertThat(entryB).isDirectory();
+    }
+
+    @Test
+    void testFailedExtractionPublishesNothing() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        SourceArchiveCache cache = new SourceArchiveCache(directory, Long.MAX_VALUE);
+        File archive = archive("a.jar", "class A {}");
+
+        assertThatThrownBy(() -> cache.get(archive, d -> {
+                    extract(archive, d);
+                    throw new ArchiverException("corrupt");
+                }))
+                .isInstanceOf(ArchiverException.class);
+        assertThat(directory).isEmptyDirectory();
+
+        assertThat(cache.get(archive, d -> extract(archive, d)).resolve("Source.java"))
+                .hasContent("class A {}");
+    }
+
+    private File archive(String name, String content) throws Exception {
+        Path archive = tempDir.resolve(name);
+        Files.write(archive, content.getBytes(StandardCharsets.UTF_8));
+        return archive.toFile();
+    }
+
+    private void extract(File archive, File directory) {
+        extractions.incrementAndGet();
+        try {
+            Files.copy(archive.toPath(), directory.toPath().resolve("Source.java"));
+        } catch (Exception e) {
+            throw new ArchiverException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.javadoc.resolver;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceFileSelectorTest {
+    @Test
+    void testOnlyJavadocInputsAreSelected() {
+        SourceFileSelector selector = new SourceFileSelector(Collections.emptyList());
+
+        assertThat(selector.isSelected("com/foo/Foo.java")).isTrue();
+        assertThat(selector.isSelected("com/foo/package-info.java")).isTrue();
+        assertThat(selector.isSelected("module-info.java")).isTrue();
+        assertThat(selector.isSelected("com/foo/package.html")).isTrue();
+        assertThat(selector.isSelected("com/foo/doc-files/image.png")).isTrue();
+        assertThat(selector.isSelected("com/foo/doc-files/sub/example.txt")).isTrue();
+
+        assertThat(selector.isSelected("META-INF/MANIFEST.MF")).isFalse();
+        assertThat(selector.isSelected("META-INF/versions/9/module-info.java")).isFalse();
+        assertThat(selector.isSelected("com/foo/messages.properties")).isFalse();
+        assertThat(selector.isSelected("com/foo/Foo.class")).isFalse();
+    }
+
+    @Test
+    void testExcludedPackagesAreNotSelected() {
+        SourceFileSelector selector = new SourceFileSelector(Arrays.asList("com.foo.internal", "*.impl"));
+
+        assertThat(selector.isSelected("com/foo/Foo.java")).isTrue();
+        assertThat(selector.isSelected("com/foo/internal/Internal.java")).isFalse();
+        assertThat(selector.isSelected("com/foo/internal/sub/Sub.java")).isTrue();
+        assertThat(selector.isSelected("com/foo/impl/Impl.java")).isFalse();
+        assertThat(selector.isSelected("com/bar/impl/Impl.java")).isFalse();
+        assertThat(selector.isSelected("Default.java")).isTrue();
+    }
+
+    @Test
+    void testVariantFollowsExcludedPackages() {
+        assertThat(new SourceFileSelector(Collections.emptyList()).getVariant()).isEqualTo("sources");
+        assertThat(new SourceFileSelector(Arrays.asList("a", "b")).getVariant())
+                .isEqualTo(new SourceFileSelector(Arrays.asList("b", "a", "b")).getVariant())
+                .isNotEqualTo(new SourceFileSelector(Collections.singletonList("a")).getVariant());
+    }
+}